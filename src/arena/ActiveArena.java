@@ -0,0 +1,465 @@
+package arena;
+
+import java.awt.Canvas;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.GraphicsConfiguration;
+import java.awt.Toolkit;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import game_throws.GameThrow;
+import instrumentation.PaintEvent;
+import signs.CollisionSign;
+import signs.EndSign;
+import signs.Sign;
+import world.WorldStore;
+
+/**
+ * Class that displays the game with active rendering, as an alternative to the BattleArena
+ *
+ * The Simulation is stepped on its own thread by a GameLoop, one step every delay milliseconds however late the
+ * thread wakes up, and a dedicated render thread draws the game through a BufferStrategy as often as the frame
+ * period allows, so neither painting nor the Event Dispatch Thread can delay a tick, and a slow tick cannot delay
+ * a frame. Since frames are drawn more often than steps, every frame interpolates the throws between their
+ * positions before and after the last step
+ *
+ * Both threads share the Simulation through stateLock. The render thread only holds it while it copies where every
+ * sprite goes (rasterizing the ones it has not seen yet), and draws the copy once it has released it
+ *
+ * Keeps the same rules as the BattleArena: the game pauses for collisionOut milliseconds after every collision to
+ * show the CollisionSign, and ends when timeOut milliseconds go by without a collision
+ * @author Luiz do Valle
+ *
+ */
+public class ActiveArena extends Canvas {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The number of buffers of the BufferStrategy (a back buffer and the screen)
+	 */
+	private static final int BUFFERS = 2;
+	/**
+	 * The shortest time between two frames, which caps the frame rate at about 60 frames per second
+	 */
+	private static final long FRAME_PERIOD_NANOS = 1_000_000_000L / 60;
+	/**
+	 * The number of frames a sprite size can go unused before it is evicted from the SpriteCache
+	 */
+	private static final int SPRITE_IDLE_FRAMES = 60;
+	/**
+	 * The largest number of steps the simulation thread runs at once to catch up after falling behind
+	 */
+	private static final int MAX_CATCH_UP_STEPS = 5;
+
+	/**
+	 * The headless engine that moves the throws and resolves their collisions
+	 */
+	private Simulation simulation;
+	/**
+	 * The fixed-timestep loop that decides when the simulation advances a tick
+	 */
+	private GameLoop gameLoop;
+	/**
+	 * How long it takes for the game to end if there are not any collisions, in milliseconds
+	 */
+	private int timeOut;
+	/**
+	 * How long the game is paused after a collision, in milliseconds
+	 */
+	private int collisionOut;
+	/**
+	 * Lock that guards the Simulation, the signs and the timing fields below, shared by both threads
+	 */
+	private final Object stateLock;
+	/**
+	 * All messages that are currently on the screen
+	 */
+	private LinkedList<Sign> signsToDisplay;
+	/**
+	 * The time (System.currentTimeMillis) until which the game is paused after a collision
+	 */
+	private long pausedUntil;
+	/**
+	 * The time (System.currentTimeMillis) from which the countdown to the end of the game runs
+	 */
+	private long countdownStart;
+	/**
+	 * Whether the game has ended
+	 */
+	private boolean gameOver;
+	/**
+	 * Whether the threads should keep running
+	 */
+	private volatile boolean running;
+	/**
+	 * The thread that steps the Simulation
+	 */
+	private Thread simulationThread;
+	/**
+	 * The thread that draws the frames
+	 */
+	private Thread renderThread;
+	/**
+	 * The pre-rasterized images the throws are drawn with, only used by the render thread
+	 */
+	private SpriteCache spriteCache;
+	/**
+	 * The sprite of each throw in the frame being drawn
+	 */
+	private BufferedImage[] frameSprites;
+	/**
+	 * Where each sprite of the frame being drawn goes
+	 */
+	private int[] frameXs;
+	private int[] frameYs;
+	/**
+	 * The signs of the frame being drawn
+	 */
+	private ArrayList<Sign> frameSigns;
+
+	/**
+	 * Constructor for the class that instantiates the class fields
+	 * @param simulation the engine whose state this arena displays
+	 * @param delay how long it takes for the simulation to advance a tick
+	 * @param timeOut how long does it take for the game to end if there are not any collisions
+	 * @param collisionOut how long the game should be paused after a collision
+	 */
+	public ActiveArena(Simulation simulation, int delay, int timeOut, int collisionOut) {
+
+		this.simulation = simulation;
+		this.gameLoop = new GameLoop(delay, MAX_CATCH_UP_STEPS);
+		this.timeOut = timeOut;
+		this.collisionOut = collisionOut;
+		this.stateLock = new Object();
+		this.signsToDisplay = new LinkedList<>();
+		this.spriteCache = new SpriteCache(SPRITE_IDLE_FRAMES);
+		this.frameSprites = new BufferedImage[0];
+		this.frameXs = new int[0];
+		this.frameYs = new int[0];
+		this.frameSigns = new ArrayList<>();
+
+		//Every frame is drawn by the render thread, so the AWT must not paint (and clear) the canvas on its own
+		setIgnoreRepaint(true);
+		setBackground(Color.WHITE);
+
+		simulation.addCollisionListener(new CollisionListener() {
+
+			@Override
+			public void collisionOccurred(GameThrow winner, GameThrow loser) {
+
+				//Called by step(), so the simulation thread already holds stateLock
+				long now = System.currentTimeMillis();
+
+				pausedUntil = now + collisionOut;
+				countdownStart = pausedUntil;
+
+				showCollisionSign(winner, loser);
+			}
+		});
+	}
+
+	/**
+	 * Method that starts the simulation and render threads
+	 * Must be called once the canvas is displayable, since the BufferStrategy needs a peer
+	 */
+	public void startThreads() {
+
+		if(running) {
+
+			return;
+		}
+
+		running = true;
+
+		synchronized(stateLock) {
+
+			countdownStart = Math.max(countdownStart, System.currentTimeMillis());
+			gameLoop.reset(System.nanoTime());
+		}
+
+		createBufferStrategy(BUFFERS);
+
+		simulationThread = new Thread(this::runSimulation, "ActiveArena-simulation");
+		renderThread = new Thread(this::runRenderer, "ActiveArena-render");
+
+		simulationThread.setDaemon(true);
+		renderThread.setDaemon(true);
+
+		simulationThread.start();
+		renderThread.start();
+	}
+
+	/**
+	 * Method that stops the simulation and render threads and waits for them to finish
+	 */
+	public void stopThreads() {
+
+		running = false;
+
+		for(Thread thread : new Thread[] { simulationThread, renderThread }) {
+
+			if(thread != null) {
+
+				thread.interrupt();
+
+				try {
+
+					thread.join();
+
+				} catch(InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		simulationThread = null;
+		renderThread = null;
+	}
+
+	/**
+	 * Method that returns the engine whose state this arena displays
+	 * @return the Simulation displayed by this arena
+	 */
+	public Simulation getSimulation() {
+
+		return simulation;
+	}
+
+	/**
+	 * Method run by the simulation thread, which runs every step the GameLoop says is due and sleeps until the next
+	 */
+	private void runSimulation() {
+
+		while(running) {
+
+			long waitNanos;
+
+			synchronized(stateLock) {
+
+				long now = System.nanoTime();
+				int due = gameLoop.advance(now);
+
+				for(int i = 0; i < due; i++) {
+
+					//The time spent paused (or after the game ended) must not be caught up with
+					if(!tick(System.currentTimeMillis())) {
+
+						gameLoop.reset(now);
+						break;
+					}
+				}
+
+				waitNanos = gameLoop.getNanosUntilNextStep(now);
+			}
+
+			try {
+
+				Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+
+			} catch(InterruptedException e) {
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Method that advances the game unless it is paused or over, must be called while holding stateLock
+	 * @param now the current time (System.currentTimeMillis)
+	 * @return true if the simulation was stepped, false if the game is paused or over
+	 */
+	private boolean tick(long now) {
+
+		if(isPaused(now)) {
+
+			return false;
+		}
+
+		//The collision signs are taken down once the pause is over
+		signsToDisplay.clear();
+
+		if(now - countdownStart >= timeOut) {
+
+			gameOver = true;
+			signsToDisplay.add(new EndSign(getWidth()/2, getHeight()/2, getFontRenderContext()));
+
+			return false;
+		}
+
+		simulation.setArenaSize(getWidth(), getHeight());
+		simulation.step();
+
+		return true;
+	}
+
+	/**
+	 * Method that checks whether the game is paused after a collision or over, must be called while holding stateLock
+	 * @param now the current time (System.currentTimeMillis)
+	 * @return true if the throws are not moving, false otherwise
+	 */
+	private boolean isPaused(long now) {
+
+		return gameOver || now < pausedUntil;
+	}
+
+	/**
+	 * Method run by the render thread, which draws a frame every frame period
+	 */
+	private void runRenderer() {
+
+		BufferStrategy strategy = getBufferStrategy();
+
+		while(running) {
+
+			long frameStart = System.nanoTime();
+
+			do {
+
+				do {
+
+					Graphics g = strategy.getDrawGraphics();
+
+					renderFrame(g);
+
+					g.dispose();
+
+				} while(strategy.contentsRestored());
+
+				strategy.show();
+
+			} while(strategy.contentsLost());
+
+			Toolkit.getDefaultToolkit().sync();
+			spriteCache.endFrame();
+
+			long remaining = FRAME_PERIOD_NANOS - (System.nanoTime() - frameStart);
+
+			if(remaining > 0) {
+
+				try {
+
+					Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+
+				} catch(InterruptedException e) {
+
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method that draws the current state of the game
+	 * Copies where every sprite goes while holding stateLock and draws them after releasing it
+	 * Each throw is drawn the fraction of a step the GameLoop has advanced past its last step, and where it is
+	 * while the game is paused
+	 * @param g the Graphics instance of the back buffer
+	 */
+	private void renderFrame(Graphics g) {
+
+		PaintEvent paintEvent = new PaintEvent();
+		paintEvent.begin();
+
+		long start = System.nanoTime();
+		GraphicsConfiguration config = getGraphicsConfiguration();
+		int count;
+
+		synchronized(stateLock) {
+
+			List<GameThrow> gameThrows = simulation.getThrows();
+			WorldStore world = simulation.getWorld();
+
+			double alpha = isPaused(System.currentTimeMillis()) ? 1.0 : gameLoop.getAlpha(System.nanoTime());
+
+			count = gameThrows.size();
+
+			ensureFrameCapacity(count);
+
+			for(int i = 0; i < count; i++) {
+
+				GameThrow gameThrow = gameThrows.get(i);
+
+				//The views hold the position after the last step, so the sprite is shifted back by the part not reached yet
+				frameSprites[i] = spriteCache.getSprite(g, gameThrow, config);
+				frameXs[i] = SpriteCache.getSpriteX(gameThrow) + world.getInterpolatedX(i, alpha) - world.getXCoords()[i];
+				frameYs[i] = SpriteCache.getSpriteY(gameThrow) + world.getInterpolatedY(i, alpha) - world.getYCoords()[i];
+			}
+
+			frameSigns.clear();
+			frameSigns.addAll(signsToDisplay);
+		}
+
+		g.setColor(getBackground());
+		g.fillRect(0, 0, getWidth(), getHeight());
+
+		for(int i = 0; i < count; i++) {
+
+			g.drawImage(frameSprites[i], frameXs[i], frameYs[i], null);
+
+			//Lets the images of evicted sprites be garbage collected
+			frameSprites[i] = null;
+		}
+
+		for(int i = 0; i < frameSigns.size(); i++) {
+
+			frameSigns.get(i).draw(g);
+		}
+
+		long end = System.nanoTime();
+
+		simulation.getMetrics().recordPaint(end - start, end);
+
+		if(paintEvent.shouldCommit()) {
+
+			paintEvent.arena = "ActiveArena";
+			paintEvent.area = (long) getWidth() * getHeight();
+			paintEvent.throwsDrawn = count;
+			paintEvent.commit();
+		}
+	}
+
+	/**
+	 * Method that grows the arrays of the frame so that they can hold the given number of throws
+	 * @param count the number of throws in the frame
+	 */
+	private void ensureFrameCapacity(int count) {
+
+		if(frameSprites.length < count) {
+
+			frameSprites = new BufferedImage[count];
+			frameXs = new int[count];
+			frameYs = new int[count];
+		}
+	}
+
+	/**
+	 * Method that adds a CollisionSign associated with the given GameThrows to the signsToDisplay LinkedList
+	 * @param winner the throw that won the collision
+	 * @param loser the throw that lost the collision
+	 */
+	private void showCollisionSign(GameThrow winner, GameThrow loser) {
+
+		String message = simulation.getJudge().getExplanation(winner, loser);
+
+		int centerX = (winner.getLeftXPos() + loser.getRightXPos())/2;
+		int centerY = (winner.getTopY() + winner.getBottomY())/2;
+
+		signsToDisplay.add(new CollisionSign(centerX, centerY, getFontRenderContext(), message));
+	}
+
+	/**
+	 * Method that returns the FontRenderContext used to measure the signs, which does not need a Graphics instance
+	 * @return the FontRenderContext of the signs
+	 */
+	private FontRenderContext getFontRenderContext() {
+
+		return new FontRenderContext(null, true, true);
+	}
+}
@@ -1,22 +1,25 @@
 package arena;
 import java.applet.Applet;
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.font.FontRenderContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.LinkedList;
 
 import javax.swing.Timer;
 
-import game_throws.Blackhole;
 import game_throws.GameThrow;
-import game_throws.Lizard;
-import game_throws.Paper;
-import game_throws.Rock;
-import game_throws.Scissors;
-import game_throws.Spock;
+import game_throws.ThrowFactory;
+import judge.Judge;
+import replay.ReplayPlayer;
+import replay.ReplayRecorder;
 
 /**
  * Class that reads the requirements passed by the user to the html to create the throws and display area
@@ -37,6 +40,9 @@ import game_throws.Spock;
  * Actual Result: The results matched expectations
  * Post-condition: No post-condition required
  * 
+ * The optional "replay" parameter names a replay log to be played instead of the throws in the html, and the optional
+ * "record" parameter names the file the game is recorded into
+ * 
  * @author Luiz do Valle
  *
  */
@@ -47,22 +53,64 @@ public class ArenaApplet extends Applet {
 	 * flickering)
 	 */
 	private BattleArena battleArea;
+	/**
+	 * The Canvas used to display the game when active rendering is requested, null otherwise
+	 */
+	private ActiveArena activeArea;
+	/**
+	 * The replay log being played, null if the game is played from the throws in the html
+	 */
+	private ReplayPlayer replayPlayer;
+	/**
+	 * The replay log the game is recorded into, null if it is not recorded
+	 */
+	private ReplayRecorder replayRecorder;
 	
 	/**
 	 * Method called once the applet starts for the first time
 	 */
 	public void init() {
 		
-		LinkedList<GameThrow> gameThrows = createThrows();
+		Simulation simulation = createSimulation();
 		
 		int delay = Integer.parseInt(getParameter("delay"));
 		int timeOut = Integer.parseInt(getParameter("timeout"));
 		int collisionOut = Integer.parseInt(getParameter("collisionOut"));
 		
-		battleArea = new BattleArena(gameThrows, delay, timeOut, collisionOut);
+		//Active rendering is optional, the BattleArena is used when the parameter is missing or false
+		if(Boolean.parseBoolean(getParameter("activeRendering"))) {
+			
+			activeArea = new ActiveArena(simulation, delay, timeOut, collisionOut);
+			activeArea.setPreferredSize(new Dimension(getWidth(), getHeight()));
+			
+			add(activeArea, BorderLayout.CENTER);
+			
+		} else {
+			
+			battleArea = new BattleArena(simulation, delay, timeOut, collisionOut);
+			
+			//The performance overlay can also be toggled at any time with F3
+			battleArea.getHud().setVisible(Boolean.parseBoolean(getParameter("hud")));
+			
+			add(battleArea, BorderLayout.CENTER);
+		}
+		
+		//Lets JConsole or VisualVM watch the ticks under arena/TickMetrics, if the applet is allowed to use JMX
+		getSimulation().getMetrics().register(getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()));
 		
-		add(battleArea, BorderLayout.CENTER);
+		String record = getParameter("record");
 		
+		if(record != null) {
+			
+			try {
+				
+				replayRecorder = new ReplayRecorder(simulation, Files.newOutputStream(Paths.get(record)));
+				
+			} catch(IOException e) {
+				
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 	
 	/**
@@ -70,7 +118,14 @@ public class ArenaApplet extends Applet {
 	 */
 	public void start() {
 		
-		battleArea.startTimers();
+		if(activeArea != null) {
+			
+			activeArea.startThreads();
+			
+		} else {
+			
+			battleArea.startTimers();
+		}
 	}
 	
 	/**
@@ -78,7 +133,14 @@ public class ArenaApplet extends Applet {
 	 */
 	public void stop() {
 		
-		battleArea.stopTimers();
+		if(activeArea != null) {
+			
+			activeArea.stopThreads();
+			
+		} else {
+			
+			battleArea.stopTimers();
+		}
 	}
 	
 	/**
@@ -86,7 +148,61 @@ public class ArenaApplet extends Applet {
 	 */
 	public void destroy() {
 		
+		getSimulation().getMetrics().unregister();
+		
+		try {
+			
+			if(replayRecorder != null) {
+				
+				replayRecorder.close();
+			}
+			
+			if(replayPlayer != null) {
+				
+				replayPlayer.close();
+			}
+			
+		} catch(IOException e) {
+			
+			//The applet is going away, nothing left to do
+		}
+	}
+	
+	/**
+	 * Helper method that returns the engine of whichever arena displays the game
+	 * @return the Simulation of the game
+	 */
+	private Simulation getSimulation() {
+		
+		return activeArea != null ? activeArea.getSimulation() : battleArea.getSimulation();
+	}
+	
+	/**
+	 * Helper method that creates the engine of the game, either from the replay log named by the "replay" parameter
+	 * or from the throws in the html
+	 * @return the Simulation of the game
+	 */
+	private Simulation createSimulation() {
+		
+		String replay = getParameter("replay");
+		
+		if(replay == null) {
+			
+			return new Simulation(createThrows(), 0, 0);
+		}
+		
+		try {
+			
+			replayPlayer = new ReplayPlayer(Files.newInputStream(Paths.get(replay)));
+			
+		} catch(IOException e) {
+			
+			throw new UncheckedIOException(e);
+		}
+		
+		Graphics2D g2D = (Graphics2D) getGraphics();
 		
+		return replayPlayer.createSimulation(new Judge(), g2D.getFontRenderContext());
 	}
 	
 	/**
@@ -114,35 +230,12 @@ public class ArenaApplet extends Applet {
 			int speedX = Integer.parseInt(speedXs[i]);
 			int speedY = Integer.parseInt(speedYs[i]);
 			
-			if(gameThrow.equals("Rock")) {
-				
-				gameThrows.add(new Rock.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).fontRenderContext(throwContext).build());
-			
-			} else if(gameThrow.equals("Paper")) {
-				
-				gameThrows.add(new Paper.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).fontRenderContext(throwContext).build());
-				
-			} else if(gameThrow.equals("Scissors")) {
-				
-				gameThrows.add(new Scissors.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).fontRenderContext(throwContext).build());
-				
-			} else if(gameThrow.equals("Lizard")) {
-				
-				gameThrows.add(new Lizard.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).fontRenderContext(throwContext).build());
-			
-			} else if(gameThrow.equals("Spock")) {
-				
-				gameThrows.add(new Spock.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).fontRenderContext(throwContext).build());
+			GameThrow created = ThrowFactory.create(gameThrow, xCoord, yCoord, speedX, speedY, throwContext);
 			
-			} else if(gameThrow.equals("Blackhole")) {
+			//Unknown names are skipped
+			if(created != null) {
 				
-				gameThrows.add(new Blackhole.Builder().xCoord(xCoord).yCoord(yCoord).
-						xSpeed(speedX).ySpeed(speedY).build());
+				gameThrows.add(created);
 			}
 		}
 		
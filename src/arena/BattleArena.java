@@ -2,27 +2,44 @@ package arena;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GridLayout;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
 import java.awt.font.FontRenderContext;
-import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
+import javax.swing.KeyStroke;
 import javax.swing.Timer;
 
 import game_throws.GameThrow;
-import judge.Judge;
-import judge.ValidPlaysLibrary;
+import instrumentation.PaintEvent;
 import signs.CollisionSign;
 import signs.EndSign;
 import signs.Sign;
+import world.WorldStore;
 
 /**
- * Class that displays the game and contains the main logic
+ * Class that displays the game
  * Used because JPanel's double-buffering prevents images on the screen from flickering
  * 
+ * The game logic itself lives in the Simulation class; this class only drives it with a Swing Timer,
+ * renders its state and shows the messages associated with the collisions it reports
+ * 
+ * The Swing Timer only wakes the arena up: how many steps to run is decided by a GameLoop, so a Timer event that
+ * fires late (or is coalesced with the next one) is caught up with instead of slowing the game down. The Timer fires
+ * up to 60 times per second even if the steps are slower, and every event repaints the throws interpolated between
+ * their positions before and after the last step, like the ActiveArena does
+ * 
+ * Pressing F3 shows or hides a PerformanceHud over the top left corner of the arena
+ * 
  * System makes sure that Throws are initialized within the applet by calling the method keepThrowsInBounds()
  * @author Luiz do Valle
  *
@@ -30,17 +47,30 @@ import signs.Sign;
 public class BattleArena extends JPanel {
 	
 	/**
-	 * All the throws that are currently in the game
+	 * The number of repaints a sprite size can go unused before it is evicted from the SpriteCache
 	 */
-	private LinkedList<GameThrow> gameThrows;
+	private static final int SPRITE_IDLE_FRAMES = 60;
 	/**
-	 * All messages that are currently on the screen 
+	 * If the areas that changed during a tick add up to more than this fraction of the arena, the whole arena is repainted
 	 */
-	private LinkedList<Sign> signsToDisplay;
+	private static final double FULL_REPAINT_RATIO = 0.5;
+	/**
+	 * The largest number of steps a single Timer event runs to catch up after falling behind
+	 */
+	private static final int MAX_CATCH_UP_STEPS = 5;
+	/**
+	 * The shortest time between two Timer events, which caps the frame rate at about 60 frames per second
+	 */
+	private static final int FRAME_PERIOD_MILLIS = 1000 / 60;
+	
 	/**
-	 * The Judge instance used to decide result of collisions
+	 * The headless engine that moves the throws and resolves their collisions
 	 */
-	private Judge judge;
+	private Simulation simulation;
+	/**
+	 * All messages that are currently on the screen 
+	 */
+	private LinkedList<Sign> signsToDisplay;
 	/**
 	 * The timer used to refresh the screen and move the throws on screen
 	 */
@@ -53,9 +83,38 @@ public class BattleArena extends JPanel {
 	 * The timer that determines how long the game is paused after a collision
 	 */
 	private Timer collisionOutTimer;
+	/**
+	 * The fixed-timestep loop that decides how many steps each Timer event runs
+	 */
+	private GameLoop gameLoop;
+	/**
+	 * The performance overlay, hidden until F3 is pressed
+	 */
+	private PerformanceHud hud;
+	/**
+	 * The pre-rasterized images the throws are drawn with
+	 */
+	private SpriteCache spriteCache;
+	/**
+	 * The areas that changed during the current tick
+	 */
+	private DirtyRegions dirtyRegions;
+	/**
+	 * The throws that won a collision during the current tick, whose new size must be repainted
+	 */
+	private ArrayList<GameThrow> grownThrows;
+	/**
+	 * How far between the last step and the next one the throws are drawn, 1 while the game is paused
+	 */
+	private double alpha;
+	/**
+	 * Whether the current frame is a repaint of the whole arena, which Swing paints later, so its paint pass is
+	 * measured as the frame
+	 */
+	private boolean framePending;
 	
 	/**
-	 * Constructor for the class that instantiates the class fields
+	 * Constructor for the class that creates a Simulation for the given throws
 	 * @param gameThrows the LinkedList of all the throws created
 	 * @param delay how long it takes for the screen to refresh
 	 * @param timeOut how long does it take for the game to end if there are not any collisions
@@ -63,22 +122,76 @@ public class BattleArena extends JPanel {
 	 */
 	public BattleArena(LinkedList<GameThrow> gameThrows, int delay, int timeOut, int collisionOut) {
 		
-		this.gameThrows = gameThrows;
+		this(new Simulation(gameThrows, 0, 0), delay, timeOut, collisionOut);
+	}
+	
+	/**
+	 * Constructor for the class that instantiates the class fields
+	 * @param simulation the engine whose state this arena displays
+	 * @param delay how long it takes for the screen to refresh
+	 * @param timeOut how long does it take for the game to end if there are not any collisions
+	 * @param collisionOut how long the game should be paused after a collision
+	 */
+	public BattleArena(Simulation simulation, int delay, int timeOut, int collisionOut) {
+		
+		this.simulation = simulation;
 		this.signsToDisplay = new LinkedList<>();
-		this.judge = new Judge();
+		this.spriteCache = new SpriteCache(SPRITE_IDLE_FRAMES);
+		this.dirtyRegions = new DirtyRegions();
+		this.grownThrows = new ArrayList<>();
+		this.gameLoop = new GameLoop(delay, MAX_CATCH_UP_STEPS);
+		this.hud = new PerformanceHud(simulation.getJudge());
+		this.alpha = 1.0;
 		
 		//Setting layout to null allows absolute positioning, needed for placing the collisions signs on different places
 		setLayout(new GridLayout());
-		timer = new Timer(delay, new ActionListener() {
+		timer = new Timer(Math.min(delay, FRAME_PERIOD_MILLIS), new ActionListener() {
 			
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				
-				moveThrows();
-				keepThrowsInBounds();
-				reactToCollissions();
+				long now = System.nanoTime();
+				int due = gameLoop.advance(now);
+				
+				simulation.setArenaSize(getWidth(), getHeight());
 				
-				repaint();
+				//Where the throws can be drawn before the steps and where they can be drawn after them
+				dirtyRegions.clear();
+				addMovingThrows();
+				
+				//A collision stops the timer, and the game must pause right after the step it happened in
+				for(int i = 0; i < due && timer.isRunning(); i++) {
+					
+					simulation.step();
+				}
+				
+				if(due > 0) {
+					
+					addMovingThrows();
+				}
+				
+				alpha = timer.isRunning() ? gameLoop.getAlpha(now) : 1.0;
+				
+				for(GameThrow winner : grownThrows) {
+					
+					dirtyRegions.addThrow(winner);
+				}
+				
+				grownThrows.clear();
+				
+				//The timer fires every frame, the population is only sampled when the frame stepped
+				if(due > 0) {
+					
+					hud.sample(simulation.getWorld(), simulation.getMetrics().getTicksPerSecond());
+				}
+				
+				if(hud.isVisible()) {
+					
+					dirtyRegions.add(hud.getArea());
+				}
+				
+				repaintDirtyRegions();
+				spriteCache.endFrame();
 			}
 		});
 		
@@ -88,12 +201,13 @@ public class BattleArena extends JPanel {
 			public void actionPerformed(ActionEvent e) {
 				
 				timer.stop();
+				alpha = 1.0;
 				timer.setRepeats(false);
 				endOfGameTimer.stop();
 				
 				showEndOfGameSign();
 				
-				repaint();
+				repaint(signsToDisplay.getLast().getArea());
 				
 			}
 		});
@@ -105,13 +219,50 @@ public class BattleArena extends JPanel {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				
+				for(Sign sign : signsToDisplay) {
+					
+					repaint(sign.getArea());
+				}
+				
 				signsToDisplay.clear();
+				gameLoop.reset(System.nanoTime());
 				timer.start();
 				endOfGameTimer.start();
 				collisionOutTimer.stop();
 				
 			}
 		});
+		
+		getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleHud");
+		getActionMap().put("toggleHud", new AbstractAction() {
+			
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				
+				hud.toggle();
+				repaint(hud.getArea());
+			}
+		});
+		
+		simulation.addCollisionListener(new CollisionListener() {
+			
+			@Override
+			public void collisionOccurred(GameThrow winner, GameThrow loser) {
+				
+				endOfGameTimer.restart();
+				endOfGameTimer.stop();
+				timer.stop();
+				collisionOutTimer.start();
+				
+				showCollisionSign(winner, loser);
+				
+				//Both throws are still where they collided, and the winner is repainted again once it has grown
+				dirtyRegions.add(signsToDisplay.getLast().getArea());
+				dirtyRegions.addThrow(winner);
+				dirtyRegions.addThrow(loser);
+				grownThrows.add(winner);
+			}
+		});
 	}
 	
 	/**
@@ -126,23 +277,80 @@ public class BattleArena extends JPanel {
 	
 	/**
 	 * Overriden method called every time the JPanel is updated/repainted
-	 * Draws the GameThrows and messages that are currently in the game
+	 * Draws the GameThrows (blitting their cached sprites) and messages that are currently in the game
+	 * Each throw is drawn alpha of the way between its positions before and after the last step, and only the throws
+	 * that overlap the area being repainted are drawn
+	 * A frame usually takes a paint pass per dirty region, so the passes are only timed on their own by the PaintEvent
+	 * and the frame is timed as a whole by repaintDirtyRegions()
 	 * @param g
 	 */
 	@Override
 	protected void paintComponent(Graphics g) {
 		
+		PaintEvent paintEvent = new PaintEvent();
+		paintEvent.begin();
+		
+		long start = System.nanoTime();
+		
 		super.paintComponent(g);
 		
-		for(GameThrow gameThrow : gameThrows) {
+		GraphicsConfiguration config = getGraphicsConfiguration();
+		Rectangle clip = g.getClipBounds();
+		List<GameThrow> gameThrows = simulation.getThrows();
+		WorldStore world = simulation.getWorld();
+		int throwsDrawn = 0;
+		
+		for(int i = 0; i < gameThrows.size(); i++) {
+			
+			GameThrow gameThrow = gameThrows.get(i);
 			
-			gameThrow.draw(g);
+			//The views hold the position after the last step, so the sprite is shifted back by the part not reached yet
+			int offsetX = world.getInterpolatedX(i, alpha) - world.getXCoords()[i];
+			int offsetY = world.getInterpolatedY(i, alpha) - world.getYCoords()[i];
+			
+			if(clip == null || overlapsClip(gameThrow, offsetX, offsetY, clip)) {
+				
+				if(config == null) {
+					
+					spriteCache.draw(g, gameThrow, config);
+					
+				} else {
+					
+					g.drawImage(spriteCache.getSprite(g, gameThrow, config), SpriteCache.getSpriteX(gameThrow) + offsetX,
+							SpriteCache.getSpriteY(gameThrow) + offsetY, null);
+				}
+				
+				throwsDrawn++;
+			}
 		}
 		
 		for(Sign sign : signsToDisplay) {
 			
 			sign.draw(g);
 		}
+		
+		//Drawn last so that it stays on top of the throws and the signs
+		if(clip == null || clip.intersects(hud.getArea())) {
+			
+			hud.draw(g);
+		}
+		
+		if(framePending) {
+			
+			framePending = false;
+			
+			long end = System.nanoTime();
+			
+			recordFrame(end - start, end);
+		}
+		
+		if(paintEvent.shouldCommit()) {
+			
+			paintEvent.arena = "BattleArena";
+			paintEvent.area = clip == null ? (long) getWidth() * getHeight() : (long) clip.width * clip.height;
+			paintEvent.throwsDrawn = throwsDrawn;
+			paintEvent.commit();
+		}
 	}
 	
 	/**
@@ -150,6 +358,7 @@ public class BattleArena extends JPanel {
 	 */
 	public void startTimers() {
 		
+		gameLoop.reset(System.nanoTime());
 		timer.start();
 		endOfGameTimer.start();
 	}
@@ -164,170 +373,124 @@ public class BattleArena extends JPanel {
 	}
 	
 	/**
-	 * Method that moves all the throws that are still in the game
+	 * Method that returns the engine whose state this arena displays
+	 * @return the Simulation displayed by this arena
 	 */
-	private void moveThrows() {
+	public Simulation getSimulation() {
 		
-		for(GameThrow gameThrow : gameThrows) {
-			
-			gameThrow.translate();
-		}
+		return simulation;
 	}
 	
 	/**
-	 * Method that keeps the throws within the screen boundaries
+	 * Method that returns the performance overlay of this arena
+	 * @return the PerformanceHud of this arena
 	 */
-	private void keepThrowsInBounds() {
+	public PerformanceHud getHud() {
 		
-		for(GameThrow gameThrow : gameThrows) {
-			
-			if(gameThrow.getRightXPos() < 0) {
-				
-				gameThrow.resetX(getWidth());
-			
-			} else if (gameThrow.getLeftXPos() > getWidth()) {
-				
-				gameThrow.resetX(0);
-			}
-			
-			if(gameThrow.getBottomY() < 0) {
-				
-				gameThrow.resetY(getHeight());
-				
-			} else if(gameThrow.getTopY() > getHeight()) {
-				
-				gameThrow.resetY(0);
-			}
-		}
+		return hud;
 	}
 	
 	/**
-	 * Method that checks whether there was a collision between two throws and performs the appropriate actions
-	 * If two blackholes collide, the one that is later in the gameThrows LinkedList is destroyed
-	 * 
-	 * NOTE: In case that multiple throws are involved in the same collision, the system analyzes the collision
-	 * between the GameThrows that are closest to each other in and closest to the beginning of the gameThrows LinkedList
-	 * 
-	 * NOTE: This method ignores collisions that result in ties to symbolize that nothing happens and keep
-	 * the game from stopping too often
+	 * Method that adds to the dirty regions the area every throw that moves can be drawn in until the next step,
+	 * which spans its sprites before and after the last step (or only the latter if it did not move by its speed)
 	 */
-	private void reactToCollissions() {
+	private void addMovingThrows() {
+		
+		List<GameThrow> gameThrows = simulation.getThrows();
+		WorldStore world = simulation.getWorld();
 		
 		for(int i = 0; i < gameThrows.size(); i++) {
 			
-			GameThrow gameThrow1 = gameThrows.get(i);
+			GameThrow gameThrow = gameThrows.get(i);
 			
-			for(int j = i + 1; j < gameThrows.size(); j++) {
+			if(gameThrow.getXSpeed() == 0 && gameThrow.getYSpeed() == 0) {
 				
-				GameThrow gameThrow2 = gameThrows.get(j);
-				
-				if(collision(gameThrow1, gameThrow2) && !isTie(gameThrow1, gameThrow2)) {
-					
-					endOfGameTimer.restart();
-					endOfGameTimer.stop();
-					timer.stop();
-					collisionOutTimer.start();
-					
-					showCollisionSign(gameThrow1, gameThrow2);
-					removeLoser(gameThrow1, gameThrow2);
-					enlargeWinner(gameThrow1, gameThrow2);
-					
-					repaint();
-				}
+				continue;
 			}
+			
+			int fromX = world.getInterpolatedX(i, 0) - world.getXCoords()[i];
+			int fromY = world.getInterpolatedY(i, 0) - world.getYCoords()[i];
+			
+			int left = SpriteCache.getSpriteX(gameThrow) + Math.min(fromX, 0);
+			int top = SpriteCache.getSpriteY(gameThrow) + Math.min(fromY, 0);
+			
+			dirtyRegions.add(left, top, SpriteCache.getSpriteWidth(gameThrow) + Math.abs(fromX),
+					SpriteCache.getSpriteHeight(gameThrow) + Math.abs(fromY));
 		}
 	}
 	
 	/**
-	 * Method that checks whether the two throws collided
-	 * @param gameThrow1 the first throw
-	 * @param gameThrow2 the secondThrow
-	 * @return true if there was a collision, false otherwise
+	 * Method that repaints only the areas that changed during the tick, or the whole arena if they cover most of it
+	 * The areas are painted immediately and one by one, since asking Swing to repaint them would merge them into
+	 * their bounding box
 	 */
-	private boolean collision(GameThrow gameThrow1, GameThrow gameThrow2) {
+	private void repaintDirtyRegions() {
 		
-		return gameThrow1.getBounds().intersects(gameThrow2.getBounds());
-	}
-	
-	/**
-	 * Method that checks if the collision of these two GameThrows results in a tie
-	 * @param gameThrow1 the first throw
-	 * @param gameThrow2 the second throw
-	 * @return true if a tie occurs, false otherwise
-	 */
-	private boolean isTie(GameThrow gameThrow1, GameThrow gameThrow2) {
-		
-		String result = judge.whoLost(gameThrow1, gameThrow2);
+		long arenaArea = (long) getWidth() * getHeight();
 		
-		return result.equals("Tie");
-		
-	}
-	
-	private void removeLoser(GameThrow gameThrow1, GameThrow gameThrow2) {
-		
-		String loser = judge.whoLost(gameThrow1, gameThrow2);
-		
-		if(loser.equals("gameThrow1")) {
+		if(dirtyRegions.getTotalArea() > arenaArea * FULL_REPAINT_RATIO) {
 			
-			gameThrows.remove(gameThrow1);
+			//Painted later by Swing, in a single pass that paintComponent measures
+			framePending = true;
+			repaint();
+			return;
+		}
 		
-		} else if (loser.equals("gameThrow2")) {
+		long start = System.nanoTime();
+		
+		for(int i = 0; i < dirtyRegions.getCount(); i++) {
 			
-			gameThrows.remove(gameThrow2);
+			paintImmediately(dirtyRegions.getX(i), dirtyRegions.getY(i), dirtyRegions.getWidth(i), dirtyRegions.getHeight(i));
 		}
+		
+		long end = System.nanoTime();
+		
+		recordFrame(end - start, end);
 	}
 	
 	/**
-	 * Method that enlarges the winner between the following two throws
-	 * @param gameThrow1 the first throw
-	 * @param gameThrow2 the second throw
+	 * Method that records a frame shown by the arena, however many paint passes it took
+	 * @param frameNanos how long painting the frame took
+	 * @param now the time (System.nanoTime) the frame ended
 	 */
-	private void enlargeWinner(GameThrow gameThrow1, GameThrow gameThrow2) {
+	private void recordFrame(long frameNanos, long now) {
 		
-		String loser = judge.whoLost(gameThrow1, gameThrow2);
+		simulation.getMetrics().recordPaint(frameNanos, now);
+		hud.recordFrame(frameNanos, now);
+	}
+	
+	/**
+	 * Method that checks whether the sprite of the given throw overlaps the area being repainted
+	 * @param gameThrow the throw
+	 * @param offsetX how far from the position of the throw its sprite is drawn horizontally
+	 * @param offsetY how far from the position of the throw its sprite is drawn vertically
+	 * @param clip the area being repainted
+	 * @return true if the throw must be drawn, false otherwise
+	 */
+	private boolean overlapsClip(GameThrow gameThrow, int offsetX, int offsetY, Rectangle clip) {
 		
-		if(loser.equals("gameThrow1")) {
-			
-			gameThrow2.increaseSize(1.25);
+		int left = SpriteCache.getSpriteX(gameThrow) + offsetX;
+		int top = SpriteCache.getSpriteY(gameThrow) + offsetY;
+		int right = left + SpriteCache.getSpriteWidth(gameThrow);
+		int bottom = top + SpriteCache.getSpriteHeight(gameThrow);
 		
-		} else if (loser.equals("gameThrow2")) {
-			
-			gameThrow1.increaseSize(1.25);
-		}
+		return left < clip.x + clip.width && right > clip.x && top < clip.y + clip.height && bottom > clip.y;
 	}
 	
 	/**
-	 * Method that adds a CollisionSign associated with the given GameThrowsto the signsToDisplay LinkedList
-	 * @param gameThrow1 the first throw
-	 * @param gameThrow2 the second throw
+	 * Method that adds a CollisionSign associated with the given GameThrows to the signsToDisplay LinkedList
+	 * @param winner the throw that won the collision
+	 * @param loser the throw that lost the collision
 	 */
-	private void showCollisionSign(GameThrow gameThrow1, GameThrow gameThrow2) {
+	private void showCollisionSign(GameThrow winner, GameThrow loser) {
 		
 		Graphics2D g2D = (Graphics2D) getGraphics();
 		FontRenderContext context = g2D.getFontRenderContext();
 		
-		int gameThrow1Index = ValidPlaysLibrary.getIndexOf(gameThrow1.getCharRepresentation());
-		int gameThrow2Index = ValidPlaysLibrary.getIndexOf(gameThrow2.getCharRepresentation());
-		
-		String loser = judge.whoLost(gameThrow1, gameThrow2);
-		String message;
-		
-		if(loser.equals("gameThrow2")) {
-			
-			message = ValidPlaysLibrary.getExplanationBasedOnPlays(gameThrow1Index, gameThrow2Index);
-			
-		} else if(loser.equals("gameThrow1")) {
-			
-			message = ValidPlaysLibrary.getExplanationBasedOnPlays(gameThrow2Index, gameThrow1Index);
-			
-		} else {
-			
-			message = "Tie";
-		}
-		
+		String message = simulation.getJudge().getExplanation(winner, loser);
 		
-		int centerX = (gameThrow1.getLeftXPos() + gameThrow2.getRightXPos())/2;
-		int centerY = (gameThrow1.getTopY() + gameThrow1.getBottomY())/2;
+		int centerX = (winner.getLeftXPos() + loser.getRightXPos())/2;
+		int centerY = (winner.getTopY() + winner.getBottomY())/2;
 		
 		Sign collisionSign = new CollisionSign(centerX, centerY, context, message);
 		
@@ -0,0 +1,21 @@
+package arena;
+
+import game_throws.GameThrow;
+
+/**
+ * Interface implemented by anything that needs to react to the collisions resolved by the Simulation
+ * (e.g. the BattleArena, which shows a CollisionSign and pauses the game)
+ * @author Luiz do Valle
+ *
+ */
+public interface CollisionListener {
+	
+	/**
+	 * Method called when a collision that does not result in a tie is resolved
+	 * Called before the loser is removed and the winner is enlarged, so both throws still hold their
+	 * positions and sizes at the moment of the collision
+	 * @param winner the throw that won the collision
+	 * @param loser the throw that lost the collision
+	 */
+	public abstract void collisionOccurred(GameThrow winner, GameThrow loser);
+}
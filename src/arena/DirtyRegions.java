@@ -0,0 +1,204 @@
+package arena;
+
+import java.awt.Rectangle;
+
+import game_throws.GameThrow;
+
+/**
+ * Class that collects the areas of the BattleArena that changed during a tick, so that only those are repainted
+ *
+ * Every area that overlaps one already collected is merged into it. Once there are too many separate areas they
+ * are all merged into their bounding box, since repainting many small areas costs more than repainting their union
+ *
+ * The areas are kept in preallocated primitive arrays, so collecting them does not allocate
+ * @author Luiz do Valle
+ *
+ */
+public class DirtyRegions {
+
+	/**
+	 * The largest number of separate areas kept before they are merged into their bounding box
+	 */
+	public static final int MAX_REGIONS = 16;
+
+	/**
+	 * The number of areas collected
+	 */
+	private int count;
+	/**
+	 * The left, top, right and bottom side of each area
+	 */
+	private int[] lefts;
+	private int[] tops;
+	private int[] rights;
+	private int[] bottoms;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public DirtyRegions() {
+
+		lefts = new int[MAX_REGIONS];
+		tops = new int[MAX_REGIONS];
+		rights = new int[MAX_REGIONS];
+		bottoms = new int[MAX_REGIONS];
+	}
+
+	/**
+	 * Method that forgets every area collected
+	 */
+	public void clear() {
+
+		count = 0;
+	}
+
+	/**
+	 * Method that adds the area covered by the sprite of the given throw at its current position and size
+	 * @param gameThrow the throw
+	 */
+	public void addThrow(GameThrow gameThrow) {
+
+		add(SpriteCache.getSpriteX(gameThrow), SpriteCache.getSpriteY(gameThrow),
+				SpriteCache.getSpriteWidth(gameThrow), SpriteCache.getSpriteHeight(gameThrow));
+	}
+
+	/**
+	 * Method that adds the given area
+	 * @param area the area
+	 */
+	public void add(Rectangle area) {
+
+		add(area.x, area.y, area.width, area.height);
+	}
+
+	/**
+	 * Method that adds the given area, merging it with the first collected area it overlaps
+	 * @param x the left side of the area
+	 * @param y the top side of the area
+	 * @param width the width of the area
+	 * @param height the height of the area
+	 */
+	public void add(int x, int y, int width, int height) {
+
+		if(width <= 0 || height <= 0) {
+
+			return;
+		}
+
+		int right = x + width;
+		int bottom = y + height;
+
+		for(int i = 0; i < count; i++) {
+
+			if(x <= rights[i] && right >= lefts[i] && y <= bottoms[i] && bottom >= tops[i]) {
+
+				lefts[i] = Math.min(lefts[i], x);
+				tops[i] = Math.min(tops[i], y);
+				rights[i] = Math.max(rights[i], right);
+				bottoms[i] = Math.max(bottoms[i], bottom);
+
+				return;
+			}
+		}
+
+		if(count == MAX_REGIONS) {
+
+			mergeAll();
+
+			lefts[0] = Math.min(lefts[0], x);
+			tops[0] = Math.min(tops[0], y);
+			rights[0] = Math.max(rights[0], right);
+			bottoms[0] = Math.max(bottoms[0], bottom);
+
+			return;
+		}
+
+		lefts[count] = x;
+		tops[count] = y;
+		rights[count] = right;
+		bottoms[count] = bottom;
+
+		count++;
+	}
+
+	/**
+	 * Method that returns the number of separate areas collected
+	 * @return the number of areas
+	 */
+	public int getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the sum of the areas collected, in pixels
+	 * @return the total area to be repainted
+	 */
+	public long getTotalArea() {
+
+		long total = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			total += (long) (rights[i] - lefts[i]) * (bottoms[i] - tops[i]);
+		}
+
+		return total;
+	}
+
+	/**
+	 * Method that returns the left side of the area at the given index
+	 * @param index the index of the area
+	 * @return the left side of the area
+	 */
+	public int getX(int index) {
+
+		return lefts[index];
+	}
+
+	/**
+	 * Method that returns the top side of the area at the given index
+	 * @param index the index of the area
+	 * @return the top side of the area
+	 */
+	public int getY(int index) {
+
+		return tops[index];
+	}
+
+	/**
+	 * Method that returns the width of the area at the given index
+	 * @param index the index of the area
+	 * @return the width of the area
+	 */
+	public int getWidth(int index) {
+
+		return rights[index] - lefts[index];
+	}
+
+	/**
+	 * Method that returns the height of the area at the given index
+	 * @param index the index of the area
+	 * @return the height of the area
+	 */
+	public int getHeight(int index) {
+
+		return bottoms[index] - tops[index];
+	}
+
+	/**
+	 * Method that merges every area collected into their bounding box
+	 */
+	private void mergeAll() {
+
+		for(int i = 1; i < count; i++) {
+
+			lefts[0] = Math.min(lefts[0], lefts[i]);
+			tops[0] = Math.min(tops[0], tops[i]);
+			rights[0] = Math.max(rights[0], rights[i]);
+			bottoms[0] = Math.max(bottoms[0], bottoms[i]);
+		}
+
+		count = Math.min(count, 1);
+	}
+}
@@ -0,0 +1,112 @@
+package arena;
+
+/**
+ * Class that keeps the Simulation advancing at a fixed rate no matter how late the thread driving it wakes up
+ *
+ * The time elapsed since the last call (measured with System.nanoTime) is accumulated as lag, and every whole
+ * step of lag is paid back with a simulation step, so the throws move at the same speed on a slow or loaded
+ * machine as on a fast one. What is left of the lag is how far the game is between the last step and the next,
+ * which the renderer uses to interpolate the positions of the throws
+ *
+ * To keep a long stall (e.g. a debugger or a sleeping laptop) from being followed by a burst of thousands of steps,
+ * a single call never runs more than maxCatchUpSteps steps and the lag beyond that is dropped
+ *
+ * NOTE: Not thread safe, callers sharing a GameLoop between threads must synchronize on their own
+ * @author Luiz do Valle
+ *
+ */
+public class GameLoop {
+
+	/**
+	 * The duration of a simulation step, in nanoseconds
+	 */
+	private long stepNanos;
+	/**
+	 * The largest number of steps a single call to advance returns
+	 */
+	private int maxCatchUpSteps;
+	/**
+	 * The time elapsed that has not been paid back with steps yet, in nanoseconds
+	 */
+	private long lag;
+	/**
+	 * The time (System.nanoTime) of the last call to advance or reset
+	 */
+	private long lastTime;
+
+	/**
+	 * Constructor for the class
+	 * @param stepMillis the duration of a simulation step, in milliseconds
+	 * @param maxCatchUpSteps the largest number of steps a single call to advance returns
+	 */
+	public GameLoop(int stepMillis, int maxCatchUpSteps) {
+
+		this.stepNanos = Math.max(1, stepMillis) * 1_000_000L;
+		this.maxCatchUpSteps = Math.max(1, maxCatchUpSteps);
+
+		reset(System.nanoTime());
+	}
+
+	/**
+	 * Method that forgets the accumulated lag, used when the game resumes after being paused so that the pause
+	 * is not caught up with
+	 * @param now the current time (System.nanoTime)
+	 */
+	public void reset(long now) {
+
+		lag = 0;
+		lastTime = now;
+	}
+
+	/**
+	 * Method that accumulates the time elapsed since the last call and returns how many steps are due
+	 * @param now the current time (System.nanoTime)
+	 * @return the number of simulation steps to run now
+	 */
+	public int advance(long now) {
+
+		lag += now - lastTime;
+		lastTime = now;
+
+		long due = lag / stepNanos;
+
+		if(due > maxCatchUpSteps) {
+
+			due = maxCatchUpSteps;
+			lag = stepNanos * maxCatchUpSteps;
+		}
+
+		lag -= due * stepNanos;
+
+		return (int) due;
+	}
+
+	/**
+	 * Method that returns how far the game is between the last step and the next one
+	 * @param now the current time (System.nanoTime)
+	 * @return the interpolation factor, between 0 (the last step) and 1 (the next step)
+	 */
+	public double getAlpha(long now) {
+
+		return Math.min(1.0, (lag + now - lastTime) / (double) stepNanos);
+	}
+
+	/**
+	 * Method that returns how long until the next step is due
+	 * @param now the current time (System.nanoTime)
+	 * @return the time until the next step, in nanoseconds
+	 */
+	public long getNanosUntilNextStep(long now) {
+
+		return Math.max(0, stepNanos - (lag + now - lastTime));
+	}
+
+	/**
+	 * Method that returns the duration of a simulation step
+	 * @return the duration of a simulation step, in nanoseconds
+	 */
+	public long getStepNanos() {
+
+		return stepNanos;
+	}
+}
@@ -0,0 +1,454 @@
+package arena;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import judge.Judge;
+import signs.Sign;
+import world.WorldStore;
+
+/**
+ * Class that represents the performance overlay drawn on top of the BattleArena: frames per second, ticks per
+ * second, the median and 99th percentile frame time, the number of throws and a sparkline of the population of
+ * each type
+ *
+ * Everything it shows is kept in ring buffers and scratch arrays allocated once, and its text is written into a
+ * char array and drawn with drawChars, so showing the overlay does not add garbage to the frames it measures
+ * @author Luiz do Valle
+ *
+ */
+public class PerformanceHud implements Sign {
+
+	/**
+	 * The number of frames the frame rate and the frame time percentiles are computed over
+	 */
+	private static final int FRAME_SAMPLES = 120;
+	/**
+	 * The number of samples of the population shown by the sparklines
+	 */
+	private static final int HISTORY_SAMPLES = 100;
+	/**
+	 * The distance between the overlay and the corner of the arena, and between its border and its content
+	 */
+	private static final int MARGIN = 8;
+	/**
+	 * The height of a line of text
+	 */
+	private static final int LINE_HEIGHT = 14;
+	/**
+	 * The number of lines of text above the sparklines
+	 */
+	private static final int TEXT_LINES = 4;
+	/**
+	 * The size of the sparklines
+	 */
+	private static final int SPARKLINE_WIDTH = 2 * HISTORY_SAMPLES;
+	private static final int SPARKLINE_HEIGHT = 40;
+	/**
+	 * The width of the overlay, enough for the longest line of text
+	 */
+	private static final int WIDTH = 250;
+	/**
+	 * The font the overlay is written in
+	 */
+	private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	/**
+	 * The translucent background of the overlay
+	 */
+	private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+	/**
+	 * The colors the types are drawn in, repeated if there are more types
+	 */
+	private static final Color[] TYPE_COLORS = { new Color(205, 133, 63), Color.WHITE, Color.CYAN,
+			new Color(100, 149, 237), Color.GREEN, Color.MAGENTA, Color.YELLOW, Color.ORANGE, Color.PINK };
+
+	/**
+	 * The area covered by the overlay
+	 */
+	private Rectangle area;
+	/**
+	 * Whether the overlay is shown
+	 */
+	private boolean visible;
+	/**
+	 * How long each of the last frames took to paint and when it ended, in nanoseconds
+	 */
+	private long[] frameNanos;
+	private long[] frameEnds;
+	/**
+	 * Where the next frame is written in the frame rings, and how many frames they hold
+	 */
+	private int frameHead;
+	private int frameCount;
+	/**
+	 * Scratch array the frame times are sorted in to find their percentiles
+	 */
+	private long[] sortedFrameNanos;
+	/**
+	 * The population of each type over the last samples, indexed by type id and then by sample
+	 */
+	private int[][] typeHistory;
+	/**
+	 * Where the next sample is written in the history rings, and how many samples they hold
+	 */
+	private int historyHead;
+	private int historyCount;
+	/**
+	 * The population of each type in the last sample
+	 */
+	private int[] typeCounts;
+	/**
+	 * The number of throws in the last sample
+	 */
+	private int population;
+	/**
+	 * The number of ticks per second in the last sample
+	 */
+	private double ticksPerSecond;
+	/**
+	 * The one letter label of each type
+	 */
+	private char[] typeLabels;
+	/**
+	 * The points of the sparkline being drawn
+	 */
+	private int[] lineXs;
+	private int[] lineYs;
+	/**
+	 * The text of the line being drawn
+	 */
+	private char[] text;
+	private int textLength;
+
+	/**
+	 * Constructor for the class
+	 * @param judge the Judge of the simulation, whose types get a sparkline each
+	 */
+	public PerformanceHud(Judge judge) {
+
+		int typesSize = judge.getTypesSize();
+
+		this.frameNanos = new long[FRAME_SAMPLES];
+		this.frameEnds = new long[FRAME_SAMPLES];
+		this.sortedFrameNanos = new long[FRAME_SAMPLES];
+		this.typeHistory = new int[typesSize][HISTORY_SAMPLES];
+		this.typeCounts = new int[typesSize];
+		this.typeLabels = new char[typesSize];
+		this.lineXs = new int[HISTORY_SAMPLES];
+		this.lineYs = new int[HISTORY_SAMPLES];
+		this.text = new char[128];
+
+		for(byte type = 0; type < typesSize; type++) {
+
+			typeLabels[type] = type == judge.getBlackholeType() ? 'H' : Character.toUpperCase(judge.getRuleSet().getPlayAt(type));
+		}
+
+		int height = TEXT_LINES * LINE_HEIGHT + SPARKLINE_HEIGHT + 2 * MARGIN + LINE_HEIGHT;
+
+		this.area = new Rectangle(MARGIN, MARGIN, Math.max(WIDTH, SPARKLINE_WIDTH + 2 * MARGIN), height);
+	}
+
+	/**
+	 * Method that shows the overlay if it is hidden and hides it if it is shown
+	 */
+	public void toggle() {
+
+		visible = !visible;
+	}
+
+	/**
+	 * Method that sets whether the overlay is shown
+	 * @param visible true to show the overlay, false to hide it
+	 */
+	public void setVisible(boolean visible) {
+
+		this.visible = visible;
+	}
+
+	/**
+	 * Method that returns whether the overlay is shown
+	 * @return true if the overlay is shown, false otherwise
+	 */
+	public boolean isVisible() {
+
+		return visible;
+	}
+
+	/**
+	 * Method that records a frame
+	 * @param paintNanos how long painting the frame took
+	 * @param now the time (System.nanoTime) the frame ended
+	 */
+	public void recordFrame(long paintNanos, long now) {
+
+		frameNanos[frameHead] = paintNanos;
+		frameEnds[frameHead] = now;
+
+		frameHead = (frameHead + 1) % FRAME_SAMPLES;
+		frameCount = Math.min(frameCount + 1, FRAME_SAMPLES);
+	}
+
+	/**
+	 * Method that samples the population of each type and the tick rate, called once per frame that stepped
+	 * @param world the state of the throws
+	 * @param ticksPerSecond the current tick rate
+	 */
+	public void sample(WorldStore world, double ticksPerSecond) {
+
+		Arrays.fill(typeCounts, 0);
+
+		byte[] types = world.getTypes();
+		int count = world.getCount();
+
+		for(int i = 0; i < count; i++) {
+
+			typeCounts[types[i]]++;
+		}
+
+		for(int type = 0; type < typeCounts.length; type++) {
+
+			typeHistory[type][historyHead] = typeCounts[type];
+		}
+
+		historyHead = (historyHead + 1) % HISTORY_SAMPLES;
+		historyCount = Math.min(historyCount + 1, HISTORY_SAMPLES);
+
+		this.population = count;
+		this.ticksPerSecond = ticksPerSecond;
+	}
+
+	@Override
+	public void draw(Graphics g) {
+
+		if(!visible) {
+
+			return;
+		}
+
+		g.setColor(BACKGROUND);
+		g.fillRect(area.x, area.y, area.width, area.height);
+
+		g.setFont(FONT);
+		g.setColor(Color.WHITE);
+
+		int left = area.x + MARGIN;
+		int baseline = area.y + MARGIN + LINE_HEIGHT - 3;
+
+		textLength = 0;
+		append("FPS ");
+		append(getFramesPerSecond(), 1);
+		append("  TPS ");
+		append(ticksPerSecond, 1);
+		g.drawChars(text, 0, textLength, left, baseline);
+
+		sortFrameTimes();
+
+		textLength = 0;
+		append("frame p50 ");
+		append(getFrameTimePercentile(0.5) / 1e6, 2);
+		append(" ms  p99 ");
+		append(getFrameTimePercentile(0.99) / 1e6, 2);
+		append(" ms");
+		g.drawChars(text, 0, textLength, left, baseline + LINE_HEIGHT);
+
+		textLength = 0;
+		append("throws ");
+		append(population, 0);
+		g.drawChars(text, 0, textLength, left, baseline + 2 * LINE_HEIGHT);
+
+		//Legend of the sparklines, each type in its color
+		int legendX = left;
+
+		for(int type = 0; type < typeCounts.length; type++) {
+
+			textLength = 0;
+			text[textLength++] = typeLabels[type];
+			text[textLength++] = ' ';
+			append(typeCounts[type], 0);
+			text[textLength++] = ' ';
+
+			g.setColor(TYPE_COLORS[type % TYPE_COLORS.length]);
+			g.drawChars(text, 0, textLength, legendX, baseline + 3 * LINE_HEIGHT);
+
+			legendX += g.getFontMetrics().charsWidth(text, 0, textLength);
+		}
+
+		drawSparklines(g, left, area.y + MARGIN + TEXT_LINES * LINE_HEIGHT + LINE_HEIGHT / 2);
+	}
+
+	/**
+	 * Returns the area covered by the overlay, which is the same instance every time and MUST NOT be modified
+	 * @return the area covered by the overlay
+	 */
+	@Override
+	public Rectangle getArea() {
+
+		return area;
+	}
+
+	/**
+	 * Method that draws the population of every type over the last samples, scaled to the largest one
+	 * @param g the Graphics instance used to draw
+	 * @param left the left side of the sparklines
+	 * @param top the top side of the sparklines
+	 */
+	private void drawSparklines(Graphics g, int left, int top) {
+
+		if(historyCount < 2) {
+
+			return;
+		}
+
+		int largest = 1;
+
+		for(int type = 0; type < typeHistory.length; type++) {
+
+			for(int sample = 0; sample < historyCount; sample++) {
+
+				largest = Math.max(largest, typeHistory[type][sample]);
+			}
+		}
+
+		//The oldest sample is the one after the head once the ring is full
+		int oldest = historyCount == HISTORY_SAMPLES ? historyHead : 0;
+		int step = SPARKLINE_WIDTH / HISTORY_SAMPLES;
+
+		for(int type = 0; type < typeHistory.length; type++) {
+
+			for(int point = 0; point < historyCount; point++) {
+
+				int value = typeHistory[type][(oldest + point) % HISTORY_SAMPLES];
+
+				lineXs[point] = left + point * step;
+				lineYs[point] = top + SPARKLINE_HEIGHT - (int) ((long) value * SPARKLINE_HEIGHT / largest);
+			}
+
+			g.setColor(TYPE_COLORS[type % TYPE_COLORS.length]);
+			g.drawPolyline(lineXs, lineYs, historyCount);
+		}
+	}
+
+	/**
+	 * Method that returns the number of frames painted per second over the frames in the ring
+	 * @return the frame rate
+	 */
+	private double getFramesPerSecond() {
+
+		if(frameCount < 2) {
+
+			return 0;
+		}
+
+		int newest = (frameHead - 1 + FRAME_SAMPLES) % FRAME_SAMPLES;
+		int oldest = frameCount == FRAME_SAMPLES ? frameHead : 0;
+
+		long span = frameEnds[newest] - frameEnds[oldest];
+
+		return span <= 0 ? 0 : (frameCount - 1) * 1e9 / span;
+	}
+
+	/**
+	 * Method that copies the frame times into the scratch array and sorts them
+	 */
+	private void sortFrameTimes() {
+
+		System.arraycopy(frameNanos, 0, sortedFrameNanos, 0, frameCount);
+		Arrays.sort(sortedFrameNanos, 0, frameCount);
+	}
+
+	/**
+	 * Method that returns the frame time below which the given fraction of the frames fall, once they are sorted
+	 * @param fraction the fraction, between 0 and 1
+	 * @return the frame time at the percentile, in nanoseconds
+	 */
+	private long getFrameTimePercentile(double fraction) {
+
+		if(frameCount == 0) {
+
+			return 0;
+		}
+
+		int index = (int) Math.ceil(fraction * frameCount) - 1;
+
+		return sortedFrameNanos[Math.max(0, Math.min(frameCount - 1, index))];
+	}
+
+	/**
+	 * Method that appends the given text to the line being drawn
+	 * @param value the text
+	 */
+	private void append(String value) {
+
+		for(int i = 0; i < value.length() && textLength < text.length; i++) {
+
+			text[textLength++] = value.charAt(i);
+		}
+	}
+
+	/**
+	 * Method that appends the given number with the given number of decimals to the line being drawn, without
+	 * creating a String
+	 * @param value the number
+	 * @param decimals the number of decimals
+	 */
+	private void append(double value, int decimals) {
+
+		if(value < 0) {
+
+			text[textLength++] = '-';
+			value = -value;
+		}
+
+		long scale = 1;
+
+		for(int i = 0; i < decimals; i++) {
+
+			scale *= 10;
+		}
+
+		long scaled = Math.round(value * scale);
+		long whole = scaled / scale;
+		long fraction = scaled % scale;
+
+		appendDigits(whole, 1);
+
+		if(decimals > 0) {
+
+			text[textLength++] = '.';
+			appendDigits(fraction, decimals);
+		}
+	}
+
+	/**
+	 * Method that appends the digits of the given number, padded with zeros to the given number of digits
+	 * @param value the number, which must not be negative
+	 * @param minDigits the smallest number of digits written
+	 */
+	private void appendDigits(long value, int minDigits) {
+
+		int digits = 1;
+
+		for(long rest = value / 10; rest > 0; rest /= 10) {
+
+			digits++;
+		}
+
+		digits = Math.max(digits, minDigits);
+
+		if(textLength + digits > text.length) {
+
+			return;
+		}
+
+		for(int i = textLength + digits - 1; i >= textLength; i--) {
+
+			text[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+
+		textLength += digits;
+	}
+}
@@ -0,0 +1,37 @@
+package arena;
+
+/**
+ * Interface implemented by anything that hands a Simulation the collisions of every tick instead of letting it
+ * detect them (e.g. the ReplayPlayer), so a recorded game plays out the same way without testing any pair
+ * @author Luiz do Valle
+ *
+ */
+public interface ReplaySource {
+	
+	/**
+	 * Method called at the start of every tick, before the throws are moved, so the source can restore what the
+	 * tick depends on besides the collisions (e.g. the size of the arena at the time)
+	 * @param simulation the simulation being stepped
+	 * @param tick the number the tick will have once it is over (getTickCount() + 1)
+	 */
+	public abstract void beginTick(Simulation simulation, long tick);
+	
+	/**
+	 * Method called repeatedly once the throws have moved, until it returns false, to get the collisions of the tick
+	 * in the order they are to be resolved
+	 * @param tick the number of the tick being stepped
+	 * @param collision array that receives the index of the winner at 0 and the index of the loser at 1, both of
+	 * the WorldStore at the start of the tick
+	 * @return true if a collision was written into the array, false if the tick has no more collisions
+	 */
+	public abstract boolean nextCollision(long tick, int[] collision);
+	
+	/**
+	 * Method called once the winner of a collision handed over has grown, so the source can restore the extents the
+	 * throw had when recorded (e.g. a throw measured with a font that grows other than by Simulation.WINNER_GROWTH)
+	 * @param simulation the simulation being stepped
+	 * @param tick the number of the tick being stepped
+	 * @param index the index of the winner in the WorldStore
+	 */
+	public abstract void throwGrown(Simulation simulation, long tick, int index);
+}
@@ -0,0 +1,782 @@
+package arena;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import game_throws.GameThrow;
+import instrumentation.CollisionEvent;
+import instrumentation.EliminationEvent;
+import instrumentation.TickEvent;
+import instrumentation.TickMetrics;
+import judge.Judge;
+import world.CollisionDetector;
+import world.PairBuffer;
+import world.WorldStore;
+
+/**
+ * Class that contains the main logic of the game, independent of how (or whether) it is displayed
+ * Moves the throws, wraps them around the edges of the arena and resolves their collisions
+ *
+ * Does not depend on any AWT component, Graphics instance or on the Event Dispatch Thread, so it can be
+ * stepped as fast as the CPU allows (e.g. in batch jobs) or driven by the BattleArena's timer
+ * 
+ * Once the arrays of the WorldStore, the CollisionDetector, the PairBuffer and the scratch arrays have grown to the
+ * size of the population, a tick does not allocate: positions, extents and overlaps are all read from primitive arrays
+ * 
+ * Every tick is timed phase by phase into the TickMetrics of the simulation, which the arenas register with JMX,
+ * and ticks, collisions and eliminations are emitted as Java Flight Recorder events while a recording enables them
+ * 
+ * By default the throws are moved and wrapped around the edges before the collisions are detected where they ended
+ * up, so a throw that moves further than its own size in a step can pass through another without touching it. In
+ * continuous mode the collisions are detected along the paths the throws took (swept AABB) before they are wrapped,
+ * and then along the paths the throws that wrapped took after re-entering the arena, which keeps fast throws and large
+ * time steps (several ticks of movement per step) from losing collisions
+ * 
+ * Instead of detecting collisions, a simulation can be handed the collisions of every tick by a ReplaySource (e.g. a
+ * ReplayPlayer), which resolves them exactly as detected ones would be while skipping the broad and narrow phases
+ * 
+ * TEST:
+ * 
+ * Test case ID: Steady State Allocation Test
+ * Test case designed by: Luiz do Valle
+ * Test Summary: Tests whether step() allocates memory once the game has warmed up
+ * Pre-Conditions: The JVM exposes com.sun.management.ThreadMXBean
+ * Test Data: benchmark.AllocationCheck with its defaults: generated scenarios of 2000 throws of every play at a
+ * density of 0.2 (so pairs reach the overlap test and collisions are resolved), stepped 30000 times to warm up, then
+ * 20 fresh scenarios stepped 20 times each and measured for 100 more
+ * Expected Result: getThreadAllocatedBytes of the stepping thread does not change during the measured steps, while
+ * collisions are resolved
+ * Actual Result: 0 bytes allocated over the 2000 measured steps, which resolved 12164 collisions
+ * Post-condition: No post-condition required
+ * @author Luiz do Valle
+ *
+ */
+public class Simulation {
+	
+	/**
+	 * The scalar by which the extents of a throw are multiplied every time it wins a collision
+	 */
+	public static final double WINNER_GROWTH = 1.25;
+	
+	/**
+	 * The state of all the throws that are currently in the game
+	 */
+	private WorldStore world;
+	/**
+	 * The Judge instance used to decide result of collisions
+	 */
+	private Judge judge;
+	/**
+	 * Everything that is notified when a collision is resolved
+	 */
+	private ArrayList<CollisionListener> collisionListeners;
+	/**
+	 * Everything that is notified of the ticks and of the collisions by the indices of the throws
+	 */
+	private ArrayList<SimulationListener> simulationListeners;
+	/**
+	 * Where the collisions of every tick come from instead of being detected, null if they are detected
+	 */
+	private ReplaySource replaySource;
+	/**
+	 * Scratch array that receives the winner and the loser of each collision handed over by the ReplaySource
+	 */
+	private int[] replayedCollision;
+	/**
+	 * The width of the arena the throws wrap around
+	 */
+	private int width;
+	/**
+	 * The height of the arena the throws wrap around
+	 */
+	private int height;
+	/**
+	 * The number of steps performed since the simulation was created
+	 */
+	private long tickCount;
+	/**
+	 * The number of ticks of movement each step covers
+	 */
+	private int timeStep;
+	/**
+	 * Whether the collisions are detected along the paths of the throws rather than where they end up
+	 */
+	private boolean continuousCollisions;
+	/**
+	 * Finds the pairs of throws that collide, only testing throws that are close enough to
+	 */
+	private CollisionDetector detector;
+	/**
+	 * The pairs of throws that overlap and do not tie, collected before any of them is resolved
+	 */
+	private PairBuffer pairs;
+	/**
+	 * Whether each throw lost a collision during the current tick, in the order of the WorldStore
+	 */
+	private boolean[] eliminated;
+	/**
+	 * Whether each throw wrapped around the edges during the current tick, in continuous mode
+	 */
+	private boolean[] wrapped;
+	/**
+	 * The latencies of the phases of the ticks and the rates of ticks and collisions
+	 */
+	private TickMetrics metrics;
+	
+	/**
+	 * Constructor for the class that instantiates the class fields
+	 * @param gameThrows the LinkedList of all the throws created
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public Simulation(LinkedList<GameThrow> gameThrows, int width, int height) {
+		
+		this(gameThrows, width, height, new Judge());
+	}
+	
+	/**
+	 * Constructor for the class that decides the collisions with the given Judge (e.g. one for a custom RuleSet)
+	 * @param gameThrows the LinkedList of all the throws created
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param judge the Judge used to decide the result of collisions
+	 */
+	public Simulation(LinkedList<GameThrow> gameThrows, int width, int height, Judge judge) {
+		
+		this(new WorldStore(gameThrows.size()), width, height, judge);
+		
+		for(GameThrow gameThrow : gameThrows) {
+			
+			world.add(gameThrow, judge.getTypeOf(gameThrow.getCharRepresentation()));
+		}
+	}
+	
+	/**
+	 * Constructor for the class that simulates throws already in the given WorldStore (e.g. a large population
+	 * streamed in by the ScenarioGenerator, without views)
+	 * @param world the state of the throws, whose type ids must be those of the given Judge
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param judge the Judge used to decide the result of collisions
+	 */
+	public Simulation(WorldStore world, int width, int height, Judge judge) {
+		
+		this.world = world;
+		this.judge = judge;
+		this.collisionListeners = new ArrayList<>();
+		this.simulationListeners = new ArrayList<>();
+		this.width = width;
+		this.height = height;
+		this.detector = new CollisionDetector();
+		this.pairs = new PairBuffer();
+		this.eliminated = new boolean[0];
+		this.wrapped = new boolean[0];
+		this.replayedCollision = new int[2];
+		this.metrics = new TickMetrics();
+		this.timeStep = 1;
+	}
+	
+	/**
+	 * Method that advances the game by one tick: moves the throws, keeps them in bounds and resolves collisions
+	 * @return the number of collisions (ties excluded) resolved during this tick
+	 */
+	public int step() {
+		
+		TickEvent tickEvent = new TickEvent();
+		tickEvent.begin();
+		
+		//The tick is only counted once it is over
+		long tick = tickCount + 1;
+		
+		if(replaySource != null) {
+			
+			replaySource.beginTick(this, tick);
+		}
+		
+		//Indexed loops so that notifying does not allocate an Iterator on every tick
+		for(int i = 0; i < simulationListeners.size(); i++) {
+			
+			simulationListeners.get(i).tickStarted(this, tick);
+		}
+		
+		long start = System.nanoTime();
+		moveThrows();
+		long moved = System.nanoTime();
+		
+		int collisions;
+		long wrapNanos;
+		long collisionNanos;
+		long end;
+		
+		//The paths are only straight lines until the throws are wrapped around the edges, so they are tested before
+		if(continuousCollisions) {
+			
+			if(replaySource == null) {
+				
+				collectPairs();
+			}
+			
+			long detected = System.nanoTime();
+			keepThrowsInBounds();
+			long wrapped = System.nanoTime();
+			
+			if(replaySource == null) {
+				
+				collectWrappedPathPairs();
+			}
+			
+			collisions = resolveCollisions();
+			end = System.nanoTime();
+			
+			collisionNanos = (detected - moved) + (end - wrapped);
+			wrapNanos = wrapped - detected;
+			
+		} else {
+			
+			keepThrowsInBounds();
+			long wrapped = System.nanoTime();
+			collisions = reactToCollissions();
+			end = System.nanoTime();
+			
+			wrapNanos = wrapped - moved;
+			collisionNanos = end - wrapped;
+		}
+		
+		tickCount++;
+		metrics.recordTick(moved - start, wrapNanos, collisionNanos, collisions, world.getCount(), end);
+		
+		if(tickEvent.shouldCommit()) {
+			
+			tickEvent.tick = tickCount;
+			tickEvent.population = world.getCount();
+			tickEvent.collisions = collisions;
+			tickEvent.commit();
+		}
+		
+		for(int i = 0; i < simulationListeners.size(); i++) {
+			
+			simulationListeners.get(i).tickEnded(this, tick, collisions);
+		}
+		
+		return collisions;
+	}
+	
+	/**
+	 * Method that advances the game by the given number of ticks
+	 * @param ticks the number of ticks to advance
+	 * @return the number of collisions (ties excluded) resolved during all of the ticks
+	 */
+	public int step(int ticks) {
+		
+		int collisions = 0;
+		
+		for(int tick = 0; tick < ticks; tick++) {
+			
+			collisions += step();
+		}
+		
+		return collisions;
+	}
+	
+	/**
+	 * Method that registers a listener to be notified of every collision resolved by this simulation
+	 * @param listener the listener to be notified
+	 */
+	public void addCollisionListener(CollisionListener listener) {
+		
+		collisionListeners.add(listener);
+	}
+	
+	/**
+	 * Method that removes a previously registered collision listener
+	 * @param listener the listener to be removed
+	 */
+	public void removeCollisionListener(CollisionListener listener) {
+		
+		collisionListeners.remove(listener);
+	}
+	
+	/**
+	 * Method that registers a listener to be notified of every tick and of every collision by the indices of the
+	 * throws, which unlike a CollisionListener also covers throws without a view
+	 * @param listener the listener to be notified
+	 */
+	public void addSimulationListener(SimulationListener listener) {
+		
+		simulationListeners.add(listener);
+	}
+	
+	/**
+	 * Method that removes a previously registered simulation listener
+	 * @param listener the listener to be removed
+	 */
+	public void removeSimulationListener(SimulationListener listener) {
+		
+		simulationListeners.remove(listener);
+	}
+	
+	/**
+	 * Method that sets where the collisions of every tick come from instead of being detected
+	 * @param replaySource the source of the collisions, or null to detect them again
+	 */
+	public void setReplaySource(ReplaySource replaySource) {
+		
+		this.replaySource = replaySource;
+	}
+	
+	/**
+	 * Method that returns where the collisions of every tick come from
+	 * @return the source of the collisions, or null if they are detected
+	 */
+	public ReplaySource getReplaySource() {
+		
+		return replaySource;
+	}
+	
+	/**
+	 * Method that sets the dimensions of the arena the throws wrap around
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public void setArenaSize(int width, int height) {
+		
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * Method that sets how many ticks of movement each step covers, so a game can be played in fewer (larger) steps
+	 * The throws end a step where as many single ticks would have left them, wrapping included (see
+	 * WorldStore.wrapAll), but collisions are only resolved once per step, so larger steps should be combined with
+	 * continuous collisions, or fast throws will pass through each other
+	 * @param timeStep the number of ticks of movement per step, at least 1
+	 */
+	public void setTimeStep(int timeStep) {
+		
+		if(timeStep < 1) {
+			
+			throw new IllegalArgumentException("The time step must be at least 1");
+		}
+		
+		this.timeStep = timeStep;
+	}
+	
+	/**
+	 * Method that returns how many ticks of movement each step covers
+	 * @return the number of ticks of movement per step
+	 */
+	public int getTimeStep() {
+		
+		return timeStep;
+	}
+	
+	/**
+	 * Method that sets whether the collisions are detected along the paths the throws took during the step (swept
+	 * AABB), which finds every collision no matter how fast the throws move, or only where the throws ended up
+	 * @param continuousCollisions true for continuous collisions, false for discrete ones (the default)
+	 */
+	public void setContinuousCollisions(boolean continuousCollisions) {
+		
+		this.continuousCollisions = continuousCollisions;
+	}
+	
+	/**
+	 * Method that checks whether the collisions are detected along the paths the throws took during the step
+	 * @return true for continuous collisions, false for discrete ones
+	 */
+	public boolean isContinuousCollisions() {
+		
+		return continuousCollisions;
+	}
+	
+	/**
+	 * Method that sets what finds the colliding pairs of every tick (e.g. a ParallelCollisionDetector, to scan large
+	 * populations on several cores). The pairs are resolved in the same order whatever detector found them
+	 * @param detector the detector of the colliding pairs
+	 */
+	public void setCollisionDetector(CollisionDetector detector) {
+		
+		if(detector == null) {
+			
+			throw new IllegalArgumentException("The collision detector cannot be null");
+		}
+		
+		this.detector = detector;
+	}
+	
+	/**
+	 * Method that returns what finds the colliding pairs of every tick
+	 * @return the detector of the colliding pairs
+	 */
+	public CollisionDetector getCollisionDetector() {
+		
+		return detector;
+	}
+	
+	/**
+	 * Method that adds every pair of throws that collide in the current state to the given buffer, without resolving
+	 * them or moving the throws, so the state stays the same (e.g. to measure the collision detection alone)
+	 * @param collisions the buffer the colliding pairs are added to, in the order they are found
+	 */
+	public void detectCollisions(PairBuffer collisions) {
+		
+		detector.build(world, width, height, continuousCollisions);
+		detector.collectPairs(world, judge, collisions);
+	}
+	
+	/**
+	 * Method that returns the width of the arena
+	 * @return the width of the arena
+	 */
+	public int getWidth() {
+		
+		return width;
+	}
+	
+	/**
+	 * Method that returns the height of the arena
+	 * @return the height of the arena
+	 */
+	public int getHeight() {
+		
+		return height;
+	}
+	
+	/**
+	 * Method that returns the throws that are still in the game, with their positions brought up to date
+	 * Throws added to the WorldStore without a view are null
+	 * @return read-only view of the throws that are still in the game
+	 */
+	public List<GameThrow> getThrows() {
+		
+		world.syncViews();
+		
+		return Collections.unmodifiableList(Arrays.asList(world.getViews()).subList(0, world.getCount()));
+	}
+	
+	/**
+	 * Method that returns the structure of arrays holding the state of the throws
+	 * @return the WorldStore of this simulation
+	 */
+	public WorldStore getWorld() {
+		
+		return world;
+	}
+	
+	/**
+	 * Method that returns the Judge used to decide the result of collisions
+	 * @return the Judge of this simulation
+	 */
+	public Judge getJudge() {
+		
+		return judge;
+	}
+	
+	/**
+	 * Method that returns the metrics every tick of this simulation is recorded into
+	 * @return the TickMetrics of this simulation
+	 */
+	public TickMetrics getMetrics() {
+		
+		return metrics;
+	}
+	
+	/**
+	 * Method that returns the number of steps performed so far
+	 * @return the number of steps performed so far
+	 */
+	public long getTickCount() {
+		
+		return tickCount;
+	}
+	
+	/**
+	 * Method that moves all the throws that are still in the game
+	 */
+	private void moveThrows() {
+		
+		world.translateAll(timeStep);
+	}
+	
+	/**
+	 * Method that keeps the throws within the arena boundaries
+	 */
+	private void keepThrowsInBounds() {
+		
+		world.wrapAll(width, height);
+	}
+	
+	/**
+	 * Method that checks whether there was a collision between two throws and performs the appropriate actions
+	 * If two blackholes collide, the one that is later in the WorldStore is destroyed
+	 * 
+	 * Collisions are handled in two phases so that the outcome of a tick does not depend on the order the pairs are
+	 * found in: every pair that overlaps at the start of the resolution is first collected into the PairBuffer, and
+	 * the pairs are then sorted and resolved in a single pass, skipping those with a throw that already lost during
+	 * the tick. A winner that grows can therefore only catch new throws on the next tick
+	 * 
+	 * Only throws that are close enough to collide are tested by the CollisionDetector, so the cost grows roughly
+	 * linearly with the number of throws instead of quadratically
+	 * 
+	 * Throws that lose are only marked as eliminated while the pairs are being resolved, and are removed from
+	 * the WorldStore in bulk once all of them have been, so removing a throw never shifts the ones still to be resolved
+	 * 
+	 * NOTE: This method ignores collisions that result in ties to symbolize that nothing happens and keep
+	 * the game from stopping too often
+	 * @return the number of collisions resolved
+	 */
+	private int reactToCollissions() {
+		
+		if(replaySource == null) {
+			
+			collectPairs();
+		}
+		
+		return resolveCollisions();
+	}
+	
+	/**
+	 * Method that resolves the pairs collected into the PairBuffer (or the collisions the ReplaySource hands over) and
+	 * removes the losers from the WorldStore
+	 * @return the number of collisions resolved
+	 */
+	private int resolveCollisions() {
+		
+		int count = world.getCount();
+		
+		if(eliminated.length < count) {
+			
+			eliminated = new boolean[count];
+		}
+		
+		Arrays.fill(eliminated, 0, count, false);
+		
+		int collisions = replaySource != null ? replayCollisions(count) : resolvePairs(count);
+		
+		world.compact(eliminated);
+		
+		return collisions;
+	}
+	
+	/**
+	 * Method that fills the PairBuffer with every pair of throws that overlap and do not tie, lower index first
+	 */
+	private void collectPairs() {
+		
+		pairs.clear();
+		
+		detectCollisions(pairs);
+	}
+	
+	/**
+	 * Method that adds to the PairBuffer the pairs that collide along the paths the throws that wrapped around the
+	 * edges took after re-entering the arena, which the paths tested before wrapping them did not cover, in
+	 * continuous mode. Only pairs with a throw that wrapped are tested, and a pair found along both paths is only
+	 * resolved once, since one of its throws lost the first time
+	 */
+	private void collectWrappedPathPairs() {
+		
+		int count = world.getCount();
+		
+		if(wrapped.length < count) {
+			
+			wrapped = new boolean[count];
+		}
+		
+		if(world.continueWrappedPaths(wrapped) == 0) {
+			
+			return;
+		}
+		
+		detector.build(world, width, height, true, wrapped);
+		detector.collectPairs(world, judge, pairs);
+	}
+	
+	/**
+	 * Method that resolves the pairs of the PairBuffer in the order of their indices, marking the losers as eliminated
+	 * @param count the number of throws at the start of the tick
+	 * @return the number of collisions resolved
+	 */
+	private int resolvePairs(int count) {
+		
+		pairs.sort();
+		
+		byte[] types = world.getTypes();
+		
+		int collisions = 0;
+		
+		for(int position = 0; position < pairs.size(); position++) {
+			
+			int i = pairs.getFirst(position);
+			int j = pairs.getSecond(position);
+			
+			if(eliminated[i] || eliminated[j]) {
+				
+				continue;
+			}
+			
+			byte verdict = judge.getVerdict(types[i], types[j]);
+			
+			int winner = verdict == Judge.SECOND_LOSES ? i : j;
+			int loser = verdict == Judge.SECOND_LOSES ? j : i;
+			
+			resolveCollision(winner, loser, count - collisions - 1);
+			
+			collisions++;
+		}
+		
+		return collisions;
+	}
+	
+	/**
+	 * Method that resolves the collisions the ReplaySource hands over for the current tick, in the order they were
+	 * recorded, without testing any pair
+	 * @param count the number of throws at the start of the tick
+	 * @return the number of collisions resolved
+	 */
+	private int replayCollisions(int count) {
+		
+		long tick = tickCount + 1;
+		
+		int collisions = 0;
+		
+		while(replaySource.nextCollision(tick, replayedCollision)) {
+			
+			int winner = replayedCollision[0];
+			int loser = replayedCollision[1];
+			
+			if(winner < 0 || winner >= count || loser < 0 || loser >= count || eliminated[winner] || eliminated[loser]) {
+				
+				throw new IllegalStateException("Tick " + tick + " replays a collision between throws that are not in the game");
+			}
+			
+			resolveCollision(winner, loser, count - collisions - 1);
+			
+			collisions++;
+		}
+		
+		return collisions;
+	}
+	
+	/**
+	 * Method that resolves a collision: notifies the listeners, marks the loser as eliminated and enlarges the winner
+	 * @param winner the index of the throw that won the collision
+	 * @param loser the index of the throw that lost the collision
+	 * @param population the number of throws left once the loser is removed
+	 */
+	private void resolveCollision(int winner, int loser, int population) {
+		
+		notifyCollision(winner, loser);
+		recordCollision(winner, loser, population);
+		
+		for(int i = 0; i < simulationListeners.size(); i++) {
+			
+			simulationListeners.get(i).collisionResolved(this, tickCount + 1, winner, loser);
+		}
+		
+		eliminated[loser] = true;
+		enlargeWinner(winner);
+		
+		for(int i = 0; i < simulationListeners.size(); i++) {
+			
+			simulationListeners.get(i).throwGrown(this, tickCount + 1, winner);
+		}
+	}
+	
+	/**
+	 * Method that tells every registered listener which throw won the collision
+	 * @param winner the index of the throw that won the collision
+	 * @param loser the index of the throw that lost the collision
+	 */
+	private void notifyCollision(int winner, int loser) {
+		
+		//Throws without a view cannot be handed to the listeners
+		if(world.getView(winner) == null || world.getView(loser) == null) {
+			
+			return;
+		}
+		
+		//Listeners expect the throws to be where the collision happened
+		world.syncView(winner);
+		world.syncView(loser);
+		
+		//Indexed loop so that notifying does not allocate an Iterator on every collision
+		for(int i = 0; i < collisionListeners.size(); i++) {
+			
+			collisionListeners.get(i).collisionOccurred(world.getView(winner), world.getView(loser));
+		}
+	}
+	
+	/**
+	 * Method that emits the Java Flight Recorder events of a collision, if a recording enables them
+	 * @param winner the index of the throw that won the collision
+	 * @param loser the index of the throw that lost the collision
+	 * @param population the number of throws left once the loser is removed
+	 */
+	private void recordCollision(int winner, int loser, int population) {
+		
+		byte[] types = world.getTypes();
+		
+		//The tick is only counted once it is over
+		long tick = tickCount + 1;
+		
+		CollisionEvent collisionEvent = new CollisionEvent();
+		
+		if(collisionEvent.shouldCommit()) {
+			
+			collisionEvent.tick = tick;
+			collisionEvent.winner = judge.getPlayOf(types[winner]);
+			collisionEvent.loser = judge.getPlayOf(types[loser]);
+			collisionEvent.x = world.getXCoords()[winner];
+			collisionEvent.y = world.getYCoords()[winner];
+			collisionEvent.commit();
+		}
+		
+		EliminationEvent eliminationEvent = new EliminationEvent();
+		
+		if(eliminationEvent.shouldCommit()) {
+			
+			eliminationEvent.tick = tick;
+			eliminationEvent.play = judge.getPlayOf(types[loser]);
+			eliminationEvent.x = world.getXCoords()[loser];
+			eliminationEvent.y = world.getYCoords()[loser];
+			eliminationEvent.population = population;
+			eliminationEvent.commit();
+		}
+	}
+	
+	/**
+	 * Method that enlarges the throw at the given index
+	 * @param winner the index of the throw that won the collision
+	 */
+	private void enlargeWinner(int winner) {
+		
+		GameThrow view = world.getView(winner);
+		
+		if(replaySource != null) {
+			
+			//The extents of a replayed throw are the recorded ones, its view only grows to be drawn
+			world.scaleExtents(winner, WINNER_GROWTH);
+			
+			if(view != null) {
+				
+				view.increaseSize(WINNER_GROWTH);
+			}
+			
+			replaySource.throwGrown(this, tickCount + 1, winner);
+			return;
+		}
+		
+		if(view == null) {
+			
+			world.scaleExtents(winner, WINNER_GROWTH);
+			return;
+		}
+		
+		view.increaseSize(WINNER_GROWTH);
+		world.refreshExtents(winner);
+	}
+}
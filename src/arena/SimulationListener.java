@@ -0,0 +1,47 @@
+package arena;
+
+/**
+ * Interface implemented by anything that needs to follow the Simulation tick by tick and by the indices of the throws
+ * in its WorldStore (e.g. the ReplayRecorder), which unlike a CollisionListener also covers throws without a view
+ * 
+ * Called on the thread stepping the simulation, in the middle of the tick, so implementations must return quickly
+ * and should not allocate
+ * @author Luiz do Valle
+ *
+ */
+public interface SimulationListener {
+	
+	/**
+	 * Method called at the start of every tick, before the throws are moved
+	 * @param simulation the simulation being stepped
+	 * @param tick the number the tick will have once it is over (getTickCount() + 1)
+	 */
+	public abstract void tickStarted(Simulation simulation, long tick);
+	
+	/**
+	 * Method called when a collision that does not result in a tie is resolved
+	 * Called before the loser is removed and the winner is enlarged, and the indices are those of the WorldStore
+	 * at the start of the tick, since throws are only removed once every collision of the tick has been resolved
+	 * @param simulation the simulation being stepped
+	 * @param tick the number of the tick being stepped
+	 * @param winner the index of the throw that won the collision
+	 * @param loser the index of the throw that lost the collision
+	 */
+	public abstract void collisionResolved(Simulation simulation, long tick, int winner, int loser);
+	
+	/**
+	 * Method called right after the winner of a collision is enlarged, when the WorldStore holds its new extents
+	 * @param simulation the simulation being stepped
+	 * @param tick the number of the tick being stepped
+	 * @param index the index of the throw that grew, in the WorldStore at the start of the tick
+	 */
+	public abstract void throwGrown(Simulation simulation, long tick, int index);
+	
+	/**
+	 * Method called at the end of every tick, once the losers have been removed
+	 * @param simulation the simulation being stepped
+	 * @param tick the number of the tick that is over
+	 * @param collisions the number of collisions resolved during the tick
+	 */
+	public abstract void tickEnded(Simulation simulation, long tick, int collisions);
+}
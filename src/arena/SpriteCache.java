@@ -0,0 +1,303 @@
+package arena;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import game_throws.GameThrow;
+
+/**
+ * Class that rasterizes every (throw type, size) combination once into an image compatible with the screen, so that
+ * painting a throw is a single image blit instead of laying out and rasterizing its glyphs on every repaint
+ *
+ * Sprites are keyed by the char representation of the throw and the size of its bounding box, so every throw of the
+ * same type and size shares the same image. Winners grow with increaseSize(1.25) and never shrink back, so the sprites
+ * of sizes that are no longer drawn are evicted after maxIdleFrames frames
+ *
+ * The sprites are kept in an open addressing table of primitive keys, so looking one up does not allocate
+ * @author Luiz do Valle
+ *
+ */
+public class SpriteCache {
+
+	/**
+	 * The number of transparent pixels around each sprite, so glyphs that overhang their bounds are not clipped
+	 */
+	private static final int PADDING = 4;
+	/**
+	 * The initial number of slots of the table
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The number of frames a sprite can go without being drawn before it is evicted
+	 */
+	private int maxIdleFrames;
+	/**
+	 * The number of frames drawn so far
+	 */
+	private long frame;
+	/**
+	 * The number of sprites in the table
+	 */
+	private int size;
+	/**
+	 * The key of each slot of the table, only meaningful if the slot holds a sprite
+	 */
+	private long[] keys;
+	/**
+	 * The sprite of each slot of the table, null for empty slots
+	 */
+	private Sprite[] sprites;
+
+	/**
+	 * Constructor for the class
+	 * @param maxIdleFrames the number of frames a sprite can go without being drawn before it is evicted
+	 */
+	public SpriteCache(int maxIdleFrames) {
+
+		this.maxIdleFrames = maxIdleFrames;
+		this.keys = new long[INITIAL_CAPACITY];
+		this.sprites = new Sprite[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Method that draws the given throw by blitting its sprite, rasterizing the sprite first if needed
+	 * NOTE: Not thread safe, every method of a SpriteCache must be called from the same thread
+	 * Falls back to GameThrow.draw when there is no GraphicsConfiguration (e.g. the component is not displayable)
+	 * @param g the Graphics instance used to draw the throw
+	 * @param gameThrow the throw to be drawn
+	 * @param config the GraphicsConfiguration the sprites are made compatible with
+	 */
+	public void draw(Graphics g, GameThrow gameThrow, GraphicsConfiguration config) {
+
+		if(config == null) {
+
+			gameThrow.draw(g);
+			return;
+		}
+
+		g.drawImage(getSprite(g, gameThrow, config), getSpriteX(gameThrow), getSpriteY(gameThrow), null);
+	}
+
+	/**
+	 * Method that returns the sprite of the given throw, rasterizing it first if needed
+	 * The sprite must be drawn at (getSpriteX, getSpriteY) of the throw at the position it is drawn at
+	 * @param g the Graphics instance the sprite will be drawn on, whose rendering hints the sprite reuses
+	 * @param gameThrow the throw
+	 * @param config the GraphicsConfiguration the sprites are made compatible with
+	 * @return the image of the throw
+	 */
+	public BufferedImage getSprite(Graphics g, GameThrow gameThrow, GraphicsConfiguration config) {
+
+		long key = keyOf(gameThrow);
+		int slot = find(key);
+
+		Sprite sprite = sprites[slot];
+
+		if(sprite == null) {
+
+			sprite = rasterize(g, gameThrow, config);
+
+			keys[slot] = key;
+			sprites[slot] = sprite;
+			size++;
+
+			if(size * 2 > sprites.length) {
+
+				rehash(sprites.length * 2);
+			}
+		}
+
+		sprite.lastUsedFrame = frame;
+
+		return sprite.image;
+	}
+
+	/**
+	 * Method that must be called after every frame, which evicts the sprites that have not been drawn recently
+	 */
+	public void endFrame() {
+
+		boolean evicted = false;
+
+		for(int slot = 0; slot < sprites.length; slot++) {
+
+			Sprite sprite = sprites[slot];
+
+			if(sprite != null && frame - sprite.lastUsedFrame > maxIdleFrames) {
+
+				sprite.image.flush();
+				sprites[slot] = null;
+				size--;
+				evicted = true;
+			}
+		}
+
+		//Emptied slots can break the probe sequences of the sprites after them
+		if(evicted) {
+
+			rehash(sprites.length);
+		}
+
+		frame++;
+	}
+
+	/**
+	 * Method that returns the number of sprites currently cached
+	 * @return the number of sprites currently cached
+	 */
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Method that returns the x coordinate where the sprite of the given throw is drawn
+	 * @param gameThrow the throw
+	 * @return the left side of the sprite
+	 */
+	public static int getSpriteX(GameThrow gameThrow) {
+
+		return gameThrow.getLeftXPos() - PADDING;
+	}
+
+	/**
+	 * Method that returns the y coordinate where the sprite of the given throw is drawn
+	 * @param gameThrow the throw
+	 * @return the top side of the sprite
+	 */
+	public static int getSpriteY(GameThrow gameThrow) {
+
+		return gameThrow.getTopY() - PADDING;
+	}
+
+	/**
+	 * Method that returns the width of the sprite of the given throw
+	 * @param gameThrow the throw
+	 * @return the width of the sprite
+	 */
+	public static int getSpriteWidth(GameThrow gameThrow) {
+
+		return (int) Math.ceil(gameThrow.getWidth()) + 2 * PADDING;
+	}
+
+	/**
+	 * Method that returns the height of the sprite of the given throw
+	 * Text hangs below its baseline (the bottom of the bounding box), so the sprite is given twice the height
+	 * @param gameThrow the throw
+	 * @return the height of the sprite
+	 */
+	public static int getSpriteHeight(GameThrow gameThrow) {
+
+		return 2 * (int) Math.ceil(gameThrow.getHeight()) + 2 * PADDING;
+	}
+
+	/**
+	 * Method that draws the given throw into a new image compatible with the given configuration
+	 * @param g the Graphics instance the sprite will be drawn on, whose rendering hints the sprite reuses
+	 * @param gameThrow the throw to be rasterized
+	 * @param config the GraphicsConfiguration the image is made compatible with
+	 * @return the new sprite
+	 */
+	private Sprite rasterize(Graphics g, GameThrow gameThrow, GraphicsConfiguration config) {
+
+		int width = getSpriteWidth(gameThrow);
+		int height = getSpriteHeight(gameThrow);
+
+		int originX = getSpriteX(gameThrow);
+		int originY = getSpriteY(gameThrow);
+
+		BufferedImage image = config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+		Graphics2D imageGraphics = image.createGraphics();
+
+		if(g instanceof Graphics2D) {
+
+			imageGraphics.setRenderingHints(((Graphics2D) g).getRenderingHints());
+		}
+
+		imageGraphics.translate(-originX, -originY);
+		gameThrow.draw(imageGraphics);
+		imageGraphics.dispose();
+
+		Sprite sprite = new Sprite();
+
+		sprite.image = image;
+
+		return sprite;
+	}
+
+	/**
+	 * Method that packs the type and size of a throw into a key
+	 * @param gameThrow the throw
+	 * @return the key of the sprite of the throw
+	 */
+	private long keyOf(GameThrow gameThrow) {
+
+		long width = Math.round(gameThrow.getWidth() * 4) & 0xFFFFFF;
+		long height = Math.round(gameThrow.getHeight() * 4) & 0xFFFFFF;
+
+		return ((long) gameThrow.getCharRepresentation() << 48) | (width << 24) | height;
+	}
+
+	/**
+	 * Method that finds the slot that holds the given key, or the empty slot where it should be inserted
+	 * @param key the key
+	 * @return the slot of the key
+	 */
+	private int find(long key) {
+
+		int mask = sprites.length - 1;
+		int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+
+		while(sprites[slot] != null && keys[slot] != key) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Method that reinserts every sprite into a table with the given number of slots
+	 * @param capacity the new number of slots, which MUST be a power of two
+	 */
+	private void rehash(int capacity) {
+
+		long[] oldKeys = keys;
+		Sprite[] oldSprites = sprites;
+
+		keys = new long[capacity];
+		sprites = new Sprite[capacity];
+
+		for(int slot = 0; slot < oldSprites.length; slot++) {
+
+			if(oldSprites[slot] != null) {
+
+				int newSlot = find(oldKeys[slot]);
+
+				keys[newSlot] = oldKeys[slot];
+				sprites[newSlot] = oldSprites[slot];
+			}
+		}
+	}
+
+	/**
+	 * A throw rasterized at one size
+	 * @author Luiz do Valle
+	 *
+	 */
+	private static class Sprite {
+
+		/**
+		 * The rasterized throw
+		 */
+		private BufferedImage image;
+		/**
+		 * The last frame in which the sprite was drawn
+		 */
+		private long lastUsedFrame;
+	}
+}
@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import arena.Simulation;
+import judge.Judge;
+import scenario.ScenarioGenerator;
+
+/**
+ * Class that checks that a tick does not allocate once the game has warmed up, on scenarios whose throws keep
+ * colliding: a mix of every play, so pairs reach the overlap test (ties are skipped before it) and collisions are
+ * resolved during the measured ticks
+ *
+ * Every scenario is first stepped a few ticks without being measured, so that the WorldStore, the CollisionDetector
+ * and the scratch arrays grow to its population, and then measured while its throws are still colliding. Enough
+ * scenarios are stepped beforehand for the JIT to compile step() with C2, which is what removes the allocation of the
+ * Flight Recorder events of a tick (C1 allocates them whether a recording is running or not)
+ *
+ * Exits with status 1 if any measured tick allocated, or if no collision was resolved while measuring (in which case
+ * the check would prove nothing)
+ *
+ * Usage: java benchmark.AllocationCheck [population=2000] [density=0.2] [warmup=30000] [scenarios=20]
+ * NOTE: Needs a JVM whose ThreadMXBean is a com.sun.management.ThreadMXBean (e.g. HotSpot)
+ * @author Luiz do Valle
+ *
+ */
+public class AllocationCheck {
+
+	/**
+	 * The number of ticks each scenario is stepped for before being measured
+	 */
+	private static final int GROWTH_TICKS = 20;
+	/**
+	 * The number of ticks of each scenario that are measured
+	 */
+	private static final int MEASURED_TICKS = 100;
+	/**
+	 * The seed of the first generated scenario, the following ones using the next seeds
+	 */
+	private static final long SEED = 42;
+
+	/**
+	 * The number of throws of every scenario
+	 */
+	private int population;
+	/**
+	 * The fraction of the arena covered by the throws of every scenario
+	 */
+	private double density;
+	/**
+	 * The Judge of the scenarios
+	 */
+	private Judge judge;
+	/**
+	 * The counter of the bytes allocated by each thread
+	 */
+	private com.sun.management.ThreadMXBean threads;
+	/**
+	 * The seed of the next scenario
+	 */
+	private long nextSeed;
+
+	/**
+	 * Constructor for the class
+	 * @param population the number of throws of every scenario
+	 * @param density the fraction of the arena covered by the throws of every scenario
+	 */
+	public AllocationCheck(int population, double density) {
+
+		this.population = population;
+		this.density = density;
+		this.judge = new Judge();
+		this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		this.nextSeed = SEED;
+	}
+
+	/**
+	 * Method that runs the check with the parameters given as key=value arguments
+	 * @param args the parameters of the run
+	 */
+	public static void main(String[] args) {
+
+		int population = 2000;
+		double density = 0.2;
+		int warmup = 30000;
+		int scenarios = 20;
+
+		for(String arg : args) {
+
+			String[] pair = arg.split("=", 2);
+
+			if(pair.length != 2) {
+
+				throw new IllegalArgumentException("Arguments must be key=value: " + arg);
+			}
+
+			if(pair[0].equals("population")) {
+
+				population = Integer.parseInt(pair[1]);
+
+			} else if(pair[0].equals("density")) {
+
+				density = Double.parseDouble(pair[1]);
+
+			} else if(pair[0].equals("warmup")) {
+
+				warmup = Integer.parseInt(pair[1]);
+
+			} else if(pair[0].equals("scenarios")) {
+
+				scenarios = Integer.parseInt(pair[1]);
+
+			} else {
+
+				throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+			}
+		}
+
+		AllocationCheck check = new AllocationCheck(population, density);
+
+		check.warmUp(warmup);
+
+		long allocatedBytes = 0;
+		long collisions = 0;
+
+		for(int scenario = 0; scenario < scenarios; scenario++) {
+
+			Simulation simulation = check.createSimulation();
+
+			simulation.step(GROWTH_TICKS);
+
+			long[] measured = check.measure(simulation);
+
+			allocatedBytes += measured[0];
+			collisions += measured[1];
+		}
+
+		long ticks = (long) scenarios * MEASURED_TICKS;
+
+		System.out.println("population=" + population + " density=" + density + " ticks=" + ticks + " collisions=" + collisions
+				+ " allocated=" + allocatedBytes + " bytes");
+
+		if(allocatedBytes != 0 || collisions == 0) {
+
+			System.out.println(collisions == 0 ? "FAILED: no collision was resolved while measuring" : "FAILED: ticks allocated");
+			System.exit(1);
+		}
+
+		System.out.println("OK: no tick allocated");
+	}
+
+	/**
+	 * Method that steps fresh scenarios until the given number of ticks has run, so the JIT compiles every part of a
+	 * tick (resolving collisions included) before anything is measured
+	 * @param ticks the number of ticks to warm up with
+	 */
+	public void warmUp(int ticks) {
+
+		for(int stepped = 0; stepped < ticks; stepped += GROWTH_TICKS + MEASURED_TICKS) {
+
+			createSimulation().step(GROWTH_TICKS + MEASURED_TICKS);
+		}
+	}
+
+	/**
+	 * Method that steps the given simulation for MEASURED_TICKS ticks, counting what the calling thread allocates
+	 * @param simulation the simulation, already stepped enough for its arrays to have grown
+	 * @return the number of bytes allocated at 0 and the number of collisions resolved at 1
+	 */
+	public long[] measure(Simulation simulation) {
+
+		long thread = Thread.currentThread().getId();
+		long collisions = 0;
+
+		long before = threads.getThreadAllocatedBytes(thread);
+
+		for(int tick = 0; tick < MEASURED_TICKS; tick++) {
+
+			collisions += simulation.step();
+		}
+
+		long after = threads.getThreadAllocatedBytes(thread);
+
+		return new long[] { after - before, collisions };
+	}
+
+	/**
+	 * Helper method that generates the next scenario
+	 * @return a simulation of a mix of every play
+	 */
+	private Simulation createSimulation() {
+
+		return new ScenarioGenerator.Builder().seed(nextSeed++).population(population).density(density).judge(judge)
+				.build().createSimulation();
+	}
+}
@@ -0,0 +1,177 @@
+package benchmark;
+
+import java.util.Locale;
+
+/**
+ * Class that measures how long an operation takes, in the same way JMH does: the operation is first run for a
+ * number of warmup iterations (so that the JIT compiles it), then for a number of measured iterations, each one
+ * running the operation as many times as fits in a fixed amount of time
+ *
+ * Every operation returns a value that is folded into a volatile sink, so that the JIT cannot remove an operation
+ * whose result is never used (what JMH's Blackhole is for). Operations whose runs handle a different number of
+ * elements each time (e.g. ticks of a population that shrinks) return that number instead, see measureCounted
+ * @author Luiz do Valle
+ *
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * An operation to be measured
+	 * @author Luiz do Valle
+	 *
+	 */
+	public interface Operation {
+
+		/**
+		 * Method that runs the operation once
+		 * @return any value computed by the operation, so that it cannot be optimized away
+		 */
+		public abstract long run();
+	}
+
+	/**
+	 * The elementsPerRun of the operations that return the number of elements each run handled
+	 */
+	private static final long COUNTED = -1;
+
+	/**
+	 * The number of iterations run before measuring
+	 */
+	private int warmupIterations;
+	/**
+	 * The number of iterations measured
+	 */
+	private int measurementIterations;
+	/**
+	 * How long each iteration runs the operation for, in nanoseconds
+	 */
+	private long iterationNanos;
+	/**
+	 * Where the results of the operations end up
+	 */
+	private volatile long sink;
+
+	/**
+	 * Constructor for the class
+	 * @param warmupIterations the number of iterations run before measuring
+	 * @param measurementIterations the number of iterations measured
+	 * @param iterationMillis how long each iteration runs the operation for, in milliseconds
+	 */
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, int iterationMillis) {
+
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = Math.max(1, measurementIterations);
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+	/**
+	 * Method that measures the given operation and prints how long it takes
+	 * @param name the name of the benchmark
+	 * @param params the parameters of the benchmark (e.g. the population), only used in the printed line
+	 * @param setup run before every iteration without being measured (e.g. to create a fresh Simulation), may be null
+	 * @param operation the operation to be measured
+	 * @param elementsPerRun the number of elements (e.g. throws or pairs) one run of the operation handles
+	 * @return the average time per element, in nanoseconds
+	 */
+	public double measure(String name, String params, Runnable setup, Operation operation, long elementsPerRun) {
+
+		return measureIterations(name, params, setup, operation, elementsPerRun);
+	}
+
+	/**
+	 * Method that measures the given operation, whose runs return how many elements they handled, and prints how long
+	 * it takes per element actually handled
+	 * @param name the name of the benchmark
+	 * @param params the parameters of the benchmark (e.g. the population), only used in the printed line
+	 * @param setup run before every iteration without being measured (e.g. to create a fresh Simulation), may be null
+	 * @param operation the operation to be measured, which returns the number of elements it handled
+	 * @return the average time per element, in nanoseconds
+	 */
+	public double measureCounted(String name, String params, Runnable setup, Operation operation) {
+
+		return measureIterations(name, params, setup, operation, COUNTED);
+	}
+
+	/**
+	 * Helper method that measures the given operation and prints how long it takes
+	 * @param name the name of the benchmark
+	 * @param params the parameters of the benchmark, only used in the printed line
+	 * @param setup run before every iteration without being measured, may be null
+	 * @param operation the operation to be measured
+	 * @param elementsPerRun the number of elements one run of the operation handles, or COUNTED
+	 * @return the average time per element, in nanoseconds
+	 */
+	private double measureIterations(String name, String params, Runnable setup, Operation operation, long elementsPerRun) {
+
+		for(int iteration = 0; iteration < warmupIterations; iteration++) {
+
+			runIteration(setup, operation, elementsPerRun);
+		}
+
+		double[] results = new double[measurementIterations];
+		double sum = 0;
+
+		for(int iteration = 0; iteration < measurementIterations; iteration++) {
+
+			results[iteration] = runIteration(setup, operation, elementsPerRun);
+			sum += results[iteration];
+		}
+
+		double mean = sum / measurementIterations;
+		double squares = 0;
+
+		for(double result : results) {
+
+			squares += (result - mean) * (result - mean);
+		}
+
+		double deviation = Math.sqrt(squares / measurementIterations);
+
+		System.out.println(String.format(Locale.ROOT, "%-32s %-28s %14.3f +- %10.3f ns/element", name, params, mean, deviation));
+
+		return mean;
+	}
+
+	/**
+	 * Method that prints the header of the table the results are printed in
+	 */
+	public void printHeader() {
+
+		System.out.println(String.format(Locale.ROOT, "%-32s %-28s %14s", "Benchmark", "Params", "Score"));
+	}
+
+	/**
+	 * Method that runs the operation for one iteration
+	 * @param setup run before the iteration without being measured, may be null
+	 * @param operation the operation to be measured
+	 * @param elementsPerRun the number of elements one run of the operation handles, or COUNTED if the runs return it
+	 * @return the average time per element during the iteration, in nanoseconds
+	 */
+	private double runIteration(Runnable setup, Operation operation, long elementsPerRun) {
+
+		if(setup != null) {
+
+			setup.run();
+		}
+
+		long result = 0;
+		long runs = 0;
+		long start = System.nanoTime();
+		long elapsed;
+
+		do {
+
+			result += operation.run();
+			runs++;
+
+			elapsed = System.nanoTime() - start;
+
+		} while(elapsed < iterationNanos);
+
+		sink += result;
+
+		long elements = elementsPerRun == COUNTED ? result : runs * Math.max(1, elementsPerRun);
+
+		return elapsed / (double) Math.max(1, elements);
+	}
+}
@@ -0,0 +1,390 @@
+package benchmark;
+
+import java.awt.font.FontRenderContext;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import arena.Simulation;
+import game_throws.GameThrow;
+import game_throws.ThrowFactory;
+import judge.Judge;
+import judge.RuleBook;
+import judge.ValidPlaysLibrary;
+import scenario.ScenarioGenerator;
+import world.MotionKernel;
+import world.MotionKernels;
+import world.PairBuffer;
+import world.ParallelCollisionDetector;
+import world.ScalarMotionKernel;
+import world.WorldStore;
+
+/**
+ * Class that benchmarks the hot path of a tick: deciding collisions, moving and wrapping the throws, detecting
+ * collisions and whole ticks, for every combination of the given populations and densities
+ *
+ * Moving and wrapping is measured with the ScalarMotionKernel and, if the vector API can be used (run with
+ * --add-modules jdk.incubator.vector), with the VectorMotionKernel, followed by the speedup per throw. Detecting
+ * collisions is measured on one thread and with the ParallelCollisionDetector on pools of each of WORKER_COUNTS
+ * workers, each followed by its speedup over the single thread (which is only meaningful with as many cores)
+ *
+ * The scenarios are generated by the ScenarioGenerator with a fixed seed, so every run measures the same throws, a mix
+ * of every play whose pairs do not all tie. The collisions are detected without being resolved, so the state does not
+ * change between runs, and the brute force detection that the Simulation used before the SpatialHashGrid (with the
+ * same tie and box tests per pair) is measured next to it, up to BRUTE_FORCE_LIMIT throws (it tests every pair, so
+ * larger populations take minutes per iteration). Whole ticks do resolve the collisions, so they are measured per throw
+ * alive at each tick rather than per throw the scenario started with
+ *
+ * Usage: java benchmark.TickBenchmarks [populations=1000,10000,100000] [densities=0.05,0.2] [warmup=3]
+ * [iterations=5] [millis=1000]
+ * @author Luiz do Valle
+ *
+ */
+public class TickBenchmarks {
+
+	/**
+	 * The largest population the brute force detection is measured with
+	 */
+	private static final int BRUTE_FORCE_LIMIT = 20000;
+	/**
+	 * The sizes of the pools the parallel detection is measured with
+	 */
+	private static final int[] WORKER_COUNTS = {1, 2, 4, 8};
+	/**
+	 * The seed of every generated scenario
+	 */
+	private static final long SEED = 42;
+
+	/**
+	 * The harness that measures the benchmarks
+	 */
+	private BenchmarkRunner runner;
+	/**
+	 * The Judge of the scenarios
+	 */
+	private Judge judge;
+	/**
+	 * The state of the scenario being measured, recreated by the setup of each benchmark
+	 */
+	private Simulation simulation;
+	/**
+	 * The pairs found by the detection benchmarks, reused from run to run
+	 */
+	private PairBuffer pairs;
+
+	/**
+	 * Constructor for the class
+	 * @param runner the harness that measures the benchmarks
+	 */
+	public TickBenchmarks(BenchmarkRunner runner) {
+
+		this.runner = runner;
+		this.judge = new Judge();
+		this.pairs = new PairBuffer();
+	}
+
+	/**
+	 * Method that runs every benchmark with the parameters given as key=value arguments
+	 * @param args the parameters of the run
+	 */
+	public static void main(String[] args) {
+
+		int[] populations = { 1000, 10000, 100000 };
+		double[] densities = { 0.05, 0.2 };
+		int warmup = 3;
+		int iterations = 5;
+		int millis = 1000;
+
+		for(String arg : args) {
+
+			String[] pair = arg.split("=", 2);
+
+			if(pair.length != 2) {
+
+				throw new IllegalArgumentException("Arguments must be key=value: " + arg);
+			}
+
+			if(pair[0].equals("populations")) {
+
+				populations = Arrays.stream(pair[1].split(",")).mapToInt(Integer::parseInt).toArray();
+
+			} else if(pair[0].equals("densities")) {
+
+				densities = Arrays.stream(pair[1].split(",")).mapToDouble(Double::parseDouble).toArray();
+
+			} else if(pair[0].equals("warmup")) {
+
+				warmup = Integer.parseInt(pair[1]);
+
+			} else if(pair[0].equals("iterations")) {
+
+				iterations = Integer.parseInt(pair[1]);
+
+			} else if(pair[0].equals("millis")) {
+
+				millis = Integer.parseInt(pair[1]);
+
+			} else {
+
+				throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+			}
+		}
+
+		TickBenchmarks benchmarks = new TickBenchmarks(new BenchmarkRunner(warmup, iterations, millis));
+
+		benchmarks.runner.printHeader();
+		benchmarks.runJudgeBenchmarks();
+
+		for(int population : populations) {
+
+			for(double density : densities) {
+
+				benchmarks.runWorldBenchmarks(population, density);
+			}
+		}
+	}
+
+	/**
+	 * Method that benchmarks deciding collisions, which does not depend on the population
+	 */
+	public void runJudgeBenchmarks() {
+
+		FontRenderContext context = new FontRenderContext(null, true, true);
+		String[] names = { "Rock", "Paper", "Scissors", "Spock", "Lizard", "Blackhole" };
+		GameThrow[] prototypes = new GameThrow[names.length];
+
+		for(int i = 0; i < names.length; i++) {
+
+			prototypes[i] = ThrowFactory.create(names[i], 0, 0, 0, 0, context);
+		}
+
+		runner.measure("Judge.whoLost", "pairs=" + names.length * names.length, null, () -> {
+
+			long result = 0;
+
+			for(GameThrow gameThrow1 : prototypes) {
+
+				for(GameThrow gameThrow2 : prototypes) {
+
+					result += judge.whoLost(gameThrow1, gameThrow2).length();
+				}
+			}
+
+			return result;
+
+		}, names.length * names.length);
+
+		int typesSize = judge.getTypesSize();
+
+		runner.measure("Judge.getVerdict", "pairs=" + typesSize * typesSize, null, () -> {
+
+			long result = 0;
+
+			for(byte type1 = 0; type1 < typesSize; type1++) {
+
+				for(byte type2 = 0; type2 < typesSize; type2++) {
+
+					result += judge.getVerdict(type1, type2);
+				}
+			}
+
+			return result;
+
+		}, typesSize * typesSize);
+
+		RuleBook ruleBook = new RuleBook();
+		int playsSize = ValidPlaysLibrary.getValidPlaysSize();
+
+		runner.measure("RuleBook.getRuleAt", "pairs=" + playsSize * playsSize, null, () -> {
+
+			long result = 0;
+
+			for(int play1 = 0; play1 < playsSize; play1++) {
+
+				for(int play2 = 0; play2 < playsSize; play2++) {
+
+					result += ruleBook.getRuleAt(play1, play2);
+				}
+			}
+
+			return result;
+
+		}, playsSize * playsSize);
+
+		char[] plays = { 'r', 'p', 's', 'k', 'l', 'h' };
+
+		runner.measure("ValidPlaysLibrary.getIndexOf", "plays=" + plays.length, null, () -> {
+
+			long result = 0;
+
+			for(char play : plays) {
+
+				result += ValidPlaysLibrary.getIndexOf(play);
+			}
+
+			return result;
+
+		}, plays.length);
+	}
+
+	/**
+	 * Method that benchmarks moving, wrapping, detecting collisions and whole ticks for the given scenario
+	 * @param population the number of throws
+	 * @param density the fraction of the arena covered by the throws
+	 */
+	public void runWorldBenchmarks(int population, double density) {
+
+		String params = "population=" + population + " density=" + density;
+
+		double scalarNanos = measureMotion(population, density, new ScalarMotionKernel());
+
+		if(MotionKernels.isVectorized()) {
+
+			double vectorNanos = measureMotion(population, density, MotionKernels.getDefault());
+
+			System.out.println(String.format(Locale.ROOT, "%-32s %-28s %14.2fx per element", "Vector speedup", params, scalarNanos / vectorNanos));
+		}
+
+		//The collisions are detected but never resolved, so every run tests the same pairs of the same mix of types
+		double sequentialNanos = runner.measure("Collision detection", params, () -> createSimulation(population, density), () -> {
+
+			return detectCollisions();
+
+		}, population);
+
+		for(int workers : WORKER_COUNTS) {
+
+			measureParallelDetection(population, density, workers, sequentialNanos);
+		}
+
+		if(population <= BRUTE_FORCE_LIMIT) {
+
+			runner.measure("Collision detection (brute force)", params, () -> createSimulation(population, density), () -> {
+
+				return countCollisionsBruteForce(simulation.getWorld());
+
+			}, population);
+		}
+
+		//Collisions remove throws all along the iteration, so each tick counts the throws it actually stepped
+		runner.measureCounted("Simulation.step (full tick)", params, () -> createSimulation(population, density), () -> {
+
+			int alive = simulation.getWorld().getCount();
+
+			simulation.step();
+
+			return alive;
+		});
+	}
+
+	/**
+	 * Method that benchmarks detecting the collisions of the given scenario on a pool of the given size, whatever the
+	 * population, and prints the speedup over detecting them on one thread
+	 * @param population the number of throws
+	 * @param density the fraction of the arena covered by the throws
+	 * @param workers the number of workers of the pool
+	 * @param sequentialNanos the average time per throw on one thread, in nanoseconds
+	 */
+	private void measureParallelDetection(int population, double density, int workers, double sequentialNanos) {
+
+		String params = "population=" + population + " density=" + density + " workers=" + workers;
+		ForkJoinPool pool = new ForkJoinPool(workers);
+
+		try {
+
+			double parallelNanos = runner.measure("Collision detection (parallel)", params, () -> {
+
+				createSimulation(population, density);
+				simulation.setCollisionDetector(new ParallelCollisionDetector(pool, 0));
+
+			}, () -> {
+
+				return detectCollisions();
+
+			}, population);
+
+			System.out.println(String.format(Locale.ROOT, "%-32s %-28s %14.2fx per element", "Parallel speedup", params, sequentialNanos / parallelNanos));
+
+		} finally {
+
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Method that benchmarks moving and wrapping the throws of the given scenario with the given kernel
+	 * @param population the number of throws
+	 * @param density the fraction of the arena covered by the throws
+	 * @param motionKernel the kernel that moves and wraps the throws
+	 * @return the average time per throw, in nanoseconds
+	 */
+	private double measureMotion(int population, double density, MotionKernel motionKernel) {
+
+		String params = "population=" + population + " density=" + density;
+
+		return runner.measure("translateAll+wrapAll (" + motionKernel.getName() + ")", params, () -> {
+
+			createSimulation(population, density);
+			simulation.getWorld().setMotionKernel(motionKernel);
+
+		}, () -> {
+
+			WorldStore world = simulation.getWorld();
+
+			world.translateAll();
+			world.wrapAll(simulation.getWidth(), simulation.getHeight());
+
+			return world.getXCoords()[0];
+
+		}, population);
+	}
+
+	/**
+	 * Method that generates the scenario measured by the next iteration, every play in equal parts
+	 * @param population the number of throws
+	 * @param density the fraction of the arena covered by the throws
+	 */
+	private void createSimulation(int population, double density) {
+
+		simulation = new ScenarioGenerator.Builder().seed(SEED).population(population).density(density).judge(judge)
+				.build().createSimulation();
+	}
+
+	/**
+	 * Method that finds the colliding pairs of the scenario without resolving them
+	 * @return the number of colliding pairs
+	 */
+	private long detectCollisions() {
+
+		pairs.clear();
+		simulation.detectCollisions(pairs);
+
+		return pairs.size();
+	}
+
+	/**
+	 * Method that counts the colliding pairs by testing every pair, like the Simulation did before it had a broad phase
+	 * Each pair gets the same work as in the CollisionDetector: pairs that tie are skipped before their boxes are tested
+	 * @param world the state of the throws
+	 * @return the number of colliding pairs
+	 */
+	private long countCollisionsBruteForce(WorldStore world) {
+
+		long collisions = 0;
+		int count = world.getCount();
+		byte[] types = world.getTypes();
+
+		for(int i = 0; i < count; i++) {
+
+			for(int j = i + 1; j < count; j++) {
+
+				if(judge.getVerdict(types[i], types[j]) != Judge.TIE && world.overlaps(i, j)) {
+
+					collisions++;
+				}
+			}
+		}
+
+		return collisions;
+	}
+}
@@ -0,0 +1,74 @@
+package events;
+
+/**
+ * Information Holder class for a collision that did not result in a tie
+ * @author Luiz do Valle
+ *
+ */
+public class Collision extends GameEvent {
+
+	private char winner;
+	private char loser;
+	private int xCoord;
+	private int yCoord;
+
+	/**
+	 * Constructor for the class
+	 * @param tick the tick the collision happened in
+	 * @param winner the play of the throw that won (e.g. 'r', or 'h' for Blackhole)
+	 * @param loser the play of the throw that lost
+	 * @param xCoord the x coordinate of the bottom left corner of the winner
+	 * @param yCoord the y coordinate of the bottom left corner of the winner
+	 */
+	public Collision(long tick, char winner, char loser, int xCoord, int yCoord) {
+
+		super(tick);
+
+		this.winner = winner;
+		this.loser = loser;
+		this.xCoord = xCoord;
+		this.yCoord = yCoord;
+	}
+
+	/**
+	 * Method that returns the play of the throw that won
+	 * @return the char representation of the winner
+	 */
+	public char getWinner() {
+
+		return winner;
+	}
+
+	/**
+	 * Method that returns the play of the throw that lost
+	 * @return the char representation of the loser
+	 */
+	public char getLoser() {
+
+		return loser;
+	}
+
+	/**
+	 * Method that returns where the collision happened
+	 * @return the x coordinate of the bottom left corner of the winner
+	 */
+	public int getXCoord() {
+
+		return xCoord;
+	}
+
+	/**
+	 * Method that returns where the collision happened
+	 * @return the y coordinate of the bottom left corner of the winner
+	 */
+	public int getYCoord() {
+
+		return yCoord;
+	}
+
+	@Override
+	public String toString() {
+
+		return "Collision[tick=" + getTick() + ", " + winner + " beats " + loser + " at " + xCoord + "," + yCoord + "]";
+	}
+}
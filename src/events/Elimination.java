@@ -0,0 +1,74 @@
+package events;
+
+/**
+ * Information Holder class for a throw that was removed from the game after losing a collision
+ * @author Luiz do Valle
+ *
+ */
+public class Elimination extends GameEvent {
+
+	private char play;
+	private int xCoord;
+	private int yCoord;
+	private int population;
+
+	/**
+	 * Constructor for the class
+	 * @param tick the tick the throw was eliminated in
+	 * @param play the play of the throw (e.g. 'r', or 'h' for Blackhole)
+	 * @param xCoord the x coordinate of the bottom left corner of the throw
+	 * @param yCoord the y coordinate of the bottom left corner of the throw
+	 * @param population the number of throws left once it is removed
+	 */
+	public Elimination(long tick, char play, int xCoord, int yCoord, int population) {
+
+		super(tick);
+
+		this.play = play;
+		this.xCoord = xCoord;
+		this.yCoord = yCoord;
+		this.population = population;
+	}
+
+	/**
+	 * Method that returns the play of the throw eliminated
+	 * @return the char representation of the throw
+	 */
+	public char getPlay() {
+
+		return play;
+	}
+
+	/**
+	 * Method that returns where the throw was eliminated
+	 * @return the x coordinate of the bottom left corner of the throw
+	 */
+	public int getXCoord() {
+
+		return xCoord;
+	}
+
+	/**
+	 * Method that returns where the throw was eliminated
+	 * @return the y coordinate of the bottom left corner of the throw
+	 */
+	public int getYCoord() {
+
+		return yCoord;
+	}
+
+	/**
+	 * Method that returns the number of throws left once this one is removed
+	 * @return the population after the elimination
+	 */
+	public int getPopulation() {
+
+		return population;
+	}
+
+	@Override
+	public String toString() {
+
+		return "Elimination[tick=" + getTick() + ", " + play + " at " + xCoord + "," + yCoord + ", " + population + " left]";
+	}
+}
@@ -0,0 +1,36 @@
+package events;
+
+/**
+ * Information Holder class that every event of the GameEventPublisher's stream extends, so a subscriber can tell them
+ * apart with instanceof (e.g. to only react to the end of the game)
+ *
+ * Events are immutable, and they describe throws by their play and position rather than by reference, since the
+ * throws keep changing (or are gone) by the time a subscriber gets to them
+ * @author Luiz do Valle
+ *
+ */
+public abstract class GameEvent {
+
+	/**
+	 * The tick the event happened in
+	 */
+	private long tick;
+
+	/**
+	 * Constructor for the class
+	 * @param tick the tick the event happened in
+	 */
+	protected GameEvent(long tick) {
+
+		this.tick = tick;
+	}
+
+	/**
+	 * Method that returns the tick the event happened in
+	 * @return the number of the tick
+	 */
+	public long getTick() {
+
+		return tick;
+	}
+}
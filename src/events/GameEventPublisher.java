@@ -0,0 +1,229 @@
+package events;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+import arena.Simulation;
+import arena.SimulationListener;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that publishes what happens in a Simulation as a stream of GameEvents (Collision, Elimination, Growth and
+ * GameOver) to any number of Flow.Subscribers, each delivered in order on an Executor rather than on the thread
+ * stepping the simulation
+ *
+ * Every subscriber has a bounded buffer and receives events as it requests them (backpressure). The tick never waits
+ * for a subscriber: an event that does not fit in the buffer of a slow subscriber is dropped for that subscriber and
+ * counted in getDroppedCount(), so a subscriber that must see every event has to request ahead and keep up. While
+ * nobody is subscribed no event is even created
+ *
+ * NOTE: Must be created between ticks, on the thread stepping the simulation, and closed (which completes every
+ * subscription) once the game is no longer stepped
+ * @author Luiz do Valle
+ *
+ */
+public class GameEventPublisher implements SimulationListener, Flow.Publisher<GameEvent>, AutoCloseable {
+
+	/**
+	 * The default size of the buffer of every subscriber
+	 */
+	public static final int DEFAULT_BUFFER_CAPACITY = Flow.defaultBufferSize();
+
+	/**
+	 * The simulation whose events are published
+	 */
+	private Simulation simulation;
+	/**
+	 * The publisher that buffers the events and delivers them to the subscribers
+	 */
+	private SubmissionPublisher<GameEvent> publisher;
+	/**
+	 * The number of events dropped because a subscriber's buffer was full
+	 */
+	private LongAdder droppedCount;
+	/**
+	 * Counts the events dropped, created once so that offering an event does not allocate a lambda
+	 */
+	private BiPredicate<Flow.Subscriber<? super GameEvent>, GameEvent> onDrop;
+	/**
+	 * The number of throws of each type id left, kept up to date with the eliminations
+	 */
+	private int[] typeCounts;
+	/**
+	 * The number of throws left
+	 */
+	private int population;
+	/**
+	 * Whether the GameOver event has been published
+	 */
+	private boolean over;
+
+	/**
+	 * Constructor for the class that delivers the events on the common ForkJoinPool
+	 * @param simulation the simulation whose events are published
+	 */
+	public GameEventPublisher(Simulation simulation) {
+
+		this(simulation, ForkJoinPool.commonPool(), DEFAULT_BUFFER_CAPACITY);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param simulation the simulation whose events are published
+	 * @param executor where the events are delivered to the subscribers
+	 * @param bufferCapacity the largest number of events buffered for a subscriber, rounded up to a power of two
+	 */
+	public GameEventPublisher(Simulation simulation, Executor executor, int bufferCapacity) {
+
+		this.simulation = simulation;
+		this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+		this.droppedCount = new LongAdder();
+		this.onDrop = (subscriber, event) -> {
+
+			droppedCount.increment();
+
+			//Never retried, the tick does not wait for a subscriber
+			return false;
+		};
+		this.typeCounts = new int[simulation.getJudge().getTypesSize()];
+
+		WorldStore world = simulation.getWorld();
+		byte[] types = world.getTypes();
+
+		population = world.getCount();
+
+		for(int i = 0; i < population; i++) {
+
+			typeCounts[types[i]]++;
+		}
+
+		simulation.addSimulationListener(this);
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+
+		publisher.subscribe(subscriber);
+	}
+
+	@Override
+	public void tickStarted(Simulation simulation, long tick) {
+
+		//Nothing to publish before the throws move
+	}
+
+	@Override
+	public void collisionResolved(Simulation simulation, long tick, int winner, int loser) {
+
+		WorldStore world = simulation.getWorld();
+		byte[] types = world.getTypes();
+
+		typeCounts[types[loser]]--;
+		population--;
+
+		if(!publisher.hasSubscribers()) {
+
+			return;
+		}
+
+		Judge judge = simulation.getJudge();
+		int[] xCoords = world.getXCoords();
+		int[] yCoords = world.getYCoords();
+
+		publish(new Collision(tick, judge.getPlayOf(types[winner]), judge.getPlayOf(types[loser]), xCoords[winner], yCoords[winner]));
+		publish(new Elimination(tick, judge.getPlayOf(types[loser]), xCoords[loser], yCoords[loser], population));
+	}
+
+	@Override
+	public void throwGrown(Simulation simulation, long tick, int index) {
+
+		if(!publisher.hasSubscribers()) {
+
+			return;
+		}
+
+		WorldStore world = simulation.getWorld();
+
+		publish(new Growth(tick, simulation.getJudge().getPlayOf(world.getTypes()[index]), world.getXCoords()[index],
+				world.getYCoords()[index], world.getWidths()[index], world.getHeights()[index]));
+	}
+
+	@Override
+	public void tickEnded(Simulation simulation, long tick, int collisions) {
+
+		if(over || !simulation.getJudge().isDecided(typeCounts)) {
+
+			return;
+		}
+
+		over = true;
+
+		publish(new GameOver(tick, population, getSurvivors(simulation.getJudge())));
+	}
+
+	/**
+	 * Method that returns the number of events that were dropped because a subscriber's buffer was full, counting an
+	 * event once for every subscriber that missed it
+	 * @return the number of events dropped
+	 */
+	public long getDroppedCount() {
+
+		return droppedCount.sum();
+	}
+
+	/**
+	 * Method that checks whether the GameOver event has been published
+	 * @return true if no collision can happen anymore, false otherwise
+	 */
+	public boolean isOver() {
+
+		return over;
+	}
+
+	/**
+	 * Method that stops publishing and completes every subscription once the events already buffered are delivered
+	 */
+	@Override
+	public void close() {
+
+		simulation.removeSimulationListener(this);
+		publisher.close();
+	}
+
+	/**
+	 * Helper method that hands an event to every subscriber without waiting for any of them
+	 * @param event the event to be published
+	 */
+	private void publish(GameEvent event) {
+
+		if(!publisher.isClosed()) {
+
+			publisher.offer(event, onDrop);
+		}
+	}
+
+	/**
+	 * Helper method that lists the plays that are left
+	 * @param judge the Judge of the simulation
+	 * @return the char representations of the plays left, each once
+	 */
+	private String getSurvivors(Judge judge) {
+
+		StringBuilder survivors = new StringBuilder();
+
+		for(byte type = 0; type < typeCounts.length; type++) {
+
+			if(typeCounts[type] > 0) {
+
+				survivors.append(judge.getPlayOf(type));
+			}
+		}
+
+		return survivors.toString();
+	}
+}
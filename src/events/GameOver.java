@@ -0,0 +1,51 @@
+package events;
+
+/**
+ * Information Holder class for the end of the game, published once no collision can happen anymore because every
+ * pair of throws left ties
+ * @author Luiz do Valle
+ *
+ */
+public class GameOver extends GameEvent {
+
+	private int population;
+	private String survivors;
+
+	/**
+	 * Constructor for the class
+	 * @param tick the tick the game ended in
+	 * @param population the number of throws left
+	 * @param survivors the plays of the throws left, each once (e.g. "rh")
+	 */
+	public GameOver(long tick, int population, String survivors) {
+
+		super(tick);
+
+		this.population = population;
+		this.survivors = survivors;
+	}
+
+	/**
+	 * Method that returns the number of throws left
+	 * @return the final population
+	 */
+	public int getPopulation() {
+
+		return population;
+	}
+
+	/**
+	 * Method that returns which plays are left
+	 * @return the char representations of the plays left, each once
+	 */
+	public String getSurvivors() {
+
+		return survivors;
+	}
+
+	@Override
+	public String toString() {
+
+		return "GameOver[tick=" + getTick() + ", " + population + " left: " + survivors + "]";
+	}
+}
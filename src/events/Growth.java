@@ -0,0 +1,86 @@
+package events;
+
+/**
+ * Information Holder class for a throw that was enlarged after winning a collision
+ * @author Luiz do Valle
+ *
+ */
+public class Growth extends GameEvent {
+
+	private char play;
+	private int xCoord;
+	private int yCoord;
+	private double width;
+	private double height;
+
+	/**
+	 * Constructor for the class
+	 * @param tick the tick the throw grew in
+	 * @param play the play of the throw (e.g. 'r', or 'h' for Blackhole)
+	 * @param xCoord the x coordinate of the bottom left corner of the throw
+	 * @param yCoord the y coordinate of the bottom left corner of the throw
+	 * @param width the width of the throw's bounding box once enlarged
+	 * @param height the height of the throw's bounding box once enlarged
+	 */
+	public Growth(long tick, char play, int xCoord, int yCoord, double width, double height) {
+
+		super(tick);
+
+		this.play = play;
+		this.xCoord = xCoord;
+		this.yCoord = yCoord;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Method that returns the play of the throw that grew
+	 * @return the char representation of the throw
+	 */
+	public char getPlay() {
+
+		return play;
+	}
+
+	/**
+	 * Method that returns where the throw grew
+	 * @return the x coordinate of the bottom left corner of the throw
+	 */
+	public int getXCoord() {
+
+		return xCoord;
+	}
+
+	/**
+	 * Method that returns where the throw grew
+	 * @return the y coordinate of the bottom left corner of the throw
+	 */
+	public int getYCoord() {
+
+		return yCoord;
+	}
+
+	/**
+	 * Method that returns the new width of the throw
+	 * @return the width of the throw's bounding box once enlarged
+	 */
+	public double getWidth() {
+
+		return width;
+	}
+
+	/**
+	 * Method that returns the new height of the throw
+	 * @return the height of the throw's bounding box once enlarged
+	 */
+	public double getHeight() {
+
+		return height;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("Growth[tick=%d, %c at %d,%d is now %.1f x %.1f]", getTick(), play, xCoord, yCoord, width, height);
+	}
+}
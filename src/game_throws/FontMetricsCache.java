@@ -0,0 +1,146 @@
+package game_throws;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Information Holder class shared by all the text throws that caches their fonts and the bounds of their text
+ * Fonts are keyed by (font name, style, size) and bounds by (font, text, context), so a throw only computes
+ * its bounds when it is created and when its size changes, and never while it is being painted
+ *
+ * Thread safe, so that simulations running on different threads share the same cache
+ *
+ * NOTE: The cached Rectangle2D instances are shared between throws and MUST NOT be modified
+ * @author Luiz do Valle
+ *
+ */
+public class FontMetricsCache {
+
+	/**
+	 * The fonts already created, keyed by name, style and size
+	 */
+	private static ConcurrentHashMap<FontKey, Font> fonts = new ConcurrentHashMap<>();
+	/**
+	 * The bounds already computed, keyed by font, text and render context
+	 */
+	private static ConcurrentHashMap<BoundsKey, Rectangle2D> bounds = new ConcurrentHashMap<>();
+
+	/**
+	 * Private constructor, since the class only has static members
+	 */
+	private FontMetricsCache() {
+
+	}
+
+	/**
+	 * Method that returns the font with the given name, style and size, creating it only the first time
+	 * @param name the name of the font
+	 * @param style the style of the font (e.g. Font.BOLD)
+	 * @param size the point size of the font
+	 * @return the cached Font
+	 */
+	public static Font getFont(String name, int style, int size) {
+
+		return fonts.computeIfAbsent(new FontKey(name, style, size), key -> new Font(name, style, size));
+	}
+
+	/**
+	 * Method that returns the bounds of the given text in the given font, computing them only the first time
+	 * @param font the font the text is drawn with
+	 * @param text the text
+	 * @param context the FontRenderContext the text is measured with
+	 * @return the cached bounds of the text, which MUST NOT be modified
+	 */
+	public static Rectangle2D getStringBounds(Font font, String text, FontRenderContext context) {
+
+		return bounds.computeIfAbsent(new BoundsKey(font, text, context), key -> font.getStringBounds(text, context));
+	}
+
+	/**
+	 * Method that empties the cache
+	 */
+	public static void clear() {
+
+		fonts.clear();
+		bounds.clear();
+	}
+
+	/**
+	 * Key of the fonts map
+	 * @author Luiz do Valle
+	 *
+	 */
+	private static class FontKey {
+
+		private String name;
+		private int style;
+		private int size;
+
+		private FontKey(String name, int style, int size) {
+
+			this.name = name;
+			this.style = style;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+
+			if(!(other instanceof FontKey)) {
+
+				return false;
+			}
+
+			FontKey key = (FontKey) other;
+
+			return style == key.style && size == key.size && name.equals(key.name);
+		}
+
+		@Override
+		public int hashCode() {
+
+			return Objects.hash(name, style, size);
+		}
+	}
+
+	/**
+	 * Key of the bounds map
+	 * @author Luiz do Valle
+	 *
+	 */
+	private static class BoundsKey {
+
+		private Font font;
+		private String text;
+		private FontRenderContext context;
+
+		private BoundsKey(Font font, String text, FontRenderContext context) {
+
+			this.font = font;
+			this.text = text;
+			this.context = context;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+
+			if(!(other instanceof BoundsKey)) {
+
+				return false;
+			}
+
+			BoundsKey key = (BoundsKey) other;
+
+			return font.equals(key.font) && text.equals(key.text) && context.equals(key.context);
+		}
+
+		@Override
+		public int hashCode() {
+
+			return Objects.hash(font, text, context);
+		}
+	}
+}
@@ -140,8 +140,57 @@ public abstract class GameThrow {
 		}	
 	}
 
+	/**
+	 * Method that moves this throw straight to the given position, used to keep a throw in sync with the
+	 * WorldStore that holds the authoritative positions while a Simulation is running
+	 * @param newX the new x position of the bottom left corner of this throw's bounding box
+	 * @param newY the new y position of the bottom left corner of this throw's bounding box
+	 */
+	public void moveTo(int newX, int newY) {
+		
+		this.xCoord = newX;
+		this.yCoord = newY;
+	}
+	
+	/**
+	 * Method that returns the width of this throw's bounding box
+	 * @return the width of this throw's bounding box
+	 */
+	public double getWidth() {
+		
+		return throwRectangle.getWidth();
+	}
+	
+	/**
+	 * Method that returns the height of this throw's bounding box
+	 * @return the height of this throw's bounding box
+	 */
+	public double getHeight() {
+		
+		return throwRectangle.getHeight();
+	}
+	
+	/**
+	 * Method that returns the amount by which this throw moves horizontally every tick
+	 * @return the speed in the x direction
+	 */
+	public int getXSpeed() {
+		
+		return xSpeed;
+	}
+	
+	/**
+	 * Method that returns the amount by which this throw moves vertically every tick
+	 * @return the speed in the y direction
+	 */
+	public int getYSpeed() {
+		
+		return ySpeed;
+	}
+	
 	/**
 	 * Method that returns the bounding box of the throw at its current position
+	 * Allocates a new Rectangle2D on every call, collisions are tested on the WorldStore instead (WorldStore.overlaps)
 	 * @return the Rectangle2D representing the throw at that instant
 	 */
 	public Rectangle2D getBounds() {
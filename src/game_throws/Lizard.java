@@ -24,6 +24,10 @@ public class Lizard extends GameThrow {
 	 * The size of this throw's font
 	 */
 	private int txtSize;
+	/**
+	 * The font this throw is drawn with at its current size, shared through the FontMetricsCache
+	 */
+	private Font throwFont;
 	/**
 	 * The context used to draw this throw on the screen
 	 */
@@ -50,13 +54,13 @@ public class Lizard extends GameThrow {
 		this.yCoord = builder.yCoord;
 		this.xSpeed = builder.xSpeed;
 		this.ySpeed = builder.ySpeed;
+		
+		updateBounds();
 	}
 	
 	@Override
 	public void draw(Graphics g) {
 		
-		Font throwFont = new Font(txtFont, Font.BOLD, txtSize);
-		this.throwRectangle = throwFont.getStringBounds(throwName, fontRenderContext);
 		g.setFont(throwFont);
 		g.setColor(color);
 		g.drawString(throwName, xCoord, yCoord);
@@ -68,6 +72,17 @@ public class Lizard extends GameThrow {
 		
 		this.txtSize *= scalar;
 		
+		updateBounds();
+	}
+	
+	/**
+	 * Method that retrieves the font and bounding box of this throw for its current font size from the FontMetricsCache
+	 * Done eagerly instead of in draw() so that the collision geometry does not depend on the throw having been painted
+	 */
+	private void updateBounds() {
+		
+		this.throwFont = FontMetricsCache.getFont(txtFont, Font.BOLD, txtSize);
+		this.throwRectangle = FontMetricsCache.getStringBounds(throwFont, throwName, fontRenderContext);
 	}
 	
 	/**
@@ -81,7 +96,7 @@ public class Lizard extends GameThrow {
 		private String txtName =  "Lizard";
 		private String txtFont = "Magneto";
 		private int txtSize = 25;
-		private FontRenderContext fontRenderContext;
+		private FontRenderContext fontRenderContext = new FontRenderContext(null, true, true);
 		private Color color = new Color(50, 205, 50);
 		
 		private int xCoord = 0;
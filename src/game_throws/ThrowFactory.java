@@ -0,0 +1,64 @@
+package game_throws;
+import java.awt.font.FontRenderContext;
+
+/**
+ * Static utility class that creates a throw from the name used for it in the html (e.g. Rock), so that the applet
+ * and the headless tools build throws the same way
+ * @author Luiz do Valle
+ *
+ */
+public class ThrowFactory {
+
+	/**
+	 * Private constructor, since the class only has static members
+	 */
+	private ThrowFactory() {
+
+	}
+
+	/**
+	 * Method that creates the throw with the given name at the given position and speed
+	 * @param name the name of the throw (Rock, Paper, Scissors, Lizard, Spock or Blackhole)
+	 * @param xCoord the x coordinate of the bottom left corner of the throw
+	 * @param yCoord the y coordinate of the bottom left corner of the throw
+	 * @param xSpeed the speed of the throw in the x direction
+	 * @param ySpeed the speed of the throw in the y direction
+	 * @param context the context used to measure the text of the throw
+	 * @return the new throw, or null if there is no throw with the given name
+	 */
+	public static GameThrow create(String name, int xCoord, int yCoord, int xSpeed, int ySpeed, FontRenderContext context) {
+
+		if(name.equals("Rock")) {
+
+			return new Rock.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).fontRenderContext(context).build();
+
+		} else if(name.equals("Paper")) {
+
+			return new Paper.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).fontRenderContext(context).build();
+
+		} else if(name.equals("Scissors")) {
+
+			return new Scissors.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).fontRenderContext(context).build();
+
+		} else if(name.equals("Lizard")) {
+
+			return new Lizard.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).fontRenderContext(context).build();
+
+		} else if(name.equals("Spock")) {
+
+			return new Spock.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).fontRenderContext(context).build();
+
+		} else if(name.equals("Blackhole")) {
+
+			return new Blackhole.Builder().xCoord(xCoord).yCoord(yCoord).
+					xSpeed(xSpeed).ySpeed(ySpeed).build();
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,37 @@
+package instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event committed every time a collision that does not result in a tie is resolved
+ * @author Luiz do Valle
+ *
+ */
+@Name("arena.Collision")
+@Label("Collision Resolved")
+@Category({ "Rock Paper Scissors", "Simulation" })
+@Description("A collision between two throws that had a winner")
+public class CollisionEvent extends jdk.jfr.Event {
+
+	@Label("Tick")
+	public long tick;
+
+	@Label("Winner")
+	@Description("The char representation of the winning play ('h' for Blackhole)")
+	public char winner;
+
+	@Label("Loser")
+	@Description("The char representation of the losing play ('h' for Blackhole)")
+	public char loser;
+
+	@Label("X")
+	@Description("The x coordinate of the bottom left corner of the winner")
+	public int x;
+
+	@Label("Y")
+	@Description("The y coordinate of the bottom left corner of the winner")
+	public int y;
+}
@@ -0,0 +1,37 @@
+package instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event committed every time a throw loses a collision and is taken out of the game
+ * @author Luiz do Valle
+ *
+ */
+@Name("arena.Elimination")
+@Label("Throw Eliminated")
+@Category({ "Rock Paper Scissors", "Simulation" })
+@Description("A throw that lost a collision and was removed from the game")
+public class EliminationEvent extends jdk.jfr.Event {
+
+	@Label("Tick")
+	public long tick;
+
+	@Label("Play")
+	@Description("The char representation of the eliminated play ('h' for Blackhole)")
+	public char play;
+
+	@Label("X")
+	@Description("The x coordinate of the bottom left corner of the throw when it was eliminated")
+	public int x;
+
+	@Label("Y")
+	@Description("The y coordinate of the bottom left corner of the throw when it was eliminated")
+	public int y;
+
+	@Label("Population")
+	@Description("The number of throws left in the game once this one is removed")
+	public int population;
+}
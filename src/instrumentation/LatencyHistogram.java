@@ -0,0 +1,189 @@
+package instrumentation;
+
+import java.util.Arrays;
+
+/**
+ * Class that counts how many times each latency was recorded, to answer percentile queries without keeping the
+ * samples
+ *
+ * Latencies are counted in buckets that are exact below 8 nanoseconds and then split every power of two into 8
+ * buckets, so a percentile is never off by more than 12.5% while the whole histogram is a single preallocated
+ * array: recording is a few shifts and an increment, and never allocates
+ *
+ * NOTE: Written by a single thread (the one stepping the Simulation or painting) and read by any other. A reader
+ * can see a recording half done (e.g. the count updated but not the bucket), which only skews a snapshot by a
+ * sample, so no synchronization is paid on the hot path
+ * @author Luiz do Valle
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of bits of a latency, after its highest one, that choose the bucket within its power of two
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+	/**
+	 * The number of buckets each power of two is split into
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * The largest power of two counted, latencies above about 2^40 nanoseconds (18 minutes) go in the last bucket
+	 */
+	private static final int MAX_EXPONENT = 40;
+
+	/**
+	 * The number of latencies recorded in each bucket
+	 */
+	private long[] buckets;
+	/**
+	 * The number of latencies recorded
+	 */
+	private long count;
+	/**
+	 * The sum of the latencies recorded, in nanoseconds
+	 */
+	private long sum;
+	/**
+	 * The largest latency recorded, in nanoseconds
+	 */
+	private long max;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public LatencyHistogram() {
+
+		buckets = new long[(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
+	}
+
+	/**
+	 * Method that records a latency
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public void record(long nanos) {
+
+		nanos = Math.max(0, nanos);
+
+		buckets[bucketOf(nanos)]++;
+		count++;
+		sum += nanos;
+
+		if(nanos > max) {
+
+			max = nanos;
+		}
+	}
+
+	/**
+	 * Method that returns the latency below which the given fraction of the recorded latencies fall
+	 * @param fraction the fraction, between 0 and 1 (e.g. 0.99 for the 99th percentile)
+	 * @return the latency at the percentile, in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+
+		long total = count;
+
+		if(total == 0) {
+
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+
+		for(int bucket = 0; bucket < buckets.length; bucket++) {
+
+			seen += buckets[bucket];
+
+			if(seen >= rank) {
+
+				return Math.min(max, highestOf(bucket));
+			}
+		}
+
+		return max;
+	}
+
+	/**
+	 * Method that returns the number of latencies recorded
+	 * @return the number of latencies recorded
+	 */
+	public long getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the average of the latencies recorded
+	 * @return the mean latency, in nanoseconds, or 0 if nothing was recorded
+	 */
+	public double getMean() {
+
+		long total = count;
+
+		return total == 0 ? 0 : sum / (double) total;
+	}
+
+	/**
+	 * Method that returns the largest latency recorded
+	 * @return the largest latency, in nanoseconds
+	 */
+	public long getMax() {
+
+		return max;
+	}
+
+	/**
+	 * Method that forgets every latency recorded
+	 */
+	public void reset() {
+
+		Arrays.fill(buckets, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 * Method that returns the bucket the given latency is counted in
+	 * @param nanos the latency, in nanoseconds
+	 * @return the index of the bucket
+	 */
+	private int bucketOf(long nanos) {
+
+		if(nanos < SUB_BUCKETS) {
+
+			return (int) nanos;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+
+		if(exponent > MAX_EXPONENT) {
+
+			return buckets.length - 1;
+		}
+
+		//The bits right after the highest one pick the sub bucket
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Method that returns the largest latency counted in the given bucket
+	 * @param bucket the index of the bucket
+	 * @return the largest latency of the bucket, in nanoseconds
+	 */
+	private long highestOf(int bucket) {
+
+		if(bucket < SUB_BUCKETS) {
+
+			return bucket;
+		}
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+
+		return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
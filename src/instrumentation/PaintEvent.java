@@ -0,0 +1,31 @@
+package instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event that spans one paint pass of an arena (BattleArena.paintComponent or a frame of the
+ * ActiveArena)
+ * @author Luiz do Valle
+ *
+ */
+@Name("arena.Paint")
+@Label("Paint")
+@Category({ "Rock Paper Scissors", "Rendering" })
+@Description("One paint pass of the arena")
+public class PaintEvent extends jdk.jfr.Event {
+
+	@Label("Arena")
+	@Description("The class of the arena that painted")
+	public String arena;
+
+	@Label("Area")
+	@Description("The number of pixels repainted")
+	public long area;
+
+	@Label("Throws Drawn")
+	@Description("The number of throws drawn during the pass")
+	public int throwsDrawn;
+}
@@ -0,0 +1,111 @@
+package instrumentation;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Information Holder class with a snapshot of the latencies of one phase of the tick, in microseconds
+ * Returned by the TickMetricsMXBean, which JMX clients (e.g. JConsole) show as a composite attribute
+ * @author Luiz do Valle
+ *
+ */
+public class PhaseLatency {
+
+	private long count;
+	private double mean;
+	private double p50;
+	private double p90;
+	private double p99;
+	private double max;
+
+	/**
+	 * Constructor for the class
+	 * @param count the number of latencies recorded
+	 * @param mean the mean latency, in microseconds
+	 * @param p50 the median latency, in microseconds
+	 * @param p90 the 90th percentile, in microseconds
+	 * @param p99 the 99th percentile, in microseconds
+	 * @param max the largest latency, in microseconds
+	 */
+	@ConstructorProperties({ "count", "mean", "p50", "p90", "p99", "max" })
+	public PhaseLatency(long count, double mean, double p50, double p90, double p99, double max) {
+
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.max = max;
+	}
+
+	/**
+	 * Method that takes a snapshot of the given histogram
+	 * @param histogram the histogram of a phase, in nanoseconds
+	 * @return the snapshot, in microseconds
+	 */
+	public static PhaseLatency of(LatencyHistogram histogram) {
+
+		return new PhaseLatency(histogram.getCount(), histogram.getMean() / 1000.0,
+				histogram.getPercentile(0.5) / 1000.0, histogram.getPercentile(0.9) / 1000.0,
+				histogram.getPercentile(0.99) / 1000.0, histogram.getMax() / 1000.0);
+	}
+
+	/**
+	 * Method that returns the number of latencies recorded
+	 * @return the number of latencies recorded
+	 */
+	public long getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the mean latency
+	 * @return the mean latency, in microseconds
+	 */
+	public double getMean() {
+
+		return mean;
+	}
+
+	/**
+	 * Method that returns the median latency
+	 * @return the median latency, in microseconds
+	 */
+	public double getP50() {
+
+		return p50;
+	}
+
+	/**
+	 * Method that returns the 90th percentile
+	 * @return the 90th percentile, in microseconds
+	 */
+	public double getP90() {
+
+		return p90;
+	}
+
+	/**
+	 * Method that returns the 99th percentile
+	 * @return the 99th percentile, in microseconds
+	 */
+	public double getP99() {
+
+		return p99;
+	}
+
+	/**
+	 * Method that returns the largest latency
+	 * @return the largest latency, in microseconds
+	 */
+	public double getMax() {
+
+		return max;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus max=%.1fus", count, mean, p50, p90, p99, max);
+	}
+}
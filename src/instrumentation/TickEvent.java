@@ -0,0 +1,34 @@
+package instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event that spans one tick of a Simulation, so that its start and end can be lined up with
+ * the GC pauses and CPU samples of the same recording
+ *
+ * Like every JFR event, it is created on every tick but only committed while a recording enables it, and the JIT
+ * removes the allocation while it is disabled
+ * @author Luiz do Valle
+ *
+ */
+@Name("arena.Tick")
+@Label("Tick")
+@Category({ "Rock Paper Scissors", "Simulation" })
+@Description("One step of the simulation: moving, wrapping and resolving collisions")
+public class TickEvent extends jdk.jfr.Event {
+
+	@Label("Tick")
+	@Description("The number of the tick, counted from the start of the simulation")
+	public long tick;
+
+	@Label("Population")
+	@Description("The number of throws after the tick")
+	public int population;
+
+	@Label("Collisions")
+	@Description("The number of collisions resolved during the tick")
+	public int collisions;
+}
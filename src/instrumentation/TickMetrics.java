@@ -0,0 +1,289 @@
+package instrumentation;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Class that records how long each phase of every tick takes, how often ticks, collisions and paints happen and how
+ * many throws are alive, and publishes them as a JMX MXBean
+ *
+ * Always on: every Simulation records into its own TickMetrics, which costs a few System.nanoTime calls and array
+ * increments per tick and never allocates. Only the metrics registered with register() are visible to JMX clients
+ * (e.g. JConsole, under arena/TickMetrics)
+ *
+ * NOTE: Ticks must be recorded by a single thread and paints by a single thread (possibly another one), while the
+ * getters can be called from any thread
+ * @author Luiz do Valle
+ *
+ */
+public class TickMetrics implements TickMetricsMXBean {
+
+	/**
+	 * The length of the window the rates are measured over
+	 */
+	private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+
+	/**
+	 * The latencies of each phase of the tick, of whole ticks and of paints
+	 */
+	private LatencyHistogram moveLatencies;
+	private LatencyHistogram wrapLatencies;
+	private LatencyHistogram collisionLatencies;
+	private LatencyHistogram tickLatencies;
+	private LatencyHistogram paintLatencies;
+	/**
+	 * The number of ticks and collisions recorded
+	 */
+	private volatile long tickCount;
+	private volatile long collisionCount;
+	/**
+	 * The number of throws after the last tick
+	 */
+	private volatile int population;
+	/**
+	 * The rates measured over the last complete window
+	 */
+	private volatile double ticksPerSecond;
+	private volatile double collisionsPerSecond;
+	private volatile double paintsPerSecond;
+	/**
+	 * The time (System.nanoTime) of the last tick and of the last paint recorded
+	 */
+	private volatile long lastTickTime;
+	private volatile long lastPaintTime;
+	/**
+	 * The window of the tick and collision rates, only used by the thread recording the ticks
+	 */
+	private long tickWindowStart;
+	private long ticksInWindow;
+	private long collisionsInWindow;
+	/**
+	 * The window of the paint rate, only used by the thread recording the paints
+	 */
+	private long paintWindowStart;
+	private long paintsInWindow;
+	/**
+	 * The name the metrics are registered under, null if they are not registered
+	 */
+	private ObjectName objectName;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public TickMetrics() {
+
+		moveLatencies = new LatencyHistogram();
+		wrapLatencies = new LatencyHistogram();
+		collisionLatencies = new LatencyHistogram();
+		tickLatencies = new LatencyHistogram();
+		paintLatencies = new LatencyHistogram();
+
+		long now = System.nanoTime();
+
+		tickWindowStart = now;
+		paintWindowStart = now;
+	}
+
+	/**
+	 * Method that records a tick
+	 * @param moveNanos how long moving the throws took
+	 * @param wrapNanos how long wrapping the throws around the edges took
+	 * @param collisionNanos how long detecting and resolving the collisions took
+	 * @param collisions the number of collisions resolved during the tick
+	 * @param population the number of throws after the tick
+	 * @param now the time (System.nanoTime) the tick ended
+	 */
+	public void recordTick(long moveNanos, long wrapNanos, long collisionNanos, int collisions, int population, long now) {
+
+		moveLatencies.record(moveNanos);
+		wrapLatencies.record(wrapNanos);
+		collisionLatencies.record(collisionNanos);
+		tickLatencies.record(moveNanos + wrapNanos + collisionNanos);
+
+		tickCount++;
+		collisionCount += collisions;
+		this.population = population;
+
+		ticksInWindow++;
+		collisionsInWindow += collisions;
+
+		long elapsed = now - tickWindowStart;
+
+		if(elapsed >= RATE_WINDOW_NANOS) {
+
+			ticksPerSecond = ticksInWindow * 1e9 / elapsed;
+			collisionsPerSecond = collisionsInWindow * 1e9 / elapsed;
+
+			tickWindowStart = now;
+			ticksInWindow = 0;
+			collisionsInWindow = 0;
+		}
+
+		lastTickTime = now;
+	}
+
+	/**
+	 * Method that records a frame painted by the arena, once however many paint passes it took
+	 * @param paintNanos how long painting the frame took
+	 * @param now the time (System.nanoTime) the frame ended
+	 */
+	public void recordPaint(long paintNanos, long now) {
+
+		paintLatencies.record(paintNanos);
+
+		paintsInWindow++;
+
+		long elapsed = now - paintWindowStart;
+
+		if(elapsed >= RATE_WINDOW_NANOS) {
+
+			paintsPerSecond = paintsInWindow * 1e9 / elapsed;
+
+			paintWindowStart = now;
+			paintsInWindow = 0;
+		}
+
+		lastPaintTime = now;
+	}
+
+	/**
+	 * Method that registers the metrics with the platform MBeanServer under arena:type=TickMetrics,name=(the given name)
+	 * @param name the name that tells these metrics apart from those of other arenas
+	 * @return true if the metrics were registered, false if JMX is not available or the name is taken
+	 */
+	public boolean register(String name) {
+
+		try {
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName candidate = new ObjectName("arena:type=TickMetrics,name=" + ObjectName.quote(name));
+
+			server.registerMBean(this, candidate);
+			objectName = candidate;
+
+			return true;
+
+		} catch(JMException | SecurityException e) {
+
+			return false;
+		}
+	}
+
+	/**
+	 * Method that removes the metrics from the platform MBeanServer, if they were registered
+	 */
+	public void unregister() {
+
+		if(objectName == null) {
+
+			return;
+		}
+
+		try {
+
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+
+		} catch(JMException | SecurityException e) {
+
+			//Already gone, nothing left to do
+		}
+
+		objectName = null;
+	}
+
+	@Override
+	public long getTickCount() {
+
+		return tickCount;
+	}
+
+	@Override
+	public long getCollisionCount() {
+
+		return collisionCount;
+	}
+
+	@Override
+	public int getPopulation() {
+
+		return population;
+	}
+
+	@Override
+	public double getTicksPerSecond() {
+
+		return isRecent(lastTickTime) ? ticksPerSecond : 0;
+	}
+
+	@Override
+	public double getCollisionsPerSecond() {
+
+		return isRecent(lastTickTime) ? collisionsPerSecond : 0;
+	}
+
+	@Override
+	public double getPaintsPerSecond() {
+
+		return isRecent(lastPaintTime) ? paintsPerSecond : 0;
+	}
+
+	@Override
+	public PhaseLatency getMoveLatency() {
+
+		return PhaseLatency.of(moveLatencies);
+	}
+
+	@Override
+	public PhaseLatency getWrapLatency() {
+
+		return PhaseLatency.of(wrapLatencies);
+	}
+
+	@Override
+	public PhaseLatency getCollisionLatency() {
+
+		return PhaseLatency.of(collisionLatencies);
+	}
+
+	@Override
+	public PhaseLatency getTickLatency() {
+
+		return PhaseLatency.of(tickLatencies);
+	}
+
+	@Override
+	public PhaseLatency getPaintLatency() {
+
+		return PhaseLatency.of(paintLatencies);
+	}
+
+	@Override
+	public void reset() {
+
+		moveLatencies.reset();
+		wrapLatencies.reset();
+		collisionLatencies.reset();
+		tickLatencies.reset();
+		paintLatencies.reset();
+
+		tickCount = 0;
+		collisionCount = 0;
+		ticksPerSecond = 0;
+		collisionsPerSecond = 0;
+		paintsPerSecond = 0;
+	}
+
+	/**
+	 * Method that checks whether the given event is recent enough for the rates measured up to it to still hold,
+	 * since the rates of a game that stopped ticking (e.g. paused after a collision) must drop to zero
+	 * @param time the time (System.nanoTime) of the last event
+	 * @return true if the event happened within the last two windows, false otherwise
+	 */
+	private boolean isRecent(long time) {
+
+		return System.nanoTime() - time < 2 * RATE_WINDOW_NANOS;
+	}
+}
@@ -0,0 +1,83 @@
+package instrumentation;
+
+/**
+ * Management interface of the TickMetrics, which JMX clients (e.g. JConsole or VisualVM) show once the metrics are
+ * registered with the platform MBeanServer
+ * @author Luiz do Valle
+ *
+ */
+public interface TickMetricsMXBean {
+
+	/**
+	 * Method that returns the number of ticks stepped since the metrics were created or reset
+	 * @return the number of ticks
+	 */
+	public abstract long getTickCount();
+
+	/**
+	 * Method that returns the number of collisions resolved since the metrics were created or reset
+	 * @return the number of collisions
+	 */
+	public abstract long getCollisionCount();
+
+	/**
+	 * Method that returns the number of throws in the game after the last tick
+	 * @return the live population
+	 */
+	public abstract int getPopulation();
+
+	/**
+	 * Method that returns the rate at which ticks were stepped over the last second
+	 * @return the number of ticks per second
+	 */
+	public abstract double getTicksPerSecond();
+
+	/**
+	 * Method that returns the rate at which collisions were resolved over the last second
+	 * @return the number of collisions per second
+	 */
+	public abstract double getCollisionsPerSecond();
+
+	/**
+	 * Method that returns the rate at which frames of the arena were painted over the last second, however many paint
+	 * passes each frame took
+	 * @return the number of frames painted per second
+	 */
+	public abstract double getPaintsPerSecond();
+
+	/**
+	 * Method that returns the latencies of moving the throws (moveThrows)
+	 * @return the latencies of the move phase
+	 */
+	public abstract PhaseLatency getMoveLatency();
+
+	/**
+	 * Method that returns the latencies of wrapping the throws around the edges (keepThrowsInBounds)
+	 * @return the latencies of the wrap phase
+	 */
+	public abstract PhaseLatency getWrapLatency();
+
+	/**
+	 * Method that returns the latencies of detecting and resolving collisions (reactToCollissions)
+	 * @return the latencies of the collision phase
+	 */
+	public abstract PhaseLatency getCollisionLatency();
+
+	/**
+	 * Method that returns the latencies of whole ticks
+	 * @return the latencies of the ticks
+	 */
+	public abstract PhaseLatency getTickLatency();
+
+	/**
+	 * Method that returns the latencies of painting a frame of the arena (every paint pass of a BattleArena frame, or a
+	 * frame of the ActiveArena)
+	 * @return the latencies of the paint phase
+	 */
+	public abstract PhaseLatency getPaintLatency();
+
+	/**
+	 * Method that forgets every latency, count and rate recorded so far
+	 */
+	public abstract void reset();
+}
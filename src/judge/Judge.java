@@ -5,55 +5,254 @@ import game_throws.GameThrow;
 /**
  * Class that determines which (if any) throw lost the collision
  * Taken and adapted from RPSLK assignment
+ * 
+ * The rules come from a RuleSet, and Blackhole is added on top of them with the type id right after the last play
+ * (so with the standard RuleSet the type ids are the same as ValidPlaysLibrary.getTypeOf)
+ * 
+ * For rulesets with few plays every possible outcome, Blackhole included, is computed once when the Judge is created
+ * and stored in a flat table, so deciding a collision is a single array load. Bigger rulesets (e.g. RPS-101) are
+ * decided straight from the bit-packed matrix of the RuleSet instead, which stays small enough to remain in cache
  * @author Luiz do Valle
  *
  */
 public class Judge {
+	
+	/**
+	 * Verdict returned when neither throw loses
+	 */
+	public static final byte TIE = 0;
+	/**
+	 * Verdict returned when the first throw loses
+	 */
+	public static final byte FIRST_LOSES = 1;
+	/**
+	 * Verdict returned when the second throw loses
+	 */
+	public static final byte SECOND_LOSES = 2;
+	/**
+	 * The largest number of type ids for which the flat verdicts table is built
+	 */
+	private static final int MAX_TABLE_TYPES = 64;
 
 	/**
-	 * Instance of the RuleBook used to retrieve the game rules
+	 * The rules of the plays, without Blackhole
 	 */
-	private RuleBook ruleBook;
+	private RuleSet ruleSet;
+	/**
+	 * The number of type ids, i.e. the plays of the RuleSet plus Blackhole
+	 */
+	private int typesSize;
+	/**
+	 * The type id given to Blackhole
+	 */
+	private byte blackhole;
+	/**
+	 * The verdict of every pair of types, where the verdict of (type1, type2) is at type1 * typesSize + type2
+	 * null if the RuleSet has too many plays, in which case the verdicts are computed from the RuleSet
+	 */
+	private byte[] verdicts;
 
 	/**
-	 * Default constructor for the class
+	 * Default constructor for the class, which uses the rules of the ValidPlaysLibrary
 	 */
 	public Judge() {
 
-		ruleBook = new RuleBook();
+		this(RuleSet.standard());
 	}
-
+	
 	/**
-	 * Method that determines who won the round, if anyone
+	 * Constructor that judges the plays of the given RuleSet (plus Blackhole)
+	 * @param ruleSet the rules of the plays
+	 */
+	public Judge(RuleSet ruleSet) {
+		
+		this.ruleSet = ruleSet;
+		this.typesSize = ruleSet.size() + 1;
+		this.blackhole = (byte) ruleSet.size();
+		
+		if(typesSize <= MAX_TABLE_TYPES) {
+			
+			initializeVerdicts();
+		}
+	}
+	
+	/**
+	 * Method that returns the verdict of a collision between throws of the given types
+	 * 
+	 * @param type1 the type id of the first throw
+	 * @param type2 the type id of the second throw
+	 * @return TIE, FIRST_LOSES or SECOND_LOSES
+	 */
+	public byte getVerdict(byte type1, byte type2) {
+		
+		if(verdicts != null) {
+			
+			return verdicts[type1 * typesSize + type2];
+		}
+		
+		return computeVerdict(type1, type2);
+	}
+	
+	/**
+	 * Method that returns the verdict of a collision between the given throws
 	 * 
 	 * @param gameThrow1 the first play
 	 * @param gameThrow2 the second play
-	 * @return "gameThrow2" for a gameThrow1 win, "Tie" for a tie, and "gameThrow1" for a gameThrow2 win
+	 * @return TIE, FIRST_LOSES or SECOND_LOSES
 	 */
-	public String whoLost(GameThrow gameThrow1, GameThrow gameThrow2) {
+	public byte getVerdict(GameThrow gameThrow1, GameThrow gameThrow2) {
+		
+		byte type1 = getTypeOf(gameThrow1.getCharRepresentation());
+		byte type2 = getTypeOf(gameThrow2.getCharRepresentation());
 		
-		char firstThrowChar = gameThrow1.getCharRepresentation();
-		char otherThrowChar = gameThrow2.getCharRepresentation();
+		return getVerdict(type1, type2);
+	}
+	
+	/**
+	 * Method that returns the type id of the given play
+	 * 
+	 * @param play the char representation of the play
+	 * @return the id of the play in the RuleSet, the Blackhole type id for 'h', or -1 if the play does not exist
+	 */
+	public byte getTypeOf(char play) {
 		
-		if(firstThrowChar == 'h') {
+		if(play == 'h') {
 			
-			return "gameThrow2";
+			return blackhole;
+		}
+		
+		return (byte) ruleSet.getIdOf(play);
+	}
+	
+	/**
+	 * Method that returns the char representation of the play with the given type id, the inverse of getTypeOf
+	 * 
+	 * @param type the type id
+	 * @return the char representation of the play, 'h' for Blackhole
+	 */
+	public char getPlayOf(byte type) {
 		
-		} else if (otherThrowChar == 'h') {
+		if(type == blackhole) {
 			
-			return "gameThrow1";
+			return 'h';
+		}
+		
+		return ruleSet.getPlayAt(type);
+	}
+	
+	/**
+	 * Method that returns the type id given to Blackhole
+	 * 
+	 * @return the type id of Blackhole
+	 */
+	public byte getBlackholeType() {
+		
+		return blackhole;
+	}
+	
+	/**
+	 * Method that returns the number of type ids, i.e. the plays of the RuleSet plus Blackhole
+	 * 
+	 * @return the number of type ids
+	 */
+	public int getTypesSize() {
+		
+		return typesSize;
+	}
+	
+	/**
+	 * Method that returns the explanation for why a throw of the given type defeats one of the other type
+	 * 
+	 * @param winnerType type id of the winning throw
+	 * @param loserType type id of the losing throw
+	 * @return a String explaining why a play defeats another, or null if winnerType does not defeat loserType
+	 */
+	public String getExplanation(byte winnerType, byte loserType) {
+		
+		if(winnerType == blackhole) {
+			
+			return ValidPlaysLibrary.getBlackholeExplanation();
+		
+		} else if(loserType == blackhole) {
+			
+			return null;
+		}
+		
+		return ruleSet.getExplanation(winnerType, loserType);
+	}
+	
+	/**
+	 * Method that returns the explanation for why the first throw defeated the second
+	 * 
+	 * @param winner the winning throw
+	 * @param loser the losing throw
+	 * @return a String explaining why a play defeats another, or null if winner does not defeat loser
+	 */
+	public String getExplanation(GameThrow winner, GameThrow loser) {
+		
+		return getExplanation(getTypeOf(winner.getCharRepresentation()), getTypeOf(loser.getCharRepresentation()));
+	}
+	
+	/**
+	 * Method that checks whether no collision can happen anymore between the throws counted, i.e. every pair of them
+	 * ties
+	 * 
+	 * @param typeCounts the number of throws of each type id
+	 * @return true if no pair of the counted throws has a winner, false otherwise
+	 */
+	public boolean isDecided(int[] typeCounts) {
+		
+		for(byte type1 = 0; type1 < typeCounts.length; type1++) {
+			
+			if(typeCounts[type1] == 0) {
+				
+				continue;
+			}
 			
-		} 
+			//Two throws of the same type can still collide (e.g. Blackholes)
+			if(typeCounts[type1] > 1 && getVerdict(type1, type1) != TIE) {
+				
+				return false;
+			}
 			
-		int gameThrow1Index = ValidPlaysLibrary.getIndexOf(firstThrowChar);
-		int gameThrow2Index = ValidPlaysLibrary.getIndexOf(otherThrowChar);
-		int result = ruleBook.getRuleAt(gameThrow1Index, gameThrow2Index);
+			for(byte type2 = (byte) (type1 + 1); type2 < typeCounts.length; type2++) {
+				
+				if(typeCounts[type2] > 0 && getVerdict(type1, type2) != TIE) {
+					
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Method that returns the rules judged by this Judge
+	 * 
+	 * @return the RuleSet of this Judge
+	 */
+	public RuleSet getRuleSet() {
+		
+		return ruleSet;
+	}
+
+	/**
+	 * Method that determines who won the round, if anyone
+	 * 
+	 * @param gameThrow1 the first play
+	 * @param gameThrow2 the second play
+	 * @return "gameThrow2" for a gameThrow1 win, "Tie" for a tie, and "gameThrow1" for a gameThrow2 win
+	 */
+	public String whoLost(GameThrow gameThrow1, GameThrow gameThrow2) {
 		
-		if(result == -1) {
+		byte verdict = getVerdict(gameThrow1, gameThrow2);
+		
+		if(verdict == FIRST_LOSES) {
 			
 			return "gameThrow1";
 			
-		} else if (result == 1) {
+		} else if (verdict == SECOND_LOSES) {
 			
 			return "gameThrow2";
 			
@@ -62,4 +261,54 @@ public class Judge {
 			return "Tie";
 		}
 	}
+	
+	/**
+	 * Method that fills the verdicts table with the verdict of every pair of types
+	 */
+	private void initializeVerdicts() {
+		
+		verdicts = new byte[typesSize * typesSize];
+		
+		for(int type1 = 0; type1 < typesSize; type1++) {
+			
+			for(int type2 = 0; type2 < typesSize; type2++) {
+				
+				verdicts[type1 * typesSize + type2] = computeVerdict((byte) type1, (byte) type2);
+			}
+		}
+	}
+	
+	/**
+	 * Method that computes the verdict of a collision between throws of the given types
+	 * 
+	 * A play that defeats the other in the RuleSet makes the other lose, and a play never defeats itself
+	 * 
+	 * Blackhole destroys everything, so any pair with a Blackhole in it is lost by the other throw. If both throws are
+	 * Blackholes the second one loses
+	 * 
+	 * @param type1 the type id of the first throw
+	 * @param type2 the type id of the second throw
+	 * @return TIE, FIRST_LOSES or SECOND_LOSES
+	 */
+	private byte computeVerdict(byte type1, byte type2) {
+		
+		if(type1 == blackhole) {
+			
+			return SECOND_LOSES;
+		
+		} else if(type2 == blackhole) {
+			
+			return FIRST_LOSES;
+		
+		} else if(ruleSet.beats(type1, type2)) {
+			
+			return SECOND_LOSES;
+		
+		} else if(ruleSet.beats(type2, type1)) {
+			
+			return FIRST_LOSES;
+		}
+		
+		return TIE;
+	}
 }
@@ -0,0 +1,436 @@
+package judge;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class that holds the rules of a game with any odd number of plays (RPS-3, RPSLK, RPS-7, RPS-15, RPS-101...)
+ *
+ * The rules are compiled into a bit-packed matrix where bit (winner, loser) is set if the winner defeats the loser,
+ * so even RPS-101 takes less than 2KB, and both the char to id lookup and the outcome lookup are O(1)
+ *
+ * Blackhole ('h') is not part of any RuleSet, for the same reason it is not part of the ValidPlaysLibrary.
+ * It is added on top of the RuleSet by the Judge
+ *
+ * Ruleset files are plain text, one directive per line. Blank lines and lines starting with '#' are ignored:
+ *
+ * 		name RPS-7					the name of the ruleset (optional)
+ * 		play r Rock					declares a play: its char representation and its description, in order
+ * 		derive next					(optional) every play defeats the (n-1)/2 plays that follow it, wrapping around
+ * 		derive alternating			(optional) every play defeats the 2nd, 4th, 6th... play after it, wrapping around,
+ * 									which is the ordering used by the ValidPlaysLibrary
+ * 		rule r pounds out f			the winner, the action and the loser of a rule
+ *
+ * Without a derive directive the rule lines define the game, and every pair of plays MUST have exactly one rule.
+ * With one, the rule lines are optional and only provide the action used in the explanations; they MUST agree
+ * with the derived rules. Rules without an action are explained with "defeats"
+ * @author Luiz do Valle
+ *
+ */
+public class RuleSet {
+
+	/**
+	 * The largest number of plays a RuleSet can have, so that every play and Blackhole fit in a byte type id
+	 */
+	public static final int MAX_PLAYS = Byte.MAX_VALUE - 1;
+	/**
+	 * The char reserved for Blackhole, which cannot be used by a play
+	 */
+	private static final char BLACKHOLE = 'h';
+	/**
+	 * The action used in the explanation of rules that do not provide one
+	 */
+	private static final String DEFAULT_ACTION = "defeats";
+
+	/**
+	 * The name of the ruleset
+	 */
+	private String name;
+	/**
+	 * The char representation of each play, in order of id
+	 */
+	private char[] plays;
+	/**
+	 * The long name of each play, in order of id
+	 */
+	private String[] descriptions;
+	/**
+	 * idOfChar[c] is the id of the play whose char representation is c, or -1 if there is none
+	 */
+	private byte[] idOfChar;
+	/**
+	 * The number of longs used by each row of the beats matrix
+	 */
+	private int rowWords;
+	/**
+	 * Bit-packed matrix where bit (winner, loser) is set if the play winner defeats the play loser
+	 */
+	private long[] beats;
+	/**
+	 * explanations[winner][loser] explains why winner defeats loser, null if it does not
+	 */
+	private String[][] explanations;
+
+	/**
+	 * Private constructor used by the factory methods, which validate the rules before calling it
+	 * @param name the name of the ruleset
+	 * @param plays the char representation of each play
+	 * @param descriptions the long name of each play
+	 * @param actions actions[winner][loser] is the action of the rule, null if winner does not defeat loser
+	 */
+	private RuleSet(String name, char[] plays, String[] descriptions, String[][] actions) {
+
+		int size = plays.length;
+
+		this.name = name;
+		this.plays = plays;
+		this.descriptions = descriptions;
+		this.rowWords = (size + Long.SIZE - 1) / Long.SIZE;
+		this.beats = new long[size * rowWords];
+		this.explanations = new String[size][size];
+
+		char maxChar = 0;
+
+		for(char play : plays) {
+
+			maxChar = (char) Math.max(maxChar, play);
+		}
+
+		this.idOfChar = new byte[maxChar + 1];
+
+		Arrays.fill(idOfChar, (byte) -1);
+
+		for(int id = 0; id < size; id++) {
+
+			idOfChar[plays[id]] = (byte) id;
+		}
+
+		for(int winner = 0; winner < size; winner++) {
+
+			for(int loser = 0; loser < size; loser++) {
+
+				if(actions[winner][loser] != null) {
+
+					beats[winner * rowWords + loser / Long.SIZE] |= 1L << (loser % Long.SIZE);
+
+					String explanation = String.format("%s %s %s", descriptions[winner], actions[winner][loser], descriptions[loser]);
+					explanations[winner][loser] = explanation.intern();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method that creates the RuleSet of the plays in the ValidPlaysLibrary (Rock, Paper, Scissors, Spock, Lizard),
+	 * with the rules of the RuleBook and the explanations of the ValidPlaysLibrary
+	 * @return the standard RuleSet
+	 */
+	public static RuleSet standard() {
+
+		RuleBook ruleBook = new RuleBook();
+
+		int size = ValidPlaysLibrary.getValidPlaysSize();
+
+		char[] plays = new char[size];
+		String[] descriptions = new String[size];
+		String[][] actions = new String[size][size];
+
+		for(int id = 0; id < size; id++) {
+
+			plays[id] = ValidPlaysLibrary.getPlayAt(id);
+			descriptions[id] = ValidPlaysLibrary.getPlayDescription(id);
+		}
+
+		RuleSet ruleSet = new RuleSet("RPSLK", plays, descriptions, actions);
+
+		for(int winner = 0; winner < size; winner++) {
+
+			for(int loser = 0; loser < size; loser++) {
+
+				if(ruleBook.getRuleAt(winner, loser) == 1) {
+
+					ruleSet.beats[winner * ruleSet.rowWords + loser / Long.SIZE] |= 1L << (loser % Long.SIZE);
+					ruleSet.explanations[winner][loser] = ValidPlaysLibrary.getExplanationBasedOnPlays(winner, loser);
+				}
+			}
+		}
+
+		return ruleSet;
+	}
+
+	/**
+	 * Method that reads and compiles the ruleset file at the given path
+	 * @param path the path of the ruleset file
+	 * @return the compiled RuleSet
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file does not describe a valid ruleset
+	 */
+	public static RuleSet load(Path path) throws IOException {
+
+		try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+
+			return parse(reader, path.getFileName().toString());
+		}
+	}
+
+	/**
+	 * Method that compiles the given ruleset text
+	 * @param text the contents of a ruleset file
+	 * @return the compiled RuleSet
+	 * @throws IllegalArgumentException if the text does not describe a valid ruleset
+	 */
+	public static RuleSet parse(String text) {
+
+		try {
+
+			return parse(new BufferedReader(new StringReader(text)), "ruleset");
+
+		} catch(IOException e) {
+
+			//A StringReader never fails to read
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Method that reads and compiles a ruleset, line by line
+	 * @param reader the reader the ruleset is read from
+	 * @param source the name used to identify the ruleset in error messages
+	 * @return the compiled RuleSet
+	 * @throws IOException if the reader fails
+	 * @throws IllegalArgumentException if the ruleset is not valid
+	 */
+	private static RuleSet parse(BufferedReader reader, String source) throws IOException {
+
+		String name = source;
+		String derive = null;
+
+		ArrayList<Character> plays = new ArrayList<>();
+		ArrayList<String> descriptions = new ArrayList<>();
+		ArrayList<String[]> rules = new ArrayList<>();
+		ArrayList<Integer> ruleLines = new ArrayList<>();
+
+		String line;
+		int lineNumber = 0;
+
+		while((line = reader.readLine()) != null) {
+
+			lineNumber++;
+			line = line.trim();
+
+			if(line.isEmpty() || line.startsWith("#")) {
+
+				continue;
+			}
+
+			String[] tokens = line.split("\\s+");
+
+			if(tokens[0].equals("name") && tokens.length >= 2) {
+
+				name = line.substring("name".length()).trim();
+
+			} else if(tokens[0].equals("play") && tokens.length >= 3) {
+
+				char play = single(tokens[1], source, lineNumber);
+
+				if(play == BLACKHOLE || plays.contains(play)) {
+
+					throw error(source, lineNumber, "play '" + play + "' is reserved or declared twice");
+				}
+
+				plays.add(play);
+				descriptions.add(line.split("\\s+", 3)[2]);
+
+			} else if(tokens[0].equals("derive") && tokens.length == 2
+					&& (tokens[1].equals("next") || tokens[1].equals("alternating"))) {
+
+				derive = tokens[1];
+
+			} else if(tokens[0].equals("rule") && tokens.length >= 3) {
+
+				String action = tokens.length == 3 ? DEFAULT_ACTION
+						: String.join(" ", Arrays.copyOfRange(tokens, 2, tokens.length - 1));
+
+				rules.add(new String[] { tokens[1], action, tokens[tokens.length - 1] });
+				ruleLines.add(lineNumber);
+
+			} else {
+
+				throw error(source, lineNumber, "unknown directive '" + line + "'");
+			}
+		}
+
+		int size = plays.size();
+
+		if(size < 3 || size % 2 == 0 || size > MAX_PLAYS) {
+
+			throw error(source, lineNumber, "a ruleset needs an odd number of plays between 3 and " + MAX_PLAYS + ", found " + size);
+		}
+
+		char[] playChars = new char[size];
+
+		for(int id = 0; id < size; id++) {
+
+			playChars[id] = plays.get(id);
+		}
+
+		String[][] actions = new String[size][size];
+
+		if(derive != null) {
+
+			for(int winner = 0; winner < size; winner++) {
+
+				for(int step = 1; step <= (size - 1) / 2; step++) {
+
+					int offset = derive.equals("next") ? step : 2 * step;
+
+					actions[winner][(winner + offset) % size] = DEFAULT_ACTION;
+				}
+			}
+		}
+
+		for(int r = 0; r < rules.size(); r++) {
+
+			String[] rule = rules.get(r);
+			int ruleLine = ruleLines.get(r);
+
+			int winner = plays.indexOf(single(rule[0], source, ruleLine));
+			int loser = plays.indexOf(single(rule[2], source, ruleLine));
+
+			if(winner == -1 || loser == -1 || winner == loser) {
+
+				throw error(source, ruleLine, "rule must be between two different declared plays");
+			}
+
+			if(derive != null && actions[winner][loser] == null) {
+
+				throw error(source, ruleLine, "rule contradicts 'derive " + derive + "'");
+			}
+
+			if(derive == null && (actions[winner][loser] != null || actions[loser][winner] != null)) {
+
+				throw error(source, ruleLine, "pair already has a rule");
+			}
+
+			actions[winner][loser] = rule[1];
+		}
+
+		for(int play1 = 0; play1 < size; play1++) {
+
+			for(int play2 = play1 + 1; play2 < size; play2++) {
+
+				if(actions[play1][play2] == null && actions[play2][play1] == null) {
+
+					throw error(source, lineNumber, "no rule between '" + playChars[play1] + "' and '" + playChars[play2] + "'");
+				}
+			}
+		}
+
+		return new RuleSet(name, playChars, descriptions.toArray(new String[size]), actions);
+	}
+
+	/**
+	 * Method that returns the id of the play with the given char representation
+	 * @param play the char representation of the play
+	 * @return id of the play, or -1 if the play is not part of this ruleset
+	 */
+	public int getIdOf(char play) {
+
+		return play < idOfChar.length ? idOfChar[play] : -1;
+	}
+
+	/**
+	 * Method that checks whether the first play defeats the second one
+	 * @param winner the id of the first play
+	 * @param loser the id of the second play
+	 * @return true if winner defeats loser, false if it ties or loses
+	 */
+	public boolean beats(int winner, int loser) {
+
+		return (beats[winner * rowWords + loser / Long.SIZE] & (1L << (loser % Long.SIZE))) != 0;
+	}
+
+	/**
+	 * Method that returns the explanation for why a play defeats another
+	 * @param winner the id of the winning play
+	 * @param loser the id of the losing play
+	 * @return a String explaining why a play defeats another, or null if winner does not defeat loser
+	 */
+	public String getExplanation(int winner, int loser) {
+
+		return explanations[winner][loser];
+	}
+
+	/**
+	 * Method that returns the number of plays in this ruleset
+	 * @return the number of plays
+	 */
+	public int size() {
+
+		return plays.length;
+	}
+
+	/**
+	 * Method that returns the char representation of the play with the given id
+	 * @param id the id of the play
+	 * @return the char representation of the play
+	 */
+	public char getPlayAt(int id) {
+
+		return plays[id];
+	}
+
+	/**
+	 * Method that returns the long name of the play with the given id
+	 * @param id the id of the play
+	 * @return the long name of the play
+	 */
+	public String getPlayDescription(int id) {
+
+		return descriptions[id];
+	}
+
+	/**
+	 * Method that returns the name of this ruleset
+	 * @return the name of this ruleset
+	 */
+	public String getName() {
+
+		return name;
+	}
+
+	/**
+	 * Method that checks that a token is a single char representation
+	 * @param token the token
+	 * @param source the name of the ruleset, for the error message
+	 * @param lineNumber the line of the token, for the error message
+	 * @return the char representation
+	 */
+	private static char single(String token, String source, int lineNumber) {
+
+		if(token.length() != 1) {
+
+			throw error(source, lineNumber, "'" + token + "' is not a single char play");
+		}
+
+		return token.charAt(0);
+	}
+
+	/**
+	 * Method that creates the exception thrown for an invalid ruleset
+	 * @param source the name of the ruleset
+	 * @param lineNumber the line where the problem was found
+	 * @param message what is wrong
+	 * @return the exception to be thrown
+	 */
+	private static IllegalArgumentException error(String source, int lineNumber, String message) {
+
+		return new IllegalArgumentException(source + ":" + lineNumber + ": " + message);
+	}
+}
@@ -1,10 +1,5 @@
 package judge;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
-import javax.annotation.Generated;
-
 /**
  * Information Holder class used to keep track of the allowed plays
  * and relationships between them
@@ -27,6 +22,9 @@ public class ValidPlaysLibrary {
 	 * automatically create the rules, and the rest of the ValidPlays class
 	 */
 	private static char[] validPlays = { 'r', 'p', 's', 'k', 'l'};
+	
+	// Char representation of the Blackhole throw, which is kept out of validPlays (see NOTE above)
+	private static final char BLACKHOLE = 'h';
 
 	// Same order as validPlays array
 	private static String[] descriptions = { "Rock", "Paper", "Scissors", "Spock", "Lizard"};
@@ -47,6 +45,17 @@ public class ValidPlaysLibrary {
 	 * {{"crushes"}, {"covers"}, {"cuts"}}
 	 */
 	private static String[][] actions = {{ "crushes", "crushes" }, {"disproves", "covers"}, {"decapitates", "cuts"}, {"vaporizes", "smashes"}, {"eats", "poisons"}};
+	
+	// Explanation of every collision won by a Blackhole
+	private static final String BLACKHOLE_EXPLANATION = "Blackhole destroys everything";
+	
+	/*
+	 * explanations[winner][loser] holds the explanation of every collision that has a winner, indexed by the type ids
+	 * of getTypeOf (so the last row and column belong to Blackhole). Pairs where the first type does not win are null
+	 * 
+	 * MUST be declared after the arrays above, since it is built from them once when the class is loaded
+	 */
+	private static final String[][] explanations = initializeExplanations();
 
 	/**
 	 * Method that returns the long name of a valid play
@@ -93,6 +102,44 @@ public class ValidPlaysLibrary {
 		return index;
 	}
 
+	/**
+	 * Method that returns the compact type id of the given play, used wherever throws are stored as primitives
+	 * (e.g. the WorldStore)
+	 * The valid plays get their index in the validPlays array and Blackhole gets the id right after the last one
+	 * 
+	 * @param play the play to retrieve the type of
+	 * @return type id of the play, or -1 if the play does not exist
+	 */
+	public static byte getTypeOf(char play) {
+		
+		if(play == BLACKHOLE) {
+			
+			return getBlackholeType();
+		}
+		
+		return (byte) getIndexOf(play);
+	}
+	
+	/**
+	 * Method that returns the type id given to Blackhole
+	 * 
+	 * @return the type id of Blackhole
+	 */
+	public static byte getBlackholeType() {
+		
+		return (byte) getValidPlaysSize();
+	}
+	
+	/**
+	 * Method that returns the number of type ids, i.e. the valid plays plus Blackhole
+	 * 
+	 * @return the number of type ids
+	 */
+	public static int getTypesSize() {
+		
+		return getValidPlaysSize() + 1;
+	}
+	
 	/**
 	 * Method that returns the size of the validPlays array
 	 * 
@@ -104,7 +151,46 @@ public class ValidPlaysLibrary {
 	}
 	
 	/**
-	 * Method that forms an explanation for why a play defeats another
+	 * Method that returns the explanation for why a play defeats another
+	 * 
+	 * The explanations are all built once (see initializeExplanations) so this is a lookup, even for Blackhole
+	 * 
+	 * @param winningPlay index of the winning play in the validPlays array, or -1 for Blackhole
+	 * @param losingPlay index of the losing play in the validPlays array, or -1 for Blackhole
+	 * @return a String explaining why a play defeats another, or null if winningPlay does not defeat losingPlay
+	 */
+	public static String getExplanationBasedOnPlays(int winningPlay, int losingPlay) {
+		
+		byte winningType = winningPlay == -1 ? getBlackholeType() : (byte) winningPlay;
+		byte losingType = losingPlay == -1 ? getBlackholeType() : (byte) losingPlay;
+		
+		return getExplanationOfTypes(winningType, losingType);
+	}
+	
+	/**
+	 * Method that returns the explanation of every collision won by a Blackhole
+	 * 
+	 * @return the explanation of a collision won by a Blackhole
+	 */
+	public static String getBlackholeExplanation() {
+		
+		return BLACKHOLE_EXPLANATION;
+	}
+	
+	/**
+	 * Method that returns the explanation for why a throw of the given type defeats one of the other type
+	 * 
+	 * @param winningType type id (see getTypeOf) of the winning throw
+	 * @param losingType type id (see getTypeOf) of the losing throw
+	 * @return a String explaining why a play defeats another, or null if winningType does not defeat losingType
+	 */
+	public static String getExplanationOfTypes(byte winningType, byte losingType) {
+		
+		return explanations[winningType][losingType];
+	}
+	
+	/**
+	 * Method that forms the explanation of every collision that has a winner
 	 * 
 	 * Looks for how what is the index of the losing play RELATIVE to the WINNING PLAY,
 	 * taking advantage of the special ordering of the validPlays and actions array.
@@ -123,42 +209,46 @@ public class ValidPlaysLibrary {
 	 *  
 	 *  	-In the case above, Lizard 'poisons' Spock
 	 *  
-	 * @param winningPlay
-	 * @param losingPlay
-	 * @return a String explaining why a play defeats another
+	 * The explanations are interned, so every collision between the same two types shares the same String
+	 * 
+	 * @return the explanations table, indexed by winning and losing type ids
 	 */
-	public static String getExplanationBasedOnPlays(int winningPlay, int losingPlay) {
-
-		if(winningPlay == -1) {
-			
-			return "Blackhole destroys everything";
-		}
-		
-		int distanceFromWin = -1;
-		
-		int initial = winningPlay;
+	private static String[][] initializeExplanations() {
 		
 		int size = getValidPlaysSize();
+		int blackhole = getBlackholeType();
+		
+		String[][] table = new String[getTypesSize()][getTypesSize()];
 		
-		while(initial != losingPlay) {
+		for(int winningPlay = 0; winningPlay < size; winningPlay++) {
 			
-			initial += 2;
+			int losingPlay = winningPlay;
 			
-			if (initial >= size) {
+			for(int distanceFromWin = 0; distanceFromWin < actions[winningPlay].length; distanceFromWin++) {
 				
-				initial -= size;
+				losingPlay += 2;
+				
+				if (losingPlay >= size) {
+					
+					losingPlay -= size;
+				}
+				
+				String action = actions[winningPlay][distanceFromWin];
+				String winningPlayDescription = getPlayDescription(winningPlay);
+				String losingPlayDescription = getPlayDescription(losingPlay);
+				
+				String explanation = String.format("%s %s %s", winningPlayDescription, action, losingPlayDescription);
+				
+				table[winningPlay][losingPlay] = explanation.intern();
 			}
-			
-			distanceFromWin++;
 		}
 		
-		String action = actions[winningPlay][distanceFromWin];
-		String winningPlayDescription = getPlayDescription(winningPlay);
-		String losingPlayDescription = getPlayDescription(losingPlay);
-		
-		String explanation = String.format("%s %s %s", winningPlayDescription, action, losingPlayDescription);
+		for(int losingType = 0; losingType < table.length; losingType++) {
+			
+			table[blackhole][losingType] = BLACKHOLE_EXPLANATION;
+		}
 		
-		return explanation;
+		return table;
 	}
 	
 	public static String getAllExplanations() {
@@ -0,0 +1,264 @@
+package replay;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Static utility class that describes the binary formats of the replays: the replay log, shared by the ReplayRecorder
+ * that writes it and the ReplayPlayer that reads it, and the seekable replay, shared by the SeekableReplayWriter and
+ * the SeekableReplayReader
+ *
+ * A log starts with a header:
+ *   the magic number (int, "RPSR"), the version (unsigned short), the width and height of the arena and the number
+ *   of throws (varints), followed by every throw in the order of the WorldStore: its play (the char as a varint,
+ *   e.g. 'r' or 'h', a single byte before version 3), its position and speed (zigzag varints) and its width and
+ *   height (doubles)
+ *
+ * And continues with records, each a tag (byte) and the number of ticks since the previous record (varlong):
+ *   COLLISION: the index of the winner and of the loser (varints)
+ *   ARENA_SIZE: the new width and height of the arena (varints)
+ *   STEP_SETTINGS (since version 2): the new time step (varint) and whether collisions are continuous (byte)
+ *   GROWTH (since version 3): the index of the winner of the collision just before (varint) and its width and height
+ *   once it has grown (doubles), only for throws recorded with a view, whose growth depends on the font they are
+ *   measured with. Throws without a view grow by Simulation.WINNER_GROWTH, which the player does itself
+ *   END: nothing, the tick of the record is the last tick recorded
+ *
+ * The size of the arena starts out as in the header, and the step settings as in a Simulation that was just created
+ * (a time step of 1 and discrete collisions), until a record changes them. Ticks without collisions or changes take
+ * no space at all, and a collision usually takes 4 to 6 bytes
+ *
+ * A seekable replay starts with the magic number (int, "RPSK"), the version (unsigned short) and the keyframe interval
+ * (int), continues with a frame for every tick from 0 on, each a tag (byte) followed by:
+ *   KEYFRAME (every tick that is a multiple of the interval): the width and height of the arena (varints), the time
+ *   step (varint) and whether collisions are continuous (byte) since version 3, and the number of throws (varint),
+ *   then every throw as in the header of a log (its play a single byte before version 2)
+ *   DELTA (every other tick): the width and height of the arena (varints), the number of throws removed and their
+ *   indices before the tick, each as the gap from the previous one (varints), the number of throws that changed size
+ *   and, for each, its index after the tick (varint) and its width and height (doubles), then how much every throw
+ *   left moved since the previous tick (zigzag varints)
+ *   STEP_SETTINGS (since version 3, before the DELTA of a tick stepped with other settings than the previous one):
+ *   the time step (varint) and whether collisions are continuous (byte), followed by the tag of the frame itself
+ * The settings are the ones the tick was stepped with, a time step of 1 and discrete collisions before version 3
+ * and ends with a trailer: the END tag, the last tick (long), the number of keyframes (int) and the offset of each
+ * (longs), and finally the offset of the trailer (long) as the last 8 bytes of the file, so a reader finds the
+ * keyframe of any tick without scanning the frames. Offsets are from the start of the file and the file can be of any
+ * size, but each keyframe and the deltas up to the next one (a segment, mapped at once by the reader) must fit in 2GB
+ * @author Luiz do Valle
+ *
+ */
+public class ReplayFormat {
+
+	/**
+	 * The first four bytes of every replay log ("RPSR")
+	 */
+	public static final int MAGIC = 0x52505352;
+	/**
+	 * The version of the format written by the ReplayRecorder, increased whenever the format changes
+	 */
+	public static final int VERSION = 3;
+	/**
+	 * The tag of the record that closes the log
+	 */
+	public static final byte END = 0;
+	/**
+	 * The tag of the record of a collision
+	 */
+	public static final byte COLLISION = 1;
+	/**
+	 * The tag of the record of the arena changing size
+	 */
+	public static final byte ARENA_SIZE = 2;
+	/**
+	 * The tag of the record of the time step or the collision mode changing, in both formats
+	 */
+	public static final byte STEP_SETTINGS = 5;
+	/**
+	 * The tag of the record of the extents of a winner once it has grown
+	 */
+	public static final byte GROWTH = 6;
+	/**
+	 * The first four bytes of every seekable replay ("RPSK")
+	 */
+	public static final int SEEKABLE_MAGIC = 0x5250534B;
+	/**
+	 * The version of the seekable format written by the SeekableReplayWriter
+	 */
+	public static final int SEEKABLE_VERSION = 3;
+	/**
+	 * The tag of a frame holding the full state of the throws
+	 */
+	public static final byte KEYFRAME = 3;
+	/**
+	 * The tag of a frame holding the changes since the previous tick
+	 */
+	public static final byte DELTA = 4;
+
+	/**
+	 * Private constructor, since the class only has static members
+	 */
+	private ReplayFormat() {
+
+	}
+
+	/**
+	 * Method that writes a non-negative number in as few bytes as it needs, 7 bits per byte
+	 * @param output where the number is written
+	 * @param value the number, which must not be negative
+	 * @throws IOException if the output fails
+	 */
+	public static void writeVarLong(DataOutput output, long value) throws IOException {
+
+		while((value & ~0x7FL) != 0) {
+
+			output.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		output.writeByte((int) value);
+	}
+
+	/**
+	 * Method that reads a number written by writeVarLong
+	 * @param input where the number is read from
+	 * @return the number
+	 * @throws IOException if the input fails or ends before the number does
+	 */
+	public static long readVarLong(DataInput input) throws IOException {
+
+		long value = 0;
+
+		for(int shift = 0; shift < 64; shift += 7) {
+
+			int next = input.readUnsignedByte();
+
+			value |= (long) (next & 0x7F) << shift;
+
+			if((next & 0x80) == 0) {
+
+				return value;
+			}
+		}
+
+		throw new IOException("Malformed variable length number");
+	}
+
+	/**
+	 * Method that reads a number written by writeVarLong from the position of the given buffer, advancing it
+	 * @param buffer where the number is read from (e.g. a MappedByteBuffer)
+	 * @return the number
+	 * @throws IOException if the buffer ends before the number does or the number is malformed
+	 */
+	public static long readVarLong(ByteBuffer buffer) throws IOException {
+
+		long value = 0;
+
+		try {
+
+			for(int shift = 0; shift < 64; shift += 7) {
+
+				int next = buffer.get() & 0xFF;
+
+				value |= (long) (next & 0x7F) << shift;
+
+				if((next & 0x80) == 0) {
+
+					return value;
+				}
+			}
+
+		} catch(BufferUnderflowException e) {
+
+			throw new IOException("Truncated variable length number", e);
+		}
+
+		throw new IOException("Malformed variable length number");
+	}
+
+	/**
+	 * Method that writes a non-negative int in as few bytes as it needs
+	 * @param output where the number is written
+	 * @param value the number, which must not be negative
+	 * @throws IOException if the output fails
+	 */
+	public static void writeVarInt(DataOutput output, int value) throws IOException {
+
+		writeVarLong(output, value);
+	}
+
+	/**
+	 * Method that reads a number written by writeVarInt
+	 * @param input where the number is read from
+	 * @return the number
+	 * @throws IOException if the input fails, ends before the number does or the number does not fit in an int
+	 */
+	public static int readVarInt(DataInput input) throws IOException {
+
+		long value = readVarLong(input);
+
+		if(value < 0 || value > Integer.MAX_VALUE) {
+
+			throw new IOException("Variable length number out of range: " + value);
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Method that reads a number written by writeVarInt from the position of the given buffer, advancing it
+	 * @param buffer where the number is read from
+	 * @return the number
+	 * @throws IOException if the buffer ends before the number does or the number does not fit in an int
+	 */
+	public static int readVarInt(ByteBuffer buffer) throws IOException {
+
+		long value = readVarLong(buffer);
+
+		if(value < 0 || value > Integer.MAX_VALUE) {
+
+			throw new IOException("Variable length number out of range: " + value);
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Method that writes an int that may be negative (e.g. a speed) in as few bytes as its magnitude needs, by
+	 * interleaving the negative numbers with the positive ones (zigzag encoding)
+	 * @param output where the number is written
+	 * @param value the number
+	 * @throws IOException if the output fails
+	 */
+	public static void writeSignedVarInt(DataOutput output, int value) throws IOException {
+
+		writeVarLong(output, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Method that reads a number written by writeSignedVarInt
+	 * @param input where the number is read from
+	 * @return the number
+	 * @throws IOException if the input fails or ends before the number does
+	 */
+	public static int readSignedVarInt(DataInput input) throws IOException {
+
+		int zigzag = (int) readVarLong(input);
+
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+	/**
+	 * Method that reads a number written by writeSignedVarInt from the position of the given buffer, advancing it
+	 * @param buffer where the number is read from
+	 * @return the number
+	 * @throws IOException if the buffer ends before the number does
+	 */
+	public static int readSignedVarInt(ByteBuffer buffer) throws IOException {
+
+		int zigzag = (int) readVarLong(buffer);
+
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+}
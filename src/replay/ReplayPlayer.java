@@ -0,0 +1,384 @@
+package replay;
+
+import java.awt.font.FontRenderContext;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import arena.ReplaySource;
+import arena.Simulation;
+import game_throws.GameThrow;
+import game_throws.ThrowFactory;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that plays a replay log written by the ReplayRecorder: creates a Simulation holding the throws as they were
+ * when the recording started and hands it the recorded collisions tick by tick, so the game plays out again without
+ * detecting any collision
+ *
+ * The simulation can be stepped as fast as the CPU allows with playToEnd(), or handed to a BattleArena (created with
+ * views) to watch the game again. The log is read as the ticks need it, so a replay of any length plays in constant
+ * memory
+ *
+ * A log whose recorder was never closed (e.g. the game crashed) plays up to the last record written
+ * @author Luiz do Valle
+ *
+ */
+public class ReplayPlayer implements ReplaySource, Closeable {
+
+	/**
+	 * The size of the buffer in front of the input
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Where the log is read from
+	 */
+	private DataInputStream input;
+	/**
+	 * The version of the format the log was written in
+	 */
+	private int version;
+	/**
+	 * The size of the arena at the current tick
+	 */
+	private int width;
+	private int height;
+	/**
+	 * The step settings at the current tick
+	 */
+	private int timeStep;
+	private boolean continuousCollisions;
+	/**
+	 * The state of the throws when the recording started, in the order of the WorldStore
+	 */
+	private int count;
+	private char[] plays;
+	private int[] xCoords;
+	private int[] yCoords;
+	private int[] xSpeeds;
+	private int[] ySpeeds;
+	private double[] widths;
+	private double[] heights;
+	/**
+	 * The record read ahead, which belongs to a tick that has not been stepped yet
+	 */
+	private byte pendingTag;
+	private long pendingTick;
+	private int pendingFirst;
+	private int pendingSecond;
+	private double pendingWidth;
+	private double pendingHeight;
+	/**
+	 * The simulation the log is played into, null until it is created
+	 */
+	private Simulation simulation;
+
+	/**
+	 * Constructor for the class that reads the header of the log
+	 * @param input where the log is read from, closed along with the player
+	 * @throws IOException if the input fails or is not a replay log of a supported version
+	 */
+	public ReplayPlayer(InputStream input) throws IOException {
+
+		this.input = new DataInputStream(new BufferedInputStream(input, BUFFER_SIZE));
+		this.timeStep = 1;
+
+		readHeader();
+		readRecord();
+	}
+
+	/**
+	 * Method that creates the simulation the log is played into, with throws that have no view
+	 * @param judge the Judge of the recorded game, which must know every play in the log
+	 * @return the simulation, at tick 0 and with the throws as they were when the recording started
+	 */
+	public Simulation createSimulation(Judge judge) {
+
+		return createSimulation(judge, null);
+	}
+
+	/**
+	 * Method that creates the simulation the log is played into, giving every throw a view when a context is given
+	 * so that the simulation can be displayed (e.g. by a BattleArena)
+	 * The views are only drawn: the throws keep the extents they were recorded with, whatever the font on this machine
+	 * @param judge the Judge of the recorded game, which must know every play in the log
+	 * @param context the context used to measure the text of the throws, or null for throws without a view
+	 * @return the simulation, at tick 0 and with the throws as they were when the recording started
+	 */
+	public Simulation createSimulation(Judge judge, FontRenderContext context) {
+
+		if(simulation != null) {
+
+			throw new IllegalStateException("A replay can only be played into one simulation");
+		}
+
+		WorldStore world = new WorldStore(count);
+
+		for(int i = 0; i < count; i++) {
+
+			byte type = judge.getTypeOf(plays[i]);
+
+			if(type < 0) {
+
+				throw new IllegalArgumentException("The Judge does not know the play '" + plays[i] + "' of the replay");
+			}
+
+			world.add(xCoords[i], yCoords[i], xSpeeds[i], ySpeeds[i], widths[i], heights[i], type);
+
+			if(context != null) {
+
+				world.setView(i, createView(judge, type, i, context));
+			}
+		}
+
+		simulation = new Simulation(world, width, height, judge);
+		simulation.setReplaySource(this);
+
+		return simulation;
+	}
+
+	/**
+	 * Method that steps the simulation as fast as the CPU allows until the last recorded tick
+	 * @return the number of collisions resolved
+	 */
+	public long playToEnd() {
+
+		if(simulation == null) {
+
+			throw new IllegalStateException("The simulation has not been created");
+		}
+
+		long collisions = 0;
+
+		while(!isFinished()) {
+
+			collisions += simulation.step();
+		}
+
+		return collisions;
+	}
+
+	/**
+	 * Method that checks whether the simulation has reached the last recorded tick
+	 * @return true if every recorded tick has been played, false otherwise
+	 */
+	public boolean isFinished() {
+
+		return simulation != null && pendingTag == ReplayFormat.END && simulation.getTickCount() >= pendingTick;
+	}
+
+	/**
+	 * Method that returns the version of the format the log was written in
+	 * @return the version of the log
+	 */
+	public int getVersion() {
+
+		return version;
+	}
+
+	/**
+	 * Method that returns the number of throws when the recording started
+	 * @return the initial number of throws
+	 */
+	public int getInitialCount() {
+
+		return count;
+	}
+
+	@Override
+	public void beginTick(Simulation simulation, long tick) {
+
+		while((pendingTag == ReplayFormat.ARENA_SIZE || pendingTag == ReplayFormat.STEP_SETTINGS) && pendingTick <= tick) {
+
+			if(pendingTag == ReplayFormat.ARENA_SIZE) {
+
+				width = pendingFirst;
+				height = pendingSecond;
+
+			} else {
+
+				timeStep = pendingFirst;
+				continuousCollisions = pendingSecond != 0;
+			}
+
+			readRecord();
+		}
+
+		//Wins over the size of whatever displays the replay, so the throws wrap where they did when recorded
+		simulation.setArenaSize(width, height);
+		simulation.setTimeStep(timeStep);
+		simulation.setContinuousCollisions(continuousCollisions);
+	}
+
+	@Override
+	public boolean nextCollision(long tick, int[] collision) {
+
+		if(pendingTag != ReplayFormat.COLLISION || pendingTick > tick) {
+
+			return false;
+		}
+
+		if(pendingTick < tick) {
+
+			throw new IllegalStateException("The replay expected tick " + pendingTick + " but the simulation is at tick " + tick);
+		}
+
+		collision[0] = pendingFirst;
+		collision[1] = pendingSecond;
+
+		readRecord();
+
+		return true;
+	}
+
+	@Override
+	public void throwGrown(Simulation simulation, long tick, int index) {
+
+		if(pendingTag != ReplayFormat.GROWTH || pendingTick != tick) {
+
+			//Recorded without a view, so it grew by Simulation.WINNER_GROWTH as it just did
+			return;
+		}
+
+		if(pendingFirst != index) {
+
+			throw new IllegalStateException("The replay expected throw " + pendingFirst + " to grow at tick " + tick + " but throw " + index + " did");
+		}
+
+		simulation.getWorld().setExtents(index, pendingWidth, pendingHeight);
+
+		readRecord();
+	}
+
+	/**
+	 * Method that closes the log
+	 * @throws IOException if the input cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+
+		input.close();
+	}
+
+	/**
+	 * Helper method that reads the magic number, the version, the size of the arena and the state of every throw
+	 * @throws IOException if the input fails or is not a replay log of a supported version
+	 */
+	private void readHeader() throws IOException {
+
+		if(input.readInt() != ReplayFormat.MAGIC) {
+
+			throw new IOException("Not a replay log");
+		}
+
+		version = input.readUnsignedShort();
+
+		if(version > ReplayFormat.VERSION) {
+
+			throw new IOException("Unsupported replay log version " + version + ", the newest supported is " + ReplayFormat.VERSION);
+		}
+
+		width = ReplayFormat.readVarInt(input);
+		height = ReplayFormat.readVarInt(input);
+		count = ReplayFormat.readVarInt(input);
+
+		plays = new char[count];
+		xCoords = new int[count];
+		yCoords = new int[count];
+		xSpeeds = new int[count];
+		ySpeeds = new int[count];
+		widths = new double[count];
+		heights = new double[count];
+
+		for(int i = 0; i < count; i++) {
+
+			plays[i] = (char) (version < 3 ? input.readUnsignedByte() : ReplayFormat.readVarInt(input));
+			xCoords[i] = ReplayFormat.readSignedVarInt(input);
+			yCoords[i] = ReplayFormat.readSignedVarInt(input);
+			xSpeeds[i] = ReplayFormat.readSignedVarInt(input);
+			ySpeeds[i] = ReplayFormat.readSignedVarInt(input);
+			widths[i] = input.readDouble();
+			heights[i] = input.readDouble();
+		}
+	}
+
+	/**
+	 * Helper method that reads the next record into the pending fields
+	 * A log that ends without the closing record is treated as if it was closed at its last record
+	 */
+	private void readRecord() {
+
+		try {
+
+			byte tag = input.readByte();
+			long tick = pendingTick + ReplayFormat.readVarLong(input);
+
+			if(tag == ReplayFormat.COLLISION || tag == ReplayFormat.ARENA_SIZE) {
+
+				pendingFirst = ReplayFormat.readVarInt(input);
+				pendingSecond = ReplayFormat.readVarInt(input);
+
+			} else if(tag == ReplayFormat.STEP_SETTINGS) {
+
+				pendingFirst = Math.max(1, ReplayFormat.readVarInt(input));
+				pendingSecond = input.readUnsignedByte();
+
+			} else if(tag == ReplayFormat.GROWTH) {
+
+				pendingFirst = ReplayFormat.readVarInt(input);
+				pendingWidth = input.readDouble();
+				pendingHeight = input.readDouble();
+
+			} else if(tag != ReplayFormat.END) {
+
+				throw new IOException("Unknown replay record " + tag);
+			}
+
+			pendingTag = tag;
+			pendingTick = tick;
+
+		} catch(EOFException e) {
+
+			pendingTag = ReplayFormat.END;
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Helper method that creates the view of the throw at the given index, enlarged as many times as the throw had
+	 * won when the recording started so that it is drawn about as large as it was recorded
+	 * @param judge the Judge of the recorded game
+	 * @param type the type id of the throw
+	 * @param index the index of the throw
+	 * @param context the context used to measure the text of the throw
+	 * @return the view, or null if the play has no throw class (e.g. the extra plays of a custom RuleSet)
+	 */
+	private GameThrow createView(Judge judge, byte type, int index, FontRenderContext context) {
+
+		String name = type == judge.getBlackholeType() ? "Blackhole" : judge.getRuleSet().getPlayDescription(type);
+		GameThrow view = ThrowFactory.create(name, xCoords[index], yCoords[index], xSpeeds[index], ySpeeds[index], context);
+
+		if(view == null || view.getWidth() <= 0) {
+
+			return view;
+		}
+
+		long wins = Math.round(Math.log(widths[index] / view.getWidth()) / Math.log(Simulation.WINNER_GROWTH));
+
+		for(long win = 0; win < wins; win++) {
+
+			view.increaseSize(Simulation.WINNER_GROWTH);
+		}
+
+		return view;
+	}
+}
@@ -0,0 +1,254 @@
+package replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import arena.Simulation;
+import arena.SimulationListener;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that records a game into a replay log (see ReplayFormat): the state of every throw when the recording starts,
+ * then every collision resolved and every change in the size of the arena or in the step settings, which is all the ReplayPlayer needs to
+ * play the game out again without detecting any collision. The extents of winners that have a view are recorded too,
+ * since they grow with the font they are measured with
+ *
+ * Positions are not recorded after the header, since moving and wrapping the throws is deterministic given the size
+ * of the arena, so a tick without collisions costs nothing and the log grows with the collisions only
+ *
+ * NOTE: Must be created and closed between ticks, on the thread stepping the simulation. Since the listener methods
+ * cannot throw an IOException, a failing output is reported as an UncheckedIOException from the tick
+ * @author Luiz do Valle
+ *
+ */
+public class ReplayRecorder implements SimulationListener, Closeable {
+
+	/**
+	 * The size of the buffer in front of the output, so a record is not a write to the output
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The simulation being recorded
+	 */
+	private Simulation simulation;
+	/**
+	 * Where the log is written
+	 */
+	private DataOutputStream output;
+	/**
+	 * The tick count of the simulation when the recording started, ticks are recorded relative to it
+	 */
+	private long firstTick;
+	/**
+	 * The tick of the last record written, relative to firstTick
+	 */
+	private long lastTick;
+	/**
+	 * The size of the arena as last recorded
+	 */
+	private int width;
+	private int height;
+	/**
+	 * The step settings of the simulation as last recorded
+	 */
+	private int timeStep;
+	private boolean continuousCollisions;
+	/**
+	 * The number of collisions recorded
+	 */
+	private long collisionCount;
+	/**
+	 * Whether the log has been closed
+	 */
+	private boolean closed;
+
+	/**
+	 * Constructor for the class that writes the header of the log and starts recording the given simulation
+	 * @param simulation the simulation to be recorded
+	 * @param output where the log is written, closed along with the recorder
+	 * @throws IOException if the header cannot be written
+	 */
+	public ReplayRecorder(Simulation simulation, OutputStream output) throws IOException {
+
+		this.simulation = simulation;
+		this.output = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+		this.firstTick = simulation.getTickCount();
+		this.width = simulation.getWidth();
+		this.height = simulation.getHeight();
+		this.timeStep = 1;
+
+		writeHeader();
+
+		simulation.addSimulationListener(this);
+	}
+
+	@Override
+	public void tickStarted(Simulation simulation, long tick) {
+
+		try {
+
+			if(simulation.getWidth() != width || simulation.getHeight() != height) {
+
+				width = simulation.getWidth();
+				height = simulation.getHeight();
+
+				writeRecordStart(ReplayFormat.ARENA_SIZE, tick);
+				ReplayFormat.writeVarInt(output, width);
+				ReplayFormat.writeVarInt(output, height);
+			}
+
+			if(simulation.getTimeStep() != timeStep || simulation.isContinuousCollisions() != continuousCollisions) {
+
+				timeStep = simulation.getTimeStep();
+				continuousCollisions = simulation.isContinuousCollisions();
+
+				writeRecordStart(ReplayFormat.STEP_SETTINGS, tick);
+				ReplayFormat.writeVarInt(output, timeStep);
+				output.writeBoolean(continuousCollisions);
+			}
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void collisionResolved(Simulation simulation, long tick, int winner, int loser) {
+
+		try {
+
+			writeRecordStart(ReplayFormat.COLLISION, tick);
+			ReplayFormat.writeVarInt(output, winner);
+			ReplayFormat.writeVarInt(output, loser);
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+
+		collisionCount++;
+	}
+
+	@Override
+	public void throwGrown(Simulation simulation, long tick, int index) {
+
+		WorldStore world = simulation.getWorld();
+
+		//Throws without a view grow by Simulation.WINNER_GROWTH, which the player does itself
+		if(world.getView(index) == null) {
+
+			return;
+		}
+
+		try {
+
+			writeRecordStart(ReplayFormat.GROWTH, tick);
+			ReplayFormat.writeVarInt(output, index);
+			output.writeDouble(world.getWidths()[index]);
+			output.writeDouble(world.getHeights()[index]);
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void tickEnded(Simulation simulation, long tick, int collisions) {
+
+		//Nothing to record, the player moves the throws itself
+	}
+
+	/**
+	 * Method that returns the number of collisions recorded so far
+	 * @return the number of collisions recorded
+	 */
+	public long getCollisionCount() {
+
+		return collisionCount;
+	}
+
+	/**
+	 * Method that stops recording, writes the record that closes the log and closes the output
+	 * @throws IOException if the log cannot be finished
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if(closed) {
+
+			return;
+		}
+
+		closed = true;
+		simulation.removeSimulationListener(this);
+
+		try {
+
+			writeRecordStart(ReplayFormat.END, simulation.getTickCount());
+
+		} finally {
+
+			output.close();
+		}
+	}
+
+	/**
+	 * Helper method that writes the magic number, the version, the size of the arena and the state of every throw
+	 * @throws IOException if the output fails
+	 */
+	private void writeHeader() throws IOException {
+
+		WorldStore world = simulation.getWorld();
+		Judge judge = simulation.getJudge();
+
+		int count = world.getCount();
+		int[] xCoords = world.getXCoords();
+		int[] yCoords = world.getYCoords();
+		int[] xSpeeds = world.getXSpeeds();
+		int[] ySpeeds = world.getYSpeeds();
+		double[] widths = world.getWidths();
+		double[] heights = world.getHeights();
+		byte[] types = world.getTypes();
+
+		output.writeInt(ReplayFormat.MAGIC);
+		output.writeShort(ReplayFormat.VERSION);
+		ReplayFormat.writeVarInt(output, width);
+		ReplayFormat.writeVarInt(output, height);
+		ReplayFormat.writeVarInt(output, count);
+
+		for(int i = 0; i < count; i++) {
+
+			ReplayFormat.writeVarInt(output, judge.getPlayOf(types[i]));
+			ReplayFormat.writeSignedVarInt(output, xCoords[i]);
+			ReplayFormat.writeSignedVarInt(output, yCoords[i]);
+			ReplayFormat.writeSignedVarInt(output, xSpeeds[i]);
+			ReplayFormat.writeSignedVarInt(output, ySpeeds[i]);
+			output.writeDouble(widths[i]);
+			output.writeDouble(heights[i]);
+		}
+	}
+
+	/**
+	 * Helper method that writes the tag of a record and how many ticks passed since the previous one
+	 * @param tag the tag of the record
+	 * @param tick the tick of the simulation the record belongs to
+	 * @throws IOException if the output fails
+	 */
+	private void writeRecordStart(byte tag, long tick) throws IOException {
+
+		long relativeTick = tick - firstTick;
+
+		output.writeByte(tag);
+		ReplayFormat.writeVarLong(output, relativeTick - lastTick);
+
+		lastTick = relativeTick;
+	}
+}
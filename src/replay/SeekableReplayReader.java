@@ -0,0 +1,662 @@
+package replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import arena.Simulation;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that reads a seekable replay written by the SeekableReplayWriter, giving the state of the throws at any tick
+ * without running any of the game's logic (e.g. to scrub back and forth through a recorded game)
+ *
+ * The file is memory mapped a segment at a time, a segment being a keyframe and the deltas up to the next one, so the
+ * frames are decoded straight from the page cache with no copy into the heap and no read calls. Seeking finds the
+ * keyframe at or before the tick in the index of the trailer, maps its segment (once, the mapping is kept for later
+ * seeks) and decodes fewer than a keyframe interval of deltas from it, so its cost does not depend on how far into the
+ * game the tick is. Stepping to the next tick decodes a single frame
+ *
+ * Offsets are longs, so the file can be of any size as long as each segment fits in a MappedByteBuffer (2GB), which a
+ * smaller keyframe interval always achieves
+ *
+ * The state is held in arrays that are reused from tick to tick, so they must be copied if they are to be kept
+ * @author Luiz do Valle
+ *
+ */
+public class SeekableReplayReader implements Closeable {
+
+	/**
+	 * The size of the magic number, the version and the keyframe interval at the start of the file
+	 */
+	private static final int HEADER_SIZE = 10;
+
+	/**
+	 * The file the replay is read from
+	 */
+	private FileChannel channel;
+	/**
+	 * The version of the format the replay was written in
+	 */
+	private int version;
+	/**
+	 * The segments of the file mapped so far, the segment of keyframe k being at index k and null until needed
+	 */
+	private MappedByteBuffer[] segments;
+	/**
+	 * The view of the current segment the frames are decoded through, positioned at the frame of the next tick
+	 */
+	private ByteBuffer frames;
+	/**
+	 * The number of ticks between two keyframes
+	 */
+	private int keyframeInterval;
+	/**
+	 * The last tick recorded
+	 */
+	private long lastTick;
+	/**
+	 * The offset of every keyframe, the keyframe of tick t being at index t / keyframeInterval
+	 */
+	private long[] keyframeOffsets;
+	/**
+	 * The offset of the trailer, where the last segment ends
+	 */
+	private long trailerOffset;
+	/**
+	 * The tick the state is at, -1 before the first seek
+	 */
+	private long tick;
+	/**
+	 * The size of the arena at the current tick
+	 */
+	private int width;
+	private int height;
+	/**
+	 * The step settings the current tick was stepped with
+	 */
+	private int timeStep;
+	private boolean continuousCollisions;
+	/**
+	 * The state of the throws at the current tick
+	 */
+	private int count;
+	private char[] plays;
+	private int[] xCoords;
+	private int[] yCoords;
+	private int[] xSpeeds;
+	private int[] ySpeeds;
+	private double[] widths;
+	private double[] heights;
+
+	/**
+	 * Constructor for the class that opens the given file and reads its index, leaving the state at tick 0
+	 * @param path the file of the replay
+	 * @throws IOException if the file cannot be read, is not a seekable replay of a supported version or has a segment
+	 * over 2GB
+	 */
+	public SeekableReplayReader(Path path) throws IOException {
+
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		try {
+
+			readHeader();
+			readTrailer();
+
+		} catch(IOException | RuntimeException e) {
+
+			channel.close();
+			throw e;
+		}
+
+		segments = new MappedByteBuffer[keyframeOffsets.length];
+		plays = new char[0];
+		xCoords = new int[0];
+		yCoords = new int[0];
+		xSpeeds = new int[0];
+		ySpeeds = new int[0];
+		widths = new double[0];
+		heights = new double[0];
+		tick = -1;
+
+		seek(0);
+	}
+
+	/**
+	 * Method that brings the state to the given tick
+	 * @param target the tick, between 0 and getLastTick()
+	 */
+	public void seek(long target) {
+
+		if(target < 0 || target > lastTick) {
+
+			throw new IllegalArgumentException("Tick " + target + " is not between 0 and " + lastTick);
+		}
+
+		long keyframe = target / keyframeInterval;
+
+		//Decoding on from the current tick is cheaper than going back to the keyframe when both are in its interval
+		if(tick < 0 || target < tick || tick / keyframeInterval != keyframe) {
+
+			tick = keyframe * keyframeInterval - 1;
+		}
+
+		while(tick < target) {
+
+			readNextFrame();
+		}
+	}
+
+	/**
+	 * Method that brings the state to the next tick
+	 * @return true if there was a next tick, false if the state is already at the last tick
+	 */
+	public boolean next() {
+
+		if(tick >= lastTick) {
+
+			return false;
+		}
+
+		readNextFrame();
+
+		return true;
+	}
+
+	/**
+	 * Method that creates a Simulation holding the throws as they are at the current tick, without views, so the game
+	 * can be played on live from any point of the replay, with the time step and collision mode of the current tick
+	 * @param judge the Judge of the recorded game, which must know every play in the replay
+	 * @return the simulation
+	 */
+	public Simulation createSimulation(Judge judge) {
+
+		WorldStore world = new WorldStore(count);
+
+		for(int i = 0; i < count; i++) {
+
+			byte type = judge.getTypeOf(plays[i]);
+
+			if(type < 0) {
+
+				throw new IllegalArgumentException("The Judge does not know the play '" + plays[i] + "' of the replay");
+			}
+
+			world.add(xCoords[i], yCoords[i], xSpeeds[i], ySpeeds[i], widths[i], heights[i], type);
+		}
+
+		Simulation simulation = new Simulation(world, width, height, judge);
+
+		simulation.setTimeStep(timeStep);
+		simulation.setContinuousCollisions(continuousCollisions);
+
+		return simulation;
+	}
+
+	/**
+	 * Method that returns the tick the state is at
+	 * @return the current tick
+	 */
+	public long getTick() {
+
+		return tick;
+	}
+
+	/**
+	 * Method that returns the last tick recorded
+	 * @return the last tick
+	 */
+	public long getLastTick() {
+
+		return lastTick;
+	}
+
+	/**
+	 * Method that returns the number of ticks between two keyframes
+	 * @return the keyframe interval
+	 */
+	public int getKeyframeInterval() {
+
+		return keyframeInterval;
+	}
+
+	/**
+	 * Method that returns the width of the arena at the current tick
+	 * @return the width of the arena
+	 */
+	public int getWidth() {
+
+		return width;
+	}
+
+	/**
+	 * Method that returns the height of the arena at the current tick
+	 * @return the height of the arena
+	 */
+	public int getHeight() {
+
+		return height;
+	}
+
+	/**
+	 * Method that returns the number of ticks of movement the current tick was stepped with
+	 * @return the time step
+	 */
+	public int getTimeStep() {
+
+		return timeStep;
+	}
+
+	/**
+	 * Method that checks whether the current tick was stepped with continuous collisions
+	 * @return true if collisions were detected along the paths of the throws, false otherwise
+	 */
+	public boolean isContinuousCollisions() {
+
+		return continuousCollisions;
+	}
+
+	/**
+	 * Method that returns the number of throws at the current tick
+	 * @return the number of throws
+	 */
+	public int getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the plays of the throws (e.g. 'r' or 'h'), of which only the first getCount() are valid
+	 * @return the plays array
+	 */
+	public char[] getPlays() {
+
+		return plays;
+	}
+
+	/**
+	 * Method that returns the x coordinates of the bottom left corners of the throws
+	 * @return the x coordinates array
+	 */
+	public int[] getXCoords() {
+
+		return xCoords;
+	}
+
+	/**
+	 * Method that returns the y coordinates of the bottom left corners of the throws
+	 * @return the y coordinates array
+	 */
+	public int[] getYCoords() {
+
+		return yCoords;
+	}
+
+	/**
+	 * Method that returns the horizontal speeds of the throws
+	 * @return the horizontal speeds array
+	 */
+	public int[] getXSpeeds() {
+
+		return xSpeeds;
+	}
+
+	/**
+	 * Method that returns the vertical speeds of the throws
+	 * @return the vertical speeds array
+	 */
+	public int[] getYSpeeds() {
+
+		return ySpeeds;
+	}
+
+	/**
+	 * Method that returns the widths of the bounding boxes of the throws
+	 * @return the widths array
+	 */
+	public double[] getWidths() {
+
+		return widths;
+	}
+
+	/**
+	 * Method that returns the heights of the bounding boxes of the throws
+	 * @return the heights array
+	 */
+	public double[] getHeights() {
+
+		return heights;
+	}
+
+	/**
+	 * Method that closes the file
+	 * The mapped segments themselves are released once the reader is garbage collected
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+
+		channel.close();
+	}
+
+	/**
+	 * Helper method that reads the magic number, the version and the keyframe interval
+	 * @throws IOException if the file is not a seekable replay of a supported version
+	 */
+	private void readHeader() throws IOException {
+
+		if(channel.size() < HEADER_SIZE) {
+
+			throw new IOException("Not a seekable replay");
+		}
+
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+
+		if(header.getInt() != ReplayFormat.SEEKABLE_MAGIC) {
+
+			throw new IOException("Not a seekable replay");
+		}
+
+		version = header.getShort() & 0xFFFF;
+
+		if(version > ReplayFormat.SEEKABLE_VERSION) {
+
+			throw new IOException("Unsupported seekable replay version " + version + ", the newest supported is " + ReplayFormat.SEEKABLE_VERSION);
+		}
+
+		keyframeInterval = header.getInt();
+
+		if(keyframeInterval <= 0) {
+
+			throw new IOException("Invalid keyframe interval " + keyframeInterval);
+		}
+	}
+
+	/**
+	 * Helper method that reads the last tick and the offsets of the keyframes from the trailer
+	 * @throws IOException if the replay was not closed or the trailer is corrupt
+	 */
+	private void readTrailer() throws IOException {
+
+		long size = channel.size();
+
+		try {
+
+			trailerOffset = channel.map(FileChannel.MapMode.READ_ONLY, size - Long.BYTES, Long.BYTES).getLong();
+
+			if(trailerOffset < HEADER_SIZE || trailerOffset >= size - Long.BYTES || size - trailerOffset > Integer.MAX_VALUE) {
+
+				throw new IOException("Seekable replay without a valid trailer, it may not have been closed");
+			}
+
+			ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, trailerOffset, size - Long.BYTES - trailerOffset);
+
+			if(trailer.get() != ReplayFormat.END) {
+
+				throw new IOException("Seekable replay without a valid trailer, it may not have been closed");
+			}
+
+			lastTick = trailer.getLong();
+			keyframeOffsets = new long[trailer.getInt()];
+
+			for(int i = 0; i < keyframeOffsets.length; i++) {
+
+				keyframeOffsets[i] = trailer.getLong();
+			}
+
+		} catch(BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+
+			throw new IOException("Seekable replay with a corrupt trailer", e);
+		}
+
+		if(lastTick < 0 || keyframeOffsets.length != lastTick / keyframeInterval + 1) {
+
+			throw new IOException("Seekable replay whose keyframes do not match its ticks");
+		}
+
+		for(int i = 0; i < keyframeOffsets.length; i++) {
+
+			long start = keyframeOffsets[i];
+			long end = getSegmentEnd(i);
+
+			if(start < HEADER_SIZE || end <= start) {
+
+				throw new IOException("Seekable replay with a corrupt keyframe index");
+			}
+
+			if(end - start > Integer.MAX_VALUE) {
+
+				throw new IOException("Seekable replay with a segment over 2GB, it must be written with a smaller keyframe interval");
+			}
+		}
+	}
+
+	/**
+	 * Helper method that returns where the segment of the given keyframe ends
+	 * @param keyframe the index of the keyframe
+	 * @return the offset of the next keyframe, or of the trailer for the last one
+	 */
+	private long getSegmentEnd(int keyframe) {
+
+		return keyframe + 1 < keyframeOffsets.length ? keyframeOffsets[keyframe + 1] : trailerOffset;
+	}
+
+	/**
+	 * Helper method that decodes the frame of the tick after the current one, moving to the segment of its keyframe
+	 * first if it has one
+	 */
+	private void readNextFrame() {
+
+		long nextTick = tick + 1;
+
+		if(nextTick % keyframeInterval == 0) {
+
+			frames = getSegment((int) (nextTick / keyframeInterval)).duplicate();
+		}
+
+		readFrame();
+		tick = nextTick;
+	}
+
+	/**
+	 * Helper method that returns the segment of the given keyframe, mapping it the first time it is needed
+	 * @param keyframe the index of the keyframe
+	 * @return the mapped segment, positioned at its keyframe
+	 */
+	private MappedByteBuffer getSegment(int keyframe) {
+
+		if(segments[keyframe] == null) {
+
+			long start = keyframeOffsets[keyframe];
+
+			try {
+
+				segments[keyframe] = channel.map(FileChannel.MapMode.READ_ONLY, start, getSegmentEnd(keyframe) - start);
+
+			} catch(IOException e) {
+
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		return segments[keyframe];
+	}
+
+	/**
+	 * Helper method that decodes the frame at the position of the buffer into the state
+	 */
+	private void readFrame() {
+
+		try {
+
+			byte tag = frames.get();
+
+			if(tag == ReplayFormat.STEP_SETTINGS) {
+
+				timeStep = Math.max(1, ReplayFormat.readVarInt(frames));
+				continuousCollisions = frames.get() != 0;
+				tag = frames.get();
+			}
+
+			if(tag == ReplayFormat.KEYFRAME) {
+
+				readKeyframe();
+
+			} else if(tag == ReplayFormat.DELTA) {
+
+				readDelta();
+
+			} else {
+
+				throw new IOException("Unexpected seekable replay frame " + tag);
+			}
+
+		} catch(BufferUnderflowException e) {
+
+			throw new UncheckedIOException(new IOException("Truncated seekable replay frame", e));
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Helper method that decodes the full state of the throws
+	 * @throws IOException if the frame is malformed
+	 */
+	private void readKeyframe() throws IOException {
+
+		width = ReplayFormat.readVarInt(frames);
+		height = ReplayFormat.readVarInt(frames);
+
+		if(version < 3) {
+
+			timeStep = 1;
+			continuousCollisions = false;
+
+		} else {
+
+			timeStep = Math.max(1, ReplayFormat.readVarInt(frames));
+			continuousCollisions = frames.get() != 0;
+		}
+
+		count = ReplayFormat.readVarInt(frames);
+
+		if(plays.length < count) {
+
+			plays = new char[count];
+			xCoords = new int[count];
+			yCoords = new int[count];
+			xSpeeds = new int[count];
+			ySpeeds = new int[count];
+			widths = new double[count];
+			heights = new double[count];
+		}
+
+		for(int i = 0; i < count; i++) {
+
+			plays[i] = (char) (version < 2 ? frames.get() & 0xFF : ReplayFormat.readVarInt(frames));
+			xCoords[i] = ReplayFormat.readSignedVarInt(frames);
+			yCoords[i] = ReplayFormat.readSignedVarInt(frames);
+			xSpeeds[i] = ReplayFormat.readSignedVarInt(frames);
+			ySpeeds[i] = ReplayFormat.readSignedVarInt(frames);
+			widths[i] = frames.getDouble();
+			heights[i] = frames.getDouble();
+		}
+	}
+
+	/**
+	 * Helper method that applies the changes of a tick to the state
+	 * @throws IOException if the frame is malformed
+	 */
+	private void readDelta() throws IOException {
+
+		width = ReplayFormat.readVarInt(frames);
+		height = ReplayFormat.readVarInt(frames);
+
+		int removedCount = ReplayFormat.readVarInt(frames);
+
+		if(removedCount > 0) {
+
+			removeThrows(removedCount);
+		}
+
+		int grown = ReplayFormat.readVarInt(frames);
+
+		for(int g = 0; g < grown; g++) {
+
+			int index = ReplayFormat.readVarInt(frames);
+
+			if(index >= count) {
+
+				throw new IOException("Seekable replay frame grows a throw that does not exist");
+			}
+
+			widths[index] = frames.getDouble();
+			heights[index] = frames.getDouble();
+		}
+
+		for(int i = 0; i < count; i++) {
+
+			xCoords[i] += ReplayFormat.readSignedVarInt(frames);
+			yCoords[i] += ReplayFormat.readSignedVarInt(frames);
+		}
+	}
+
+	/**
+	 * Helper method that removes the throws whose indices follow in the frame, keeping the order of the others the
+	 * way WorldStore.compact does
+	 * @param removedCount the number of throws removed
+	 * @throws IOException if an index does not exist
+	 */
+	private void removeThrows(int removedCount) throws IOException {
+
+		int kept = 0;
+		int next = ReplayFormat.readVarInt(frames);
+		int read = 1;
+
+		for(int i = 0; i < count; i++) {
+
+			if(i == next) {
+
+				if(read < removedCount) {
+
+					next += ReplayFormat.readVarInt(frames);
+					read++;
+
+				} else {
+
+					next = -1;
+				}
+
+				continue;
+			}
+
+			plays[kept] = plays[i];
+			xCoords[kept] = xCoords[i];
+			yCoords[kept] = yCoords[i];
+			xSpeeds[kept] = xSpeeds[i];
+			ySpeeds[kept] = ySpeeds[i];
+			widths[kept] = widths[i];
+			heights[kept] = heights[i];
+
+			kept++;
+		}
+
+		if(next != -1 || kept != count - removedCount) {
+
+			throw new IOException("Seekable replay frame removes a throw that does not exist");
+		}
+
+		count = kept;
+	}
+}
@@ -0,0 +1,438 @@
+package replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import arena.Simulation;
+import arena.SimulationListener;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that records a game into a seekable replay (see ReplayFormat): a frame for every tick holding where every
+ * throw is, so the SeekableReplayReader can jump to any tick and scrub through the game without running any of its
+ * logic
+ *
+ * Every keyframe interval ticks the full state of the throws is written, and every other tick only what changed since
+ * the previous one: the throws removed, the throws that grew and how far each throw moved, which is its speed unless
+ * it wrapped around an edge and so usually takes one byte per coordinate. The time step and the collision mode are
+ * written in every keyframe and whenever they change, so a game resumed from the replay is stepped the same way. The
+ * offsets of the keyframes are written at the end of the file, so seeking only decodes one keyframe and fewer than an
+ * interval of deltas
+ *
+ * NOTE: Must be created and closed between ticks, on the thread stepping the simulation. Recording keeps a copy of
+ * the positions and extents of the previous tick, so it costs a pass over the throws per tick but never allocates once
+ * the copies have grown to the size of the population. The file can be of any size, but a keyframe and the deltas up
+ * to the next one must stay under 2GB, since the reader maps them as one segment
+ * @author Luiz do Valle
+ *
+ */
+public class SeekableReplayWriter implements SimulationListener, Closeable {
+
+	/**
+	 * The size of the buffer in front of the file
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The simulation being recorded
+	 */
+	private Simulation simulation;
+	/**
+	 * Where the replay is written
+	 */
+	private DataOutputStream output;
+	/**
+	 * The stream under the buffer, whose count of bytes is the offset of the next frame plus what is still buffered
+	 */
+	private CountingOutputStream counter;
+	/**
+	 * The number of ticks between two keyframes
+	 */
+	private int keyframeInterval;
+	/**
+	 * The tick count of the simulation when the recording started, ticks are recorded relative to it
+	 */
+	private long firstTick;
+	/**
+	 * The last tick recorded, relative to firstTick
+	 */
+	private long lastTick;
+	/**
+	 * The offset of every keyframe written, in the order of the ticks
+	 */
+	private long[] keyframeOffsets;
+	private int keyframeCount;
+	/**
+	 * The positions and extents of the throws at the previous tick, in the order of the WorldStore at the time
+	 */
+	private int count;
+	private int[] previousXCoords;
+	private int[] previousYCoords;
+	private double[] previousWidths;
+	private double[] previousHeights;
+	/**
+	 * Whether each throw lost a collision during the current tick, in the order of the WorldStore at its start
+	 */
+	private boolean[] removed;
+	private int removedCount;
+	/**
+	 * The step settings of the simulation as last written
+	 */
+	private int timeStep;
+	private boolean continuousCollisions;
+	/**
+	 * Whether the replay has been closed
+	 */
+	private boolean closed;
+
+	/**
+	 * Constructor for the class that writes the header and a keyframe of the current state, and starts recording the
+	 * given simulation
+	 * @param simulation the simulation to be recorded
+	 * @param path the file the replay is written into, replaced if it exists
+	 * @param keyframeInterval the number of ticks between two keyframes, which trades the size of the file for how many
+	 * deltas a seek decodes
+	 * @throws IOException if the file cannot be written
+	 */
+	public SeekableReplayWriter(Simulation simulation, Path path, int keyframeInterval) throws IOException {
+
+		if(keyframeInterval <= 0) {
+
+			throw new IllegalArgumentException("The keyframe interval must be positive");
+		}
+
+		this.simulation = simulation;
+		this.counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+		this.output = new DataOutputStream(counter);
+		this.keyframeInterval = keyframeInterval;
+		this.firstTick = simulation.getTickCount();
+		this.keyframeOffsets = new long[16];
+		this.previousXCoords = new int[0];
+		this.previousYCoords = new int[0];
+		this.previousWidths = new double[0];
+		this.previousHeights = new double[0];
+		this.removed = new boolean[0];
+
+		output.writeInt(ReplayFormat.SEEKABLE_MAGIC);
+		output.writeShort(ReplayFormat.SEEKABLE_VERSION);
+		output.writeInt(keyframeInterval);
+
+		writeKeyframe();
+		rememberState();
+
+		simulation.addSimulationListener(this);
+	}
+
+	@Override
+	public void tickStarted(Simulation simulation, long tick) {
+
+		if(removed.length < count) {
+
+			removed = new boolean[count];
+		}
+
+		Arrays.fill(removed, 0, count, false);
+		removedCount = 0;
+	}
+
+	@Override
+	public void collisionResolved(Simulation simulation, long tick, int winner, int loser) {
+
+		removed[loser] = true;
+		removedCount++;
+	}
+
+	@Override
+	public void throwGrown(Simulation simulation, long tick, int index) {
+
+		//Nothing to record yet, the new extents are compared with the previous ones once the tick is over
+	}
+
+	@Override
+	public void tickEnded(Simulation simulation, long tick, int collisions) {
+
+		lastTick = tick - firstTick;
+
+		try {
+
+			if(lastTick % keyframeInterval == 0) {
+
+				writeKeyframe();
+
+			} else {
+
+				writeDelta();
+			}
+
+		} catch(IOException e) {
+
+			throw new UncheckedIOException(e);
+		}
+
+		rememberState();
+	}
+
+	/**
+	 * Method that returns the size of the replay written so far
+	 * @return the number of bytes written
+	 */
+	public long getSize() {
+
+		return counter.getCount();
+	}
+
+	/**
+	 * Method that stops recording, writes the trailer with the offsets of the keyframes and closes the file
+	 * @throws IOException if the replay cannot be finished
+	 */
+	@Override
+	public void close() throws IOException {
+
+		if(closed) {
+
+			return;
+		}
+
+		closed = true;
+		simulation.removeSimulationListener(this);
+
+		try {
+
+			long trailerOffset = getOffset();
+
+			output.writeByte(ReplayFormat.END);
+			output.writeLong(lastTick);
+			output.writeInt(keyframeCount);
+
+			for(int i = 0; i < keyframeCount; i++) {
+
+				output.writeLong(keyframeOffsets[i]);
+			}
+
+			output.writeLong(trailerOffset);
+
+		} finally {
+
+			output.close();
+		}
+	}
+
+	/**
+	 * Helper method that writes the full state of the throws and remembers where it starts
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeKeyframe() throws IOException {
+
+		long offset = getOffset();
+
+		if(keyframeCount == keyframeOffsets.length) {
+
+			keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+		}
+
+		keyframeOffsets[keyframeCount++] = offset;
+
+		WorldStore world = simulation.getWorld();
+		Judge judge = simulation.getJudge();
+
+		int worldCount = world.getCount();
+		int[] xCoords = world.getXCoords();
+		int[] yCoords = world.getYCoords();
+		int[] xSpeeds = world.getXSpeeds();
+		int[] ySpeeds = world.getYSpeeds();
+		double[] widths = world.getWidths();
+		double[] heights = world.getHeights();
+		byte[] types = world.getTypes();
+
+		timeStep = simulation.getTimeStep();
+		continuousCollisions = simulation.isContinuousCollisions();
+
+		output.writeByte(ReplayFormat.KEYFRAME);
+		ReplayFormat.writeVarInt(output, simulation.getWidth());
+		ReplayFormat.writeVarInt(output, simulation.getHeight());
+		ReplayFormat.writeVarInt(output, timeStep);
+		output.writeBoolean(continuousCollisions);
+		ReplayFormat.writeVarInt(output, worldCount);
+
+		for(int i = 0; i < worldCount; i++) {
+
+			ReplayFormat.writeVarInt(output, judge.getPlayOf(types[i]));
+			ReplayFormat.writeSignedVarInt(output, xCoords[i]);
+			ReplayFormat.writeSignedVarInt(output, yCoords[i]);
+			ReplayFormat.writeSignedVarInt(output, xSpeeds[i]);
+			ReplayFormat.writeSignedVarInt(output, ySpeeds[i]);
+			output.writeDouble(widths[i]);
+			output.writeDouble(heights[i]);
+		}
+	}
+
+	/**
+	 * Helper method that writes what changed since the previous tick
+	 * @throws IOException if the file cannot be written
+	 */
+	private void writeDelta() throws IOException {
+
+		if(simulation.getTimeStep() != timeStep || simulation.isContinuousCollisions() != continuousCollisions) {
+
+			timeStep = simulation.getTimeStep();
+			continuousCollisions = simulation.isContinuousCollisions();
+
+			output.writeByte(ReplayFormat.STEP_SETTINGS);
+			ReplayFormat.writeVarInt(output, timeStep);
+			output.writeBoolean(continuousCollisions);
+		}
+
+		output.writeByte(ReplayFormat.DELTA);
+		ReplayFormat.writeVarInt(output, simulation.getWidth());
+		ReplayFormat.writeVarInt(output, simulation.getHeight());
+		ReplayFormat.writeVarInt(output, removedCount);
+
+		int previousIndex = 0;
+		int kept = 0;
+
+		//Brings the previous state into the order of the WorldStore after the tick, the way WorldStore.compact does
+		for(int i = 0; i < count; i++) {
+
+			if(removed[i]) {
+
+				ReplayFormat.writeVarInt(output, i - previousIndex);
+				previousIndex = i;
+
+				continue;
+			}
+
+			previousXCoords[kept] = previousXCoords[i];
+			previousYCoords[kept] = previousYCoords[i];
+			previousWidths[kept] = previousWidths[i];
+			previousHeights[kept] = previousHeights[i];
+
+			kept++;
+		}
+
+		WorldStore world = simulation.getWorld();
+
+		int worldCount = world.getCount();
+		int[] xCoords = world.getXCoords();
+		int[] yCoords = world.getYCoords();
+		double[] widths = world.getWidths();
+		double[] heights = world.getHeights();
+
+		if(worldCount != kept) {
+
+			throw new IllegalStateException("Throws were added to or removed from the WorldStore outside of a collision");
+		}
+
+		int grown = 0;
+
+		for(int i = 0; i < worldCount; i++) {
+
+			if(widths[i] != previousWidths[i] || heights[i] != previousHeights[i]) {
+
+				grown++;
+			}
+		}
+
+		ReplayFormat.writeVarInt(output, grown);
+
+		for(int i = 0; i < worldCount && grown > 0; i++) {
+
+			if(widths[i] != previousWidths[i] || heights[i] != previousHeights[i]) {
+
+				ReplayFormat.writeVarInt(output, i);
+				output.writeDouble(widths[i]);
+				output.writeDouble(heights[i]);
+
+				grown--;
+			}
+		}
+
+		for(int i = 0; i < worldCount; i++) {
+
+			ReplayFormat.writeSignedVarInt(output, xCoords[i] - previousXCoords[i]);
+			ReplayFormat.writeSignedVarInt(output, yCoords[i] - previousYCoords[i]);
+		}
+	}
+
+	/**
+	 * Helper method that copies the positions and extents of the throws, which the next delta is measured from
+	 */
+	private void rememberState() {
+
+		WorldStore world = simulation.getWorld();
+
+		count = world.getCount();
+
+		if(previousXCoords.length < count) {
+
+			previousXCoords = new int[count];
+			previousYCoords = new int[count];
+			previousWidths = new double[count];
+			previousHeights = new double[count];
+		}
+
+		System.arraycopy(world.getXCoords(), 0, previousXCoords, 0, count);
+		System.arraycopy(world.getYCoords(), 0, previousYCoords, 0, count);
+		System.arraycopy(world.getWidths(), 0, previousWidths, 0, count);
+		System.arraycopy(world.getHeights(), 0, previousHeights, 0, count);
+	}
+
+	/**
+	 * Helper method that returns the offset the next byte is written at
+	 * @return the offset in the file
+	 * @throws IOException if the segment of the previous keyframe has grown past the 2GB a reader can map
+	 */
+	private long getOffset() throws IOException {
+
+		long offset = counter.getCount();
+
+		if(keyframeCount > 0 && offset - keyframeOffsets[keyframeCount - 1] > Integer.MAX_VALUE) {
+
+			throw new IOException("A keyframe and its deltas cannot exceed 2GB, the keyframe interval must be smaller");
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Stream that counts the bytes written through it in a long, since DataOutputStream.size() stops at 2GB
+	 * @author Luiz do Valle
+	 *
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingOutputStream(OutputStream output) {
+
+			super(output);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+
+			out.write(b, off, len);
+			count += len;
+		}
+
+		private long getCount() {
+
+			return count;
+		}
+	}
+}
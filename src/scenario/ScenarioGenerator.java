@@ -0,0 +1,497 @@
+package scenario;
+
+import java.util.Random;
+
+import arena.Simulation;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that generates large, reproducible scenarios (10^3 to 10^7 throws) for load tests and batch runs
+ *
+ * The throws are written straight into a WorldStore as primitives, without views and without going through the
+ * comma separated lists of the html, so a scenario of millions of throws only costs its arrays
+ *
+ * The same seed and settings always generate the same scenario, on any machine: java.util.Random is used because its
+ * algorithm is part of its specification, every throw draws its type, position and speed in the same order, and the
+ * extents of each type are fixed numbers (given to the builder, or the DEFAULT constants) rather than measured from the
+ * fonts of the host, which would change the size of the arena and every collision with them
+ * @author Luiz do Valle
+ *
+ */
+public class ScenarioGenerator {
+
+	/**
+	 * How the speeds of the throws are distributed between -maxSpeed and maxSpeed
+	 * @author Luiz do Valle
+	 *
+	 */
+	public enum SpeedDistribution {
+
+		/**
+		 * Every whole speed between -maxSpeed and maxSpeed is equally likely
+		 */
+		UNIFORM,
+		/**
+		 * Speeds follow a normal distribution with a standard deviation of maxSpeed/2, clamped to maxSpeed
+		 */
+		GAUSSIAN
+	}
+
+	/**
+	 * The extents of every type by default, about those of a word of the standard throws
+	 */
+	public static final double DEFAULT_THROW_WIDTH = 80;
+	public static final double DEFAULT_THROW_HEIGHT = 25;
+	/**
+	 * The extents of the Blackhole type by default, those of the ellipse it is drawn as
+	 */
+	public static final double DEFAULT_BLACKHOLE_WIDTH = 100;
+	public static final double DEFAULT_BLACKHOLE_HEIGHT = 80;
+
+	/**
+	 * The seed of the source of randomness, the same seed always generates the same scenario
+	 */
+	private long seed;
+	/**
+	 * The number of throws generated
+	 */
+	private int population;
+	/**
+	 * The relative weight of each type id
+	 */
+	private double[] typeWeights;
+	/**
+	 * The largest speed of a throw in each direction
+	 */
+	private int maxSpeed;
+	/**
+	 * How the speeds are distributed
+	 */
+	private SpeedDistribution speedDistribution;
+	/**
+	 * The width of the arena
+	 */
+	private int width;
+	/**
+	 * The height of the arena
+	 */
+	private int height;
+	/**
+	 * The Judge whose type ids the throws are given
+	 */
+	private Judge judge;
+	/**
+	 * The width and height of the bounding box of each type id
+	 */
+	private double[] typeWidths;
+	private double[] typeHeights;
+
+	/**
+	 * Private constructor used in the builder pattern
+	 * @param builder the builder used to build this generator
+	 */
+	private ScenarioGenerator(Builder builder) {
+
+		this.seed = builder.seed;
+		this.population = builder.population;
+		this.maxSpeed = builder.maxSpeed;
+		this.speedDistribution = builder.speedDistribution;
+		this.judge = builder.judge;
+
+		int typesSize = judge.getTypesSize();
+
+		this.typeWeights = new double[typesSize];
+
+		//By default every play is equally likely and there are no Blackholes
+		for(int type = 0; type < typesSize; type++) {
+
+			if(builder.typeWeights != null) {
+
+				typeWeights[type] = type < builder.typeWeights.length ? builder.typeWeights[type] : 0;
+
+			} else {
+
+				typeWeights[type] = type == judge.getBlackholeType() ? 0 : 1;
+			}
+
+			if(typeWeights[type] < 0) {
+
+				throw new IllegalArgumentException("Type weights cannot be negative");
+			}
+		}
+
+		setTypeExtents(builder.typeWidths, builder.typeHeights);
+
+		if(builder.density > 0) {
+
+			//The arena keeps the aspect ratio of the requested size and grows until the throws cover the requested fraction of it
+			double area = population * getMeanThrowArea() / builder.density;
+			double aspectRatio = builder.width / (double) builder.height;
+
+			this.width = Math.max(1, (int) Math.round(Math.sqrt(area * aspectRatio)));
+			this.height = Math.max(1, (int) Math.round(area / width));
+
+		} else {
+
+			this.width = builder.width;
+			this.height = builder.height;
+		}
+	}
+
+	/**
+	 * Method that generates the scenario into a new WorldStore and returns a Simulation of it
+	 * @return a Simulation of the generated throws
+	 */
+	public Simulation createSimulation() {
+
+		WorldStore world = new WorldStore(population);
+
+		generate(world);
+
+		return new Simulation(world, width, height, judge);
+	}
+
+	/**
+	 * Method that appends the throws of the scenario to the given WorldStore
+	 * @param world the WorldStore the throws are added to
+	 */
+	public void generate(WorldStore world) {
+
+		Random random = new Random(seed);
+		double[] cumulativeWeights = getCumulativeWeights();
+		double totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+
+		world.ensureCapacity(world.getCount() + population);
+
+		for(int i = 0; i < population; i++) {
+
+			byte type = pickType(cumulativeWeights, random.nextDouble() * totalWeight);
+
+			int xCoord = random.nextInt(width);
+			int yCoord = random.nextInt(height);
+			int xSpeed = nextSpeed(random);
+			int ySpeed = nextSpeed(random);
+
+			world.add(xCoord, yCoord, xSpeed, ySpeed, typeWidths[type], typeHeights[type], type);
+		}
+	}
+
+	/**
+	 * Method that returns the width of the arena of the scenario
+	 * @return the width of the arena
+	 */
+	public int getWidth() {
+
+		return width;
+	}
+
+	/**
+	 * Method that returns the height of the arena of the scenario
+	 * @return the height of the arena
+	 */
+	public int getHeight() {
+
+		return height;
+	}
+
+	/**
+	 * Method that returns the number of throws of the scenario
+	 * @return the number of throws
+	 */
+	public int getPopulation() {
+
+		return population;
+	}
+
+	/**
+	 * Method that returns the Judge whose type ids the throws of the scenario have
+	 * @return the Judge of the scenario
+	 */
+	public Judge getJudge() {
+
+		return judge;
+	}
+
+	/**
+	 * Method that sets the bounding box of every type id, to the given extents or to the defaults
+	 * @param widths the width of each type id given to the builder, or null for the defaults
+	 * @param heights the height of each type id given to the builder, or null for the defaults
+	 */
+	private void setTypeExtents(double[] widths, double[] heights) {
+
+		int typesSize = judge.getTypesSize();
+
+		typeWidths = new double[typesSize];
+		typeHeights = new double[typesSize];
+
+		for(int type = 0; type < typesSize; type++) {
+
+			if(widths != null && type < widths.length) {
+
+				typeWidths[type] = widths[type];
+				typeHeights[type] = heights[type];
+
+			} else if(type == judge.getBlackholeType()) {
+
+				typeWidths[type] = DEFAULT_BLACKHOLE_WIDTH;
+				typeHeights[type] = DEFAULT_BLACKHOLE_HEIGHT;
+
+			} else {
+
+				typeWidths[type] = DEFAULT_THROW_WIDTH;
+				typeHeights[type] = DEFAULT_THROW_HEIGHT;
+			}
+		}
+	}
+
+	/**
+	 * Method that returns the area of the bounding box of a throw on average over the type mix
+	 * @return the mean area of a throw
+	 */
+	private double getMeanThrowArea() {
+
+		double totalWeight = 0;
+		double weightedArea = 0;
+
+		for(int type = 0; type < typeWeights.length; type++) {
+
+			totalWeight += typeWeights[type];
+			weightedArea += typeWeights[type] * typeWidths[type] * typeHeights[type];
+		}
+
+		return totalWeight == 0 ? 0 : weightedArea / totalWeight;
+	}
+
+	/**
+	 * Method that returns the running sum of the type weights
+	 * @return array where the element at index i is the sum of the weights of the types up to i
+	 */
+	private double[] getCumulativeWeights() {
+
+		double[] cumulativeWeights = new double[typeWeights.length];
+		double sum = 0;
+
+		for(int type = 0; type < typeWeights.length; type++) {
+
+			sum += typeWeights[type];
+			cumulativeWeights[type] = sum;
+		}
+
+		if(sum <= 0) {
+
+			throw new IllegalStateException("At least one type must have a positive weight");
+		}
+
+		return cumulativeWeights;
+	}
+
+	/**
+	 * Method that returns the type the given point of the cumulative weights falls in
+	 * @param cumulativeWeights the running sum of the type weights
+	 * @param point a number between 0 and the total weight
+	 * @return the type id picked
+	 */
+	private byte pickType(double[] cumulativeWeights, double point) {
+
+		for(int type = 0; type < cumulativeWeights.length; type++) {
+
+			if(point < cumulativeWeights[type]) {
+
+				return (byte) type;
+			}
+		}
+
+		//Only reached through rounding, the last type with a positive weight is picked
+		for(int type = cumulativeWeights.length - 1; type > 0; type--) {
+
+			if(typeWeights[type] > 0) {
+
+				return (byte) type;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Method that draws a speed from the speed distribution
+	 * @param random the source of randomness of the scenario
+	 * @return a speed between -maxSpeed and maxSpeed
+	 */
+	private int nextSpeed(Random random) {
+
+		if(maxSpeed == 0) {
+
+			return 0;
+		}
+
+		if(speedDistribution == SpeedDistribution.GAUSSIAN) {
+
+			long speed = Math.round(random.nextGaussian() * maxSpeed / 2.0);
+
+			return (int) Math.max(-maxSpeed, Math.min(maxSpeed, speed));
+		}
+
+		return random.nextInt(2 * maxSpeed + 1) - maxSpeed;
+	}
+
+	/**
+	 * Builder pattern used to create the ScenarioGenerator
+	 * Builder pattern used because constructor would have too many parameters
+	 * @author Luiz do Valle
+	 *
+	 */
+	public static class Builder {
+
+		private long seed = 0;
+		private int population = 1000;
+		private double[] typeWeights = null;
+		private double[] typeWidths = null;
+		private double[] typeHeights = null;
+		private int maxSpeed = 2;
+		private SpeedDistribution speedDistribution = SpeedDistribution.UNIFORM;
+		private double density = 0;
+		private int width = 1100;
+		private int height = 500;
+		private Judge judge = new Judge();
+
+		/**
+		 * Method that sets the seed of the scenario
+		 * @param seed the seed of the source of randomness
+		 * @return the builder
+		 */
+		public Builder seed(long seed) {
+
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Method that sets the number of throws generated
+		 * @param population the number of throws
+		 * @return the builder
+		 */
+		public Builder population(int population) {
+
+			if(population < 0) {
+
+				throw new IllegalArgumentException("The population cannot be negative");
+			}
+
+			this.population = population;
+			return this;
+		}
+
+		/**
+		 * Method that sets the relative weight of each type id (see Judge.getTypeOf)
+		 * Types past the end of the array are never picked
+		 * @param typeWeights the weight of each type id
+		 * @return the builder
+		 */
+		public Builder typeWeights(double... typeWeights) {
+
+			this.typeWeights = typeWeights.clone();
+			return this;
+		}
+
+		/**
+		 * Method that sets the width and height of the bounding box of each type id (see Judge.getTypeOf)
+		 * Types past the end of the arrays keep the default extents
+		 * @param typeWidths the width of each type id
+		 * @param typeHeights the height of each type id
+		 * @return the builder
+		 */
+		public Builder typeExtents(double[] typeWidths, double[] typeHeights) {
+
+			if(typeWidths.length != typeHeights.length) {
+
+				throw new IllegalArgumentException("There must be as many type widths as type heights");
+			}
+
+			for(int type = 0; type < typeWidths.length; type++) {
+
+				if(!(typeWidths[type] > 0) || !(typeHeights[type] > 0)) {
+
+					throw new IllegalArgumentException("Type extents must be positive");
+				}
+			}
+
+			this.typeWidths = typeWidths.clone();
+			this.typeHeights = typeHeights.clone();
+			return this;
+		}
+
+		/**
+		 * Method that sets the largest speed of a throw in each direction
+		 * @param maxSpeed the largest speed
+		 * @return the builder
+		 */
+		public Builder maxSpeed(int maxSpeed) {
+
+			this.maxSpeed = Math.abs(maxSpeed);
+			return this;
+		}
+
+		/**
+		 * Method that sets how the speeds are distributed between -maxSpeed and maxSpeed
+		 * @param speedDistribution the distribution of the speeds
+		 * @return the builder
+		 */
+		public Builder speedDistribution(SpeedDistribution speedDistribution) {
+
+			this.speedDistribution = speedDistribution;
+			return this;
+		}
+
+		/**
+		 * Method that sets the fraction of the arena covered by the bounding boxes of the throws, which sizes the
+		 * arena to the population while keeping the aspect ratio of arenaSize. Zero keeps arenaSize as it is
+		 * @param density the fraction of the arena covered by the throws
+		 * @return the builder
+		 */
+		public Builder density(double density) {
+
+			this.density = density;
+			return this;
+		}
+
+		/**
+		 * Method that sets the size of the arena (or only its aspect ratio, if a density is set)
+		 * @param width the width of the arena
+		 * @param height the height of the arena
+		 * @return the builder
+		 */
+		public Builder arenaSize(int width, int height) {
+
+			if(width <= 0 || height <= 0) {
+
+				throw new IllegalArgumentException("The arena must have a positive size");
+			}
+
+			this.width = width;
+			this.height = height;
+			return this;
+		}
+
+		/**
+		 * Method that sets the Judge whose RuleSet decides the type ids of the throws
+		 * @param judge the Judge of the scenario
+		 * @return the builder
+		 */
+		public Builder judge(Judge judge) {
+
+			this.judge = judge;
+			return this;
+		}
+
+		/**
+		 * Method that builds the ScenarioGenerator
+		 * @return new ScenarioGenerator
+		 */
+		public ScenarioGenerator build() {
+
+			return new ScenarioGenerator(this);
+		}
+	}
+}
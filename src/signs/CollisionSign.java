@@ -3,6 +3,7 @@ package signs;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Rectangle;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.Rectangle2D;
 
@@ -92,4 +93,19 @@ public class CollisionSign implements Sign {
 		g.drawString(message, lowerLeftX, lowerLeftY);
 		
 	}
+	
+	@Override
+	public Rectangle getArea() {
+		
+		Rectangle2D bounds = font.getStringBounds(message, context);
+		
+		int height = (int) bounds.getHeight();
+		int width = (int) bounds.getWidth();
+		
+		//Same rectangle as the one drawn behind the message, plus a pixel of margin for the glyphs' antialiasing
+		int rectTopLeftX = centerX - width/2;
+		int rectTopLeftY = centerY + height/2 - height;
+		
+		return new Rectangle(rectTopLeftX - 1, rectTopLeftY - 1, width + 2, (int) (height * 1.5) + 2);
+	}
 }
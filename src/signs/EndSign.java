@@ -4,6 +4,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.Rectangle2D;
 
@@ -78,5 +79,18 @@ public class EndSign implements Sign {
 		
 	}
 	
+	@Override
+	public Rectangle getArea() {
+		
+		Rectangle2D bounds = font.getStringBounds(MESSAGE, context);
+		int lowerLeftX = (int) (centerX - bounds.getWidth()/2);
+		int lowerLeftY = (int) (centerY + bounds.getHeight()/2);
+		
+		//The text sits on its baseline (lowerLeftY) and its descent hangs below it
+		int height = (int) Math.ceil(bounds.getHeight());
+		
+		return new Rectangle(lowerLeftX - 1, lowerLeftY - height - 1, (int) Math.ceil(bounds.getWidth()) + 2, (int) (height * 1.5) + 2);
+	}
+	
 	
 }
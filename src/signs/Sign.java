@@ -1,6 +1,7 @@
 package signs;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
 
 import javax.swing.JLabel;
 
@@ -16,4 +17,10 @@ public interface Sign {
 	 * @param g Graphics instance
 	 */
 	public abstract void draw(Graphics g);
+	
+	/**
+	 * Returns the area of the screen covered by the message, used to repaint only that area when it appears or disappears
+	 * @return the area covered by the message
+	 */
+	public abstract Rectangle getArea();
 }
@@ -0,0 +1,162 @@
+package tournament;
+
+import java.awt.font.FontRenderContext;
+import java.util.LinkedList;
+
+import game_throws.GameThrow;
+import game_throws.ThrowFactory;
+
+/**
+ * Information Holder class that describes the starting layout of a match: which throws there are, where they start,
+ * how fast they move and the size of the arena
+ *
+ * Matches change their throws (they move, grow and are removed), so a Layout only holds the description and
+ * every match creates its own throws from it with createThrows()
+ * @author Luiz do Valle
+ *
+ */
+public class Layout {
+
+	/**
+	 * The name of each throw (e.g. Rock)
+	 */
+	private String[] names;
+	/**
+	 * The starting x coordinate of each throw
+	 */
+	private int[] xCoords;
+	/**
+	 * The starting y coordinate of each throw
+	 */
+	private int[] yCoords;
+	/**
+	 * The speed in the x direction of each throw
+	 */
+	private int[] xSpeeds;
+	/**
+	 * The speed in the y direction of each throw
+	 */
+	private int[] ySpeeds;
+	/**
+	 * The width of the arena
+	 */
+	private int width;
+	/**
+	 * The height of the arena
+	 */
+	private int height;
+
+	/**
+	 * Constructor for the class, all the arrays must have the same length
+	 * @param names the name of each throw (Rock, Paper, Scissors, Lizard, Spock or Blackhole)
+	 * @param xCoords the starting x coordinate of each throw
+	 * @param yCoords the starting y coordinate of each throw
+	 * @param xSpeeds the speed in the x direction of each throw
+	 * @param ySpeeds the speed in the y direction of each throw
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public Layout(String[] names, int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int width, int height) {
+
+		int size = names.length;
+
+		if(xCoords.length != size || yCoords.length != size || xSpeeds.length != size || ySpeeds.length != size) {
+
+			throw new IllegalArgumentException("Every throw needs a name, a position and a speed");
+		}
+
+		this.names = names.clone();
+		this.xCoords = xCoords.clone();
+		this.yCoords = yCoords.clone();
+		this.xSpeeds = xSpeeds.clone();
+		this.ySpeeds = ySpeeds.clone();
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Method that creates a Layout from the comma separated lists used by the parameters of the html
+	 * (throws, xCoords, yCoords, speedXs and speedYs)
+	 * @param throwsList the names of the throws
+	 * @param xCoordsList the starting x coordinates
+	 * @param yCoordsList the starting y coordinates
+	 * @param speedXsList the speeds in the x direction
+	 * @param speedYsList the speeds in the y direction
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @return the Layout described by the lists
+	 */
+	public static Layout fromParameters(String throwsList, String xCoordsList, String yCoordsList,
+			String speedXsList, String speedYsList, int width, int height) {
+
+		return new Layout(throwsList.split(","), parseInts(xCoordsList), parseInts(yCoordsList),
+				parseInts(speedXsList), parseInts(speedYsList), width, height);
+	}
+
+	/**
+	 * Method that creates new throws placed as this layout describes, skipping unknown names like the applet does
+	 * @param context the context used to measure the text of the throws
+	 * @return LinkedList of new GameThrows
+	 */
+	public LinkedList<GameThrow> createThrows(FontRenderContext context) {
+
+		LinkedList<GameThrow> gameThrows = new LinkedList<>();
+
+		for(int i = 0; i < names.length; i++) {
+
+			GameThrow gameThrow = ThrowFactory.create(names[i], xCoords[i], yCoords[i], xSpeeds[i], ySpeeds[i], context);
+
+			if(gameThrow != null) {
+
+				gameThrows.add(gameThrow);
+			}
+		}
+
+		return gameThrows;
+	}
+
+	/**
+	 * Method that returns the number of throws in the layout
+	 * @return the number of throws
+	 */
+	public int size() {
+
+		return names.length;
+	}
+
+	/**
+	 * Method that returns the width of the arena
+	 * @return the width of the arena
+	 */
+	public int getWidth() {
+
+		return width;
+	}
+
+	/**
+	 * Method that returns the height of the arena
+	 * @return the height of the arena
+	 */
+	public int getHeight() {
+
+		return height;
+	}
+
+	/**
+	 * Helper method that parses a comma separated list of integers
+	 * @param list the list
+	 * @return the integers of the list
+	 */
+	private static int[] parseInts(String list) {
+
+		String[] values = list.split(",");
+		int[] ints = new int[values.length];
+
+		for(int i = 0; i < values.length; i++) {
+
+			ints[i] = Integer.parseInt(values[i].trim());
+		}
+
+		return ints;
+	}
+}
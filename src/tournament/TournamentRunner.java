@@ -0,0 +1,184 @@
+package tournament;
+
+import java.awt.font.FontRenderContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import arena.Simulation;
+import judge.Judge;
+import world.WorldStore;
+
+/**
+ * Class that plays a batch of headless matches, one per Layout, across every core of the machine
+ *
+ * The matches are independent (each one has its own Simulation and throws, and only reads the shared Judge), so
+ * the batch is split in halves on a ForkJoinPool until each task is a single match, and idle workers steal the
+ * halves that are still waiting. The outcomes are aggregated in a TournamentStats
+ *
+ * A match ends when no collision can happen anymore (every pair of throws left ties), when it goes maxIdleTicks
+ * ticks without a collision (like the timeout of the applet), or after maxTicks ticks
+ * @author Luiz do Valle
+ *
+ */
+public class TournamentRunner {
+
+	/**
+	 * The context used to measure the text of the throws, which does not need a Graphics instance
+	 */
+	private static final FontRenderContext CONTEXT = new FontRenderContext(null, true, true);
+
+	/**
+	 * The Judge shared by every match
+	 */
+	private Judge judge;
+	/**
+	 * The largest number of ticks a match can last
+	 */
+	private long maxTicks;
+	/**
+	 * The largest number of ticks a match can go without a collision
+	 */
+	private long maxIdleTicks;
+	/**
+	 * The pool the matches are played on
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Constructor for the class that plays the matches on the common ForkJoinPool
+	 * @param judge the Judge used to decide the result of collisions
+	 * @param maxTicks the largest number of ticks a match can last
+	 * @param maxIdleTicks the largest number of ticks a match can go without a collision
+	 */
+	public TournamentRunner(Judge judge, long maxTicks, long maxIdleTicks) {
+
+		this(judge, maxTicks, maxIdleTicks, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor for the class that plays the matches on the given pool
+	 * @param judge the Judge used to decide the result of collisions
+	 * @param maxTicks the largest number of ticks a match can last
+	 * @param maxIdleTicks the largest number of ticks a match can go without a collision
+	 * @param pool the pool the matches are played on
+	 */
+	public TournamentRunner(Judge judge, long maxTicks, long maxIdleTicks, ForkJoinPool pool) {
+
+		this.judge = judge;
+		this.maxTicks = maxTicks;
+		this.maxIdleTicks = maxIdleTicks;
+		this.pool = pool;
+	}
+
+	/**
+	 * Method that plays a match for every given layout and waits for all of them to end
+	 * @param layouts the starting layout of each match
+	 * @return the aggregated outcomes of the matches
+	 */
+	public TournamentStats run(List<Layout> layouts) {
+
+		TournamentStats stats = new TournamentStats(judge.getTypesSize());
+
+		pool.invoke(new MatchBatch(layouts, 0, layouts.size(), stats));
+
+		return stats;
+	}
+
+	/**
+	 * Method that plays a single match on the calling thread and records its outcome
+	 * @param layout the starting layout of the match
+	 * @param stats where the outcome of the match is recorded
+	 */
+	public void playMatch(Layout layout, TournamentStats stats) {
+
+		Simulation simulation = new Simulation(layout.createThrows(CONTEXT), layout.getWidth(), layout.getHeight(), judge);
+		WorldStore world = simulation.getWorld();
+
+		int[] typeCounts = new int[judge.getTypesSize()];
+		long collisions = 0;
+		long idleTicks = 0;
+		boolean decided = isDecided(world, typeCounts);
+
+		while(!decided && simulation.getTickCount() < maxTicks && idleTicks < maxIdleTicks) {
+
+			int tickCollisions = simulation.step();
+
+			if(tickCollisions == 0) {
+
+				idleTicks++;
+
+			} else {
+
+				//Only a collision changes which types are left
+				idleTicks = 0;
+				collisions += tickCollisions;
+				decided = isDecided(world, typeCounts);
+			}
+		}
+
+		stats.recordMatch(world.getTypes(), world.getCount(), simulation.getTickCount(), collisions, decided);
+	}
+
+	/**
+	 * Method that checks whether no collision can happen anymore, i.e. every pair of throws left ties
+	 * @param world the state of the throws
+	 * @param typeCounts scratch array of one counter per type id
+	 * @return true if the match is decided, false otherwise
+	 */
+	private boolean isDecided(WorldStore world, int[] typeCounts) {
+
+		byte[] types = world.getTypes();
+
+		Arrays.fill(typeCounts, 0);
+
+		for(int i = 0; i < world.getCount(); i++) {
+
+			typeCounts[types[i]]++;
+		}
+
+		return judge.isDecided(typeCounts);
+	}
+
+	/**
+	 * Task that plays the matches of a range of layouts, splitting the range in halves until it is a single match
+	 * @author Luiz do Valle
+	 *
+	 */
+	private class MatchBatch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private List<Layout> layouts;
+		private int start;
+		private int end;
+		private TournamentStats stats;
+
+		private MatchBatch(List<Layout> layouts, int start, int end, TournamentStats stats) {
+
+			this.layouts = layouts;
+			this.start = start;
+			this.end = end;
+			this.stats = stats;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(end - start <= 1) {
+
+				if(start < end) {
+
+					playMatch(layouts.get(start), stats);
+				}
+
+				return;
+			}
+
+			int middle = (start + end) >>> 1;
+
+			invokeAll(new MatchBatch(layouts, start, middle, stats), new MatchBatch(layouts, middle, end, stats));
+		}
+	}
+}
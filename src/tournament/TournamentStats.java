@@ -0,0 +1,222 @@
+package tournament;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import judge.Judge;
+
+/**
+ * Information Holder class that aggregates the outcomes of the matches of a tournament
+ *
+ * Every match running on the pool records its outcome here once it ends, so the counters are LongAdders:
+ * concurrent increments land on different cells instead of all retrying a compare-and-set on the same field,
+ * and the totals are only summed when they are read
+ * @author Luiz do Valle
+ *
+ */
+public class TournamentStats {
+
+	/**
+	 * The number of matches played
+	 */
+	private LongAdder matches;
+	/**
+	 * The number of matches that ended with the throws of a single type on the board
+	 */
+	private LongAdder decisiveMatches;
+	/**
+	 * The number of matches that ended with throws of several types that all tie with each other
+	 */
+	private LongAdder draws;
+	/**
+	 * The number of matches stopped before they were decided, because they ran out of ticks or went too long
+	 * without a collision
+	 */
+	private LongAdder undecidedMatches;
+	/**
+	 * The number of ticks played across all matches
+	 */
+	private LongAdder ticks;
+	/**
+	 * The number of collisions (ties excluded) resolved across all matches
+	 */
+	private LongAdder collisions;
+	/**
+	 * The number of throws of each type left on the board at the end of the matches, indexed by type id
+	 */
+	private LongAdder[] survivors;
+	/**
+	 * The number of matches won by each type, indexed by type id
+	 */
+	private LongAdder[] wins;
+
+	/**
+	 * Constructor for the class
+	 * @param typesSize the number of type ids of the Judge of the tournament (see Judge.getTypesSize)
+	 */
+	public TournamentStats(int typesSize) {
+
+		this.matches = new LongAdder();
+		this.decisiveMatches = new LongAdder();
+		this.draws = new LongAdder();
+		this.undecidedMatches = new LongAdder();
+		this.ticks = new LongAdder();
+		this.collisions = new LongAdder();
+		this.survivors = new LongAdder[typesSize];
+		this.wins = new LongAdder[typesSize];
+
+		for(int type = 0; type < typesSize; type++) {
+
+			survivors[type] = new LongAdder();
+			wins[type] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Method that records the outcome of a match, safe to call from several threads at once
+	 * @param types the type id of each throw left on the board
+	 * @param count the number of throws left on the board
+	 * @param matchTicks the number of ticks the match lasted
+	 * @param matchCollisions the number of collisions resolved during the match
+	 * @param decided whether no collision could happen anymore when the match ended
+	 */
+	public void recordMatch(byte[] types, int count, long matchTicks, long matchCollisions, boolean decided) {
+
+		//Counted locally first, so that each counter is only touched once per match
+		int[] counts = new int[survivors.length];
+		int winner = -1;
+		int typesLeft = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			if(counts[types[i]]++ == 0) {
+
+				winner = types[i];
+				typesLeft++;
+			}
+		}
+
+		for(int type = 0; type < counts.length; type++) {
+
+			if(counts[type] > 0) {
+
+				survivors[type].add(counts[type]);
+			}
+		}
+
+		matches.increment();
+		ticks.add(matchTicks);
+		collisions.add(matchCollisions);
+
+		if(!decided) {
+
+			undecidedMatches.increment();
+
+		} else if(typesLeft == 1) {
+
+			decisiveMatches.increment();
+			wins[winner].increment();
+
+		} else {
+
+			draws.increment();
+		}
+	}
+
+	/**
+	 * Method that returns the number of matches played
+	 * @return the number of matches played
+	 */
+	public long getMatches() {
+
+		return matches.sum();
+	}
+
+	/**
+	 * Method that returns the number of matches won by a single type
+	 * @return the number of decisive matches
+	 */
+	public long getDecisiveMatches() {
+
+		return decisiveMatches.sum();
+	}
+
+	/**
+	 * Method that returns the number of matches that ended with several types that all tie with each other
+	 * @return the number of draws
+	 */
+	public long getDraws() {
+
+		return draws.sum();
+	}
+
+	/**
+	 * Method that returns the number of matches stopped before they were decided
+	 * @return the number of undecided matches
+	 */
+	public long getUndecidedMatches() {
+
+		return undecidedMatches.sum();
+	}
+
+	/**
+	 * Method that returns the number of ticks played across all matches
+	 * @return the total number of ticks
+	 */
+	public long getTicks() {
+
+		return ticks.sum();
+	}
+
+	/**
+	 * Method that returns the number of collisions resolved across all matches
+	 * @return the total number of collisions
+	 */
+	public long getCollisions() {
+
+		return collisions.sum();
+	}
+
+	/**
+	 * Method that returns the number of throws of the given type left at the end of the matches
+	 * @param type the type id
+	 * @return the number of surviving throws of the type
+	 */
+	public long getSurvivors(int type) {
+
+		return survivors[type].sum();
+	}
+
+	/**
+	 * Method that returns the number of matches won by the given type
+	 * @param type the type id
+	 * @return the number of matches won by the type
+	 */
+	public long getWins(int type) {
+
+		return wins[type].sum();
+	}
+
+	/**
+	 * Method that describes the totals, naming each type after its play in the RuleSet of the given Judge
+	 * @param judge the Judge of the tournament
+	 * @return a human readable summary of the tournament
+	 */
+	public String toReport(Judge judge) {
+
+		StringBuilder report = new StringBuilder();
+
+		report.append("Matches: ").append(getMatches()).append(" (decisive ").append(getDecisiveMatches())
+				.append(", draws ").append(getDraws()).append(", undecided ").append(getUndecidedMatches()).append(")\n");
+		report.append("Ticks: ").append(getTicks()).append(", collisions: ").append(getCollisions()).append('\n');
+
+		for(int type = 0; type < survivors.length; type++) {
+
+			String name = type == judge.getBlackholeType() ? "Blackhole" : judge.getRuleSet().getPlayDescription(type);
+
+			report.append(name).append(": ").append(getWins(type)).append(" wins, ")
+					.append(getSurvivors(type)).append(" survivors\n");
+		}
+
+		return report.toString();
+	}
+}
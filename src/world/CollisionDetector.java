@@ -0,0 +1,481 @@
+package world;
+
+import java.util.Arrays;
+
+import judge.Judge;
+
+/**
+ * Class that finds every pair of throws that overlap and do not tie, without resolving any of them
+ *
+ * Throws are bucketed into a SpatialHashGrid whose cells are sized after the typical throw rather than the largest
+ * one, since a few winners that grew many times would otherwise make every cell (and every neighbourhood scanned)
+ * many times bigger than it needs to be. Throws that do not fit in a cell are oversized: pairs between an oversized
+ * throw and the others are found by scanning every cell the oversized throw could reach, and pairs between two
+ * oversized throws in a second, coarser grid that only holds them
+ *
+ * Every pair is found exactly once, by the throw that owns it: the one with the lower index if both are oversized or
+ * both are not, the oversized one otherwise. Since a throw is only scanned from the row of cells it is in, the rows
+ * can be split into bands that are scanned independently (e.g. by different threads) without missing or repeating a
+ * pair
+ *
+ * In continuous mode a throw is bucketed by the box that covers its whole path during the last step, and two throws
+ * collide if their boxes intersected at any moment of it (WorldStore.sweptOverlaps), so throws that move further than
+ * their own size in a step cannot pass through each other unnoticed
+ *
+ * The pairs can be narrowed down to those with at least one required throw (e.g. the throws that wrapped around the
+ * edges, which are tested again along their paths after re-entering the arena)
+ * @author Luiz do Valle
+ *
+ */
+public class CollisionDetector {
+
+	/**
+	 * Throws whose extent is more than this many times the mean extent do not size the cells
+	 */
+	private static final double OVERSIZED_RATIO = 2;
+
+	/**
+	 * The grid that holds every throw
+	 */
+	private SpatialHashGrid grid;
+	/**
+	 * The grid that holds only the oversized throws, by their local index
+	 */
+	private SpatialHashGrid largeGrid;
+	/**
+	 * Whether each throw is too big for the cells of the grid
+	 */
+	private boolean[] oversized;
+	/**
+	 * The local index of each oversized throw in the largeGrid, only valid for oversized throws
+	 */
+	private int[] largeLocals;
+	/**
+	 * The index of each throw of the largeGrid in the WorldStore, and the corners it is bucketed by
+	 */
+	private int[] largeIndices;
+	private int[] largeXCoords;
+	private int[] largeYCoords;
+	private int largeCount;
+	/**
+	 * Whether the throws are tested along their paths during the last step rather than where they are
+	 */
+	private boolean swept;
+	/**
+	 * The boxes the throws are bucketed by: the arrays of the WorldStore, or the swept boxes in continuous mode
+	 */
+	private int[] boxXCoords;
+	private int[] boxYCoords;
+	private double[] boxWidths;
+	private double[] boxHeights;
+	/**
+	 * Whether each throw is required in the pairs that are collected, null if every pair is
+	 */
+	private boolean[] required;
+	/**
+	 * Scratch arrays that receive the swept boxes in continuous mode
+	 */
+	private int[] sweptXCoords;
+	private int[] sweptYCoords;
+	private double[] sweptWidths;
+	private double[] sweptHeights;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public CollisionDetector() {
+
+		grid = new SpatialHashGrid();
+		largeGrid = new SpatialHashGrid();
+		oversized = new boolean[0];
+		largeLocals = new int[0];
+		largeIndices = new int[0];
+		largeXCoords = new int[0];
+		largeYCoords = new int[0];
+		sweptXCoords = new int[0];
+		sweptYCoords = new int[0];
+		sweptWidths = new double[0];
+		sweptHeights = new double[0];
+	}
+
+	/**
+	 * Method that buckets the throws of the given WorldStore, replacing whatever was bucketed before
+	 * Must be called again whenever the throws move, grow or are removed
+	 * @param world the state of the throws
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public void build(WorldStore world, int width, int height) {
+
+		build(world, width, height, false);
+	}
+
+	/**
+	 * Method that buckets the throws of the given WorldStore, replacing whatever was bucketed before
+	 * @param world the state of the throws
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param swept true to test the throws along their paths during the last step (which must not have been wrapped
+	 * around the edges yet), false to test them where they are
+	 */
+	public void build(WorldStore world, int width, int height, boolean swept) {
+
+		build(world, width, height, swept, null);
+	}
+
+	/**
+	 * Method that buckets the throws of the given WorldStore, only collecting the pairs with a required throw
+	 * @param world the state of the throws
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param swept true to test the throws along their paths during the last step, false to test them where they are
+	 * @param required array where required[i] is true if the pairs of the throw at index i must be collected, or null
+	 * to collect every pair
+	 */
+	public void build(WorldStore world, int width, int height, boolean swept, boolean[] required) {
+
+		int count = world.getCount();
+
+		this.swept = swept;
+		this.required = required;
+
+		if(swept) {
+
+			sweepBoxes(world);
+
+		} else {
+
+			boxXCoords = world.getXCoords();
+			boxYCoords = world.getYCoords();
+			boxWidths = world.getWidths();
+			boxHeights = world.getHeights();
+		}
+
+		int[] xCoords = boxXCoords;
+		int[] yCoords = boxYCoords;
+		double[] widths = boxWidths;
+		double[] heights = boxHeights;
+
+		double totalExtent = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			totalExtent += Math.max(widths[i], heights[i]);
+		}
+
+		double limit = count == 0 ? 0 : OVERSIZED_RATIO * totalExtent / count;
+		double typicalExtent = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			double extent = Math.max(widths[i], heights[i]);
+
+			if(extent <= limit) {
+
+				typicalExtent = Math.max(typicalExtent, extent);
+			}
+		}
+
+		grid.resize(count, (int) typicalExtent + 1, width, height);
+		bucket(grid, xCoords, yCoords, count);
+		grid.sort();
+
+		if(oversized.length < count) {
+
+			oversized = new boolean[count];
+			largeLocals = new int[count];
+			largeIndices = Arrays.copyOf(largeIndices, count);
+			largeXCoords = Arrays.copyOf(largeXCoords, count);
+			largeYCoords = Arrays.copyOf(largeYCoords, count);
+
+			//Winners keep growing past the cells, so the oversized throws are given room for the whole population
+			largeGrid.ensureCapacity(count);
+		}
+
+		//The grid can make the cells bigger than asked for, so oversized is decided against the cells it settled on
+		int cellSize = grid.getCellSize();
+		double largestExtent = 0;
+
+		largeCount = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			double extent = Math.max(widths[i], heights[i]);
+
+			oversized[i] = extent >= cellSize;
+
+			if(oversized[i]) {
+
+				addLarge(i, xCoords[i], yCoords[i]);
+				largestExtent = Math.max(largestExtent, extent);
+			}
+		}
+
+		if(largeCount > 0) {
+
+			largeGrid.build(largeCount, largeXCoords, largeYCoords, (int) largestExtent + 1, width, height);
+		}
+	}
+
+	/**
+	 * Method that computes the cell of every throw of the given grid (see SpatialHashGrid.bucket), on the calling
+	 * thread unless a subclass splits the throws into ranges
+	 * @param target the grid, already resized for the throws
+	 * @param lefts the x coordinate of the corner of each throw's box
+	 * @param tops the y coordinate of the corner of each throw's box
+	 * @param count the number of throws
+	 */
+	protected void bucket(SpatialHashGrid target, int[] lefts, int[] tops, int count) {
+
+		target.bucket(lefts, tops, 0, count);
+	}
+
+	/**
+	 * Method that returns the number of rows of cells, which collectPairs can be asked to scan a band of
+	 * @return the number of rows of the grid
+	 */
+	public int getRows() {
+
+		return grid.getRows();
+	}
+
+	/**
+	 * Method that returns the number of throws that are too big for the cells of the grid
+	 * @return the number of oversized throws
+	 */
+	public int getOversizedCount() {
+
+		return largeCount;
+	}
+
+	/**
+	 * Method that adds to the given buffer every pair of throws that overlap and do not tie, lower index first
+	 * @param world the state of the throws, as bucketed by build
+	 * @param judge the Judge used to tell the pairs that tie apart
+	 * @param pairs the buffer the pairs are added to
+	 */
+	public void collectPairs(WorldStore world, Judge judge, PairBuffer pairs) {
+
+		collectPairs(world, judge, 0, grid.getRows(), pairs);
+	}
+
+	/**
+	 * Method that adds to the given buffer every pair owned by a throw in the given band of rows of cells
+	 * @param world the state of the throws, as bucketed by build
+	 * @param judge the Judge used to tell the pairs that tie apart
+	 * @param firstRow the first row of the band
+	 * @param endRow one past the last row of the band
+	 * @param pairs the buffer the pairs are added to
+	 */
+	public void collectPairs(WorldStore world, Judge judge, int firstRow, int endRow, PairBuffer pairs) {
+
+		int columns = grid.getColumns();
+
+		for(int row = firstRow; row < endRow; row++) {
+
+			for(int column = 0; column < columns; column++) {
+
+				int cell = grid.getCell(column, row);
+
+				for(int position = grid.getCellStart(cell); position < grid.getCellEnd(cell); position++) {
+
+					int i = grid.getEntryAt(position);
+
+					if(oversized[i]) {
+
+						collectOversizedPairs(world, judge, i, pairs);
+						collectNeighbourPairs(world, judge, largeGrid, i, largeLocals[i], pairs);
+
+					} else {
+
+						collectNeighbourPairs(world, judge, grid, i, i, pairs);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that tests a throw against the throws of the same kind (oversized or not) with a higher index in
+	 * the cells around it
+	 * @param world the state of the throws
+	 * @param judge the Judge used to tell the pairs that tie apart
+	 * @param scanned the grid holding the throws of the same kind
+	 * @param i the index of the throw in the WorldStore
+	 * @param local the index of the throw in the scanned grid
+	 * @param pairs the buffer the pairs are added to
+	 */
+	private void collectNeighbourPairs(WorldStore world, Judge judge, SpatialHashGrid scanned, int i, int local, PairBuffer pairs) {
+
+		boolean large = scanned == largeGrid;
+		int columns = scanned.getColumns();
+		int rows = scanned.getRows();
+
+		//Small grids wrap onto themselves, so fewer than 3 rows or columns are all scanned once
+		int rowSpan = Math.min(3, rows);
+		int columnSpan = Math.min(3, columns);
+
+		for(int r = 0; r < rowSpan; r++) {
+
+			int row = Math.floorMod(scanned.getRowOf(local) - 1 + r, rows);
+
+			for(int c = 0; c < columnSpan; c++) {
+
+				int cell = scanned.getCell(Math.floorMod(scanned.getColumnOf(local) - 1 + c, columns), row);
+
+				for(int position = scanned.getCellStart(cell); position < scanned.getCellEnd(cell); position++) {
+
+					int entry = scanned.getEntryAt(position);
+					int j = large ? largeIndices[entry] : entry;
+
+					//Each pair is tested once, from its lower index, and pairs with an oversized throw are its own
+					if(j <= i || (!large && oversized[j])) {
+
+						continue;
+					}
+
+					testPair(world, judge, i, j, pairs);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that tests an oversized throw against every throw that is not oversized in the cells it can reach
+	 * @param world the state of the throws
+	 * @param judge the Judge used to tell the pairs that tie apart
+	 * @param i the index of the oversized throw
+	 * @param pairs the buffer the pairs are added to
+	 */
+	private void collectOversizedPairs(WorldStore world, Judge judge, int i, PairBuffer pairs) {
+
+		int cellSize = grid.getCellSize();
+		int columns = grid.getColumns();
+		int rows = grid.getRows();
+
+		int xCoord = boxXCoords[i];
+		int yCoord = boxYCoords[i];
+
+		//A throw smaller than a cell can only overlap this one if its corner is at most a cell before this one's corner
+		int firstColumn = Math.floorDiv(xCoord - cellSize, cellSize);
+		int firstRow = Math.floorDiv(yCoord - cellSize, cellSize);
+		int columnSpan = Math.min(columns, Math.floorDiv(xCoord + (int) Math.ceil(boxWidths[i]), cellSize) - firstColumn + 1);
+		int rowSpan = Math.min(rows, Math.floorDiv(yCoord + (int) Math.ceil(boxHeights[i]), cellSize) - firstRow + 1);
+
+		for(int r = 0; r < rowSpan; r++) {
+
+			int row = Math.floorMod(firstRow + r, rows);
+
+			for(int c = 0; c < columnSpan; c++) {
+
+				int cell = grid.getCell(Math.floorMod(firstColumn + c, columns), row);
+
+				for(int position = grid.getCellStart(cell); position < grid.getCellEnd(cell); position++) {
+
+					int j = grid.getEntryAt(position);
+
+					if(oversized[j]) {
+
+						continue;
+					}
+
+					testPair(world, judge, Math.min(i, j), Math.max(i, j), pairs);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that adds the given pair to the buffer if its throws overlap (or overlapped during the last step,
+	 * in continuous mode), do not tie and at least one of them is required
+	 * @param world the state of the throws
+	 * @param judge the Judge used to tell the pairs that tie apart
+	 * @param first the lower index of the pair
+	 * @param second the higher index of the pair
+	 * @param pairs the buffer the pair is added to
+	 */
+	private void testPair(WorldStore world, Judge judge, int first, int second, PairBuffer pairs) {
+
+		if(required != null && !required[first] && !required[second]) {
+
+			return;
+		}
+
+		byte[] types = world.getTypes();
+
+		if(judge.getVerdict(types[first], types[second]) == Judge.TIE) {
+
+			return;
+		}
+
+		if(swept ? world.sweptOverlaps(first, second) : world.overlaps(first, second)) {
+
+			pairs.add(first, second);
+		}
+	}
+
+	/**
+	 * Helper method that fills the scratch arrays with the box each throw swept during the last step, from its
+	 * previous to its current position, and makes them the boxes the throws are bucketed by
+	 * @param world the state of the throws
+	 */
+	private void sweepBoxes(WorldStore world) {
+
+		int count = world.getCount();
+		int[] xCoords = world.getXCoords();
+		int[] yCoords = world.getYCoords();
+		int[] previousXCoords = world.getPreviousXCoords();
+		int[] previousYCoords = world.getPreviousYCoords();
+		double[] widths = world.getWidths();
+		double[] heights = world.getHeights();
+
+		if(sweptXCoords.length < count) {
+
+			sweptXCoords = new int[count];
+			sweptYCoords = new int[count];
+			sweptWidths = new double[count];
+			sweptHeights = new double[count];
+		}
+
+		for(int i = 0; i < count; i++) {
+
+			int distanceX = xCoords[i] - previousXCoords[i];
+			int distanceY = yCoords[i] - previousYCoords[i];
+
+			sweptXCoords[i] = Math.min(xCoords[i], previousXCoords[i]);
+			sweptYCoords[i] = Math.min(yCoords[i], previousYCoords[i]);
+			sweptWidths[i] = widths[i] + Math.abs(distanceX);
+			sweptHeights[i] = heights[i] + Math.abs(distanceY);
+		}
+
+		boxXCoords = sweptXCoords;
+		boxYCoords = sweptYCoords;
+		boxWidths = sweptWidths;
+		boxHeights = sweptHeights;
+	}
+
+	/**
+	 * Helper method that adds an oversized throw to the arrays the largeGrid is built from
+	 * @param index the index of the throw in the WorldStore
+	 * @param xCoord the x coordinate of the corner of the throw
+	 * @param yCoord the y coordinate of the corner of the throw
+	 */
+	private void addLarge(int index, int xCoord, int yCoord) {
+
+		if(largeCount == largeIndices.length) {
+
+			int capacity = Math.max(16, largeCount * 2);
+
+			largeIndices = Arrays.copyOf(largeIndices, capacity);
+			largeXCoords = Arrays.copyOf(largeXCoords, capacity);
+			largeYCoords = Arrays.copyOf(largeYCoords, capacity);
+		}
+
+		largeLocals[index] = largeCount;
+		largeIndices[largeCount] = index;
+		largeXCoords[largeCount] = xCoord;
+		largeYCoords[largeCount] = yCoord;
+
+		largeCount++;
+	}
+}
@@ -0,0 +1,51 @@
+package world;
+
+/**
+ * Interface of the loops that move the throws of a WorldStore and wrap them around the edges of the arena, over the
+ * primitive arrays of the store
+ *
+ * The loops are the same rules as GameThrow.translate, GameThrow.resetX and GameThrow.resetY, so every
+ * implementation must leave the arrays exactly as the others do (see ScalarMotionKernel). The extents are given as
+ * whole numbers (kept up to date by the WorldStore), so wrapping needs no floating point arithmetic
+ *
+ * A step of several ticks must leave the throws where as many single ticks would have: a throw that leaves the arena
+ * during the step re-enters on the tick it left and keeps moving on the ticks after it
+ * @author Luiz do Valle
+ *
+ */
+public interface MotionKernel {
+
+	/**
+	 * Method that moves the first count throws by their speed times the given number of ticks
+	 * @param xCoords the x coordinates of the throws, updated in place
+	 * @param yCoords the y coordinates of the throws, updated in place
+	 * @param xSpeeds the horizontal speeds of the throws
+	 * @param ySpeeds the vertical speeds of the throws
+	 * @param count the number of throws
+	 * @param timeStep the number of ticks of movement covered at once
+	 */
+	public abstract void advance(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int count, int timeStep);
+
+	/**
+	 * Method that wraps the first count throws that left the arena around to the opposite edge (see WorldStore.wrapAll)
+	 * @param xCoords the x coordinates of the throws, updated in place
+	 * @param yCoords the y coordinates of the throws, updated in place
+	 * @param xSpeeds the horizontal speeds of the throws
+	 * @param ySpeeds the vertical speeds of the throws
+	 * @param wholeWidths the widths of the throws cast to int
+	 * @param roundedUpWidths the widths of the throws rounded up
+	 * @param wholeHeights the heights of the throws cast to int
+	 * @param count the number of throws
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param timeStep the number of ticks of movement the throws were last moved by (see advance)
+	 */
+	public abstract void wrap(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int[] wholeWidths,
+			int[] roundedUpWidths, int[] wholeHeights, int count, int width, int height, int timeStep);
+
+	/**
+	 * Method that returns a short name for the kernel, shown by the benchmarks
+	 * @return the name of the kernel
+	 */
+	public abstract String getName();
+}
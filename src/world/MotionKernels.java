@@ -0,0 +1,65 @@
+package world;
+
+/**
+ * Class that picks the fastest MotionKernel the running JVM supports
+ *
+ * The VectorMotionKernel is loaded by name, so that nothing else refers to the vector API and the rest of the game
+ * keeps working on JVMs started without --add-modules jdk.incubator.vector (or on hardware without SIMD registers),
+ * where the ScalarMotionKernel is used instead
+ * @author Luiz do Valle
+ *
+ */
+public class MotionKernels {
+
+	/**
+	 * The class name of the kernel built on the vector API
+	 */
+	private static final String VECTOR_KERNEL = "world.VectorMotionKernel";
+
+	/**
+	 * The kernel every new WorldStore uses, picked once since kernels keep no state
+	 */
+	private static final MotionKernel DEFAULT_KERNEL = load();
+
+	/**
+	 * Private constructor, this class only has static methods
+	 */
+	private MotionKernels() {
+
+	}
+
+	/**
+	 * Method that returns the fastest kernel available
+	 * @return the vector kernel if the vector API can be used, the scalar kernel otherwise
+	 */
+	public static MotionKernel getDefault() {
+
+		return DEFAULT_KERNEL;
+	}
+
+	/**
+	 * Method that checks whether the default kernel is built on the vector API
+	 * @return true if the vector API can be used, false if the scalar kernel is the default
+	 */
+	public static boolean isVectorized() {
+
+		return !(DEFAULT_KERNEL instanceof ScalarMotionKernel);
+	}
+
+	/**
+	 * Helper method that loads the vector kernel, falling back to the scalar one
+	 * @return the kernel every new WorldStore uses
+	 */
+	private static MotionKernel load() {
+
+		try {
+
+			return Class.forName(VECTOR_KERNEL).asSubclass(MotionKernel.class).getDeclaredConstructor().newInstance();
+
+		} catch(ReflectiveOperationException | LinkageError e) {
+
+			//The module is not resolved (NoClassDefFoundError), or there are no usable vectors
+			return new ScalarMotionKernel();
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of pairs of throw indices, used to collect the colliding pairs of a tick before any of them is
+ * resolved
+ *
+ * Each pair is packed into a single long (the lower index in the high half), so the buffer is one flat array that is
+ * only reallocated when a tick finds more pairs than any tick before, and sorting it puts the pairs in the order of
+ * their lower and then their higher index no matter the order they were found in
+ * @author Luiz do Valle
+ *
+ */
+public class PairBuffer {
+
+	/**
+	 * The pairs, packed
+	 */
+	private long[] pairs;
+	/**
+	 * The number of pairs in the buffer
+	 */
+	private int size;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public PairBuffer() {
+
+		pairs = new long[64];
+	}
+
+	/**
+	 * Method that adds a pair to the end of the buffer
+	 * @param first the lower index of the pair
+	 * @param second the higher index of the pair
+	 */
+	public void add(int first, int second) {
+
+		if(size == pairs.length) {
+
+			pairs = Arrays.copyOf(pairs, size * 2);
+		}
+
+		pairs[size++] = ((long) first << 32) | second;
+	}
+
+	/**
+	 * Method that adds every pair of the given buffer to the end of this one
+	 * @param other the buffer whose pairs are added
+	 */
+	public void addAll(PairBuffer other) {
+
+		if(size + other.size > pairs.length) {
+
+			pairs = Arrays.copyOf(pairs, Math.max(pairs.length * 2, size + other.size));
+		}
+
+		System.arraycopy(other.pairs, 0, pairs, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Method that sorts the pairs by their lower and then by their higher index
+	 */
+	public void sort() {
+
+		Arrays.sort(pairs, 0, size);
+	}
+
+	/**
+	 * Method that empties the buffer, keeping its array
+	 */
+	public void clear() {
+
+		size = 0;
+	}
+
+	/**
+	 * Method that returns the number of pairs in the buffer
+	 * @return the number of pairs
+	 */
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Method that returns the lower index of the pair at the given position
+	 * @param position the position of the pair in the buffer
+	 * @return the lower index of the pair
+	 */
+	public int getFirst(int position) {
+
+		return (int) (pairs[position] >>> 32);
+	}
+
+	/**
+	 * Method that returns the higher index of the pair at the given position
+	 * @param position the position of the pair in the buffer
+	 * @return the higher index of the pair
+	 */
+	public int getSecond(int position) {
+
+		return (int) pairs[position];
+	}
+}
@@ -0,0 +1,253 @@
+package world;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import judge.Judge;
+
+/**
+ * Class that finds the colliding pairs like the CollisionDetector, splitting the rows of cells into bands that are
+ * scanned in parallel on a ForkJoinPool, and the throws into chunks that are bucketed in parallel
+ *
+ * A pair is only found from the row of the throw that owns it, so a pair across the edge of two bands belongs to
+ * exactly one of them and no worker needs to know about the others. Each band collects into a PairBuffer of its own,
+ * and the buffers are appended in the order of the bands once every worker is done, so the pairs (and the collisions
+ * resolved after sorting them) are the same as with a single thread, no matter how the bands were scheduled
+ *
+ * The bands are split in halves until each task is a single band, and there are a few more bands than workers so that
+ * idle workers can steal from those whose bands are crowded. Populations below the minimum are scanned on the calling
+ * thread, since forking would cost more than the scan
+ *
+ * Building the grid computes the cell of every throw in chunks of indices, each throw writing only its own slots, so
+ * the grid is the same as if it was built on a single thread. The overlap tests (the narrow phase) run within the scan
+ * of each band, on the worker that found the pair
+ *
+ * NOTE: Choosing the size of the cells, the counting sort that groups the throws by cell and resolving the pairs still
+ * run on the thread stepping the Simulation, they are a few increments per throw
+ * @author Luiz do Valle
+ *
+ */
+public class ParallelCollisionDetector extends CollisionDetector {
+
+	/**
+	 * The population below which the pairs are collected on the calling thread, by default
+	 */
+	public static final int DEFAULT_MINIMUM_POPULATION = 20000;
+	/**
+	 * The number of bands the rows are split into for each worker of the pool
+	 */
+	private static final int BANDS_PER_WORKER = 4;
+
+	/**
+	 * The pool the bands are scanned on
+	 */
+	private ForkJoinPool pool;
+	/**
+	 * The population below which the pairs are collected on the calling thread
+	 */
+	private int minimumPopulation;
+	/**
+	 * The pairs found in each band, reused from tick to tick
+	 */
+	private PairBuffer[] bandPairs;
+
+	/**
+	 * Constructor for the class that scans the bands on the common ForkJoinPool
+	 */
+	public ParallelCollisionDetector() {
+
+		this(ForkJoinPool.commonPool(), DEFAULT_MINIMUM_POPULATION);
+	}
+
+	/**
+	 * Constructor for the class
+	 * @param pool the pool the bands are scanned on
+	 * @param minimumPopulation the population below which the pairs are collected on the calling thread
+	 */
+	public ParallelCollisionDetector(ForkJoinPool pool, int minimumPopulation) {
+
+		this.pool = pool;
+		this.minimumPopulation = minimumPopulation;
+		this.bandPairs = new PairBuffer[0];
+	}
+
+	@Override
+	public void collectPairs(WorldStore world, Judge judge, PairBuffer pairs) {
+
+		int rows = getRows();
+		int bands = Math.min(rows, pool.getParallelism() * BANDS_PER_WORKER);
+
+		if(world.getCount() < minimumPopulation || bands <= 1) {
+
+			super.collectPairs(world, judge, pairs);
+
+			return;
+		}
+
+		ensureBands(bands);
+
+		pool.invoke(new BandBatch(world, judge, 0, bands, bands, rows));
+
+		for(int band = 0; band < bands; band++) {
+
+			pairs.addAll(bandPairs[band]);
+		}
+	}
+
+	@Override
+	protected void bucket(SpatialHashGrid target, int[] lefts, int[] tops, int count) {
+
+		int chunks = pool.getParallelism() * BANDS_PER_WORKER;
+
+		if(count < minimumPopulation || chunks <= 1) {
+
+			super.bucket(target, lefts, tops, count);
+
+			return;
+		}
+
+		pool.invoke(new ChunkBatch(target, lefts, tops, 0, chunks, chunks, count));
+	}
+
+	/**
+	 * Method that returns the pool the bands are scanned on
+	 * @return the ForkJoinPool of the workers
+	 */
+	public ForkJoinPool getPool() {
+
+		return pool;
+	}
+
+	/**
+	 * Method that returns the population below which the pairs are collected on the calling thread
+	 * @return the minimum population scanned in parallel
+	 */
+	public int getMinimumPopulation() {
+
+		return minimumPopulation;
+	}
+
+	/**
+	 * Helper method that makes sure there is an empty PairBuffer for each band
+	 * @param bands the number of bands scanned this tick
+	 */
+	private void ensureBands(int bands) {
+
+		if(bandPairs.length < bands) {
+
+			PairBuffer[] grown = new PairBuffer[bands];
+
+			System.arraycopy(bandPairs, 0, grown, 0, bandPairs.length);
+
+			for(int band = bandPairs.length; band < bands; band++) {
+
+				grown[band] = new PairBuffer();
+			}
+
+			bandPairs = grown;
+		}
+
+		for(int band = 0; band < bands; band++) {
+
+			bandPairs[band].clear();
+		}
+	}
+
+	/**
+	 * Task that scans a range of bands, splitting the range in halves until it is a single band
+	 * @author Luiz do Valle
+	 *
+	 */
+	private class BandBatch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private WorldStore world;
+		private Judge judge;
+		private int start;
+		private int end;
+		private int bands;
+		private int rows;
+
+		private BandBatch(WorldStore world, Judge judge, int start, int end, int bands, int rows) {
+
+			this.world = world;
+			this.judge = judge;
+			this.start = start;
+			this.end = end;
+			this.bands = bands;
+			this.rows = rows;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(end - start <= 1) {
+
+				if(start < end) {
+
+					int firstRow = (int) ((long) start * rows / bands);
+					int endRow = (int) ((long) end * rows / bands);
+
+					collectPairs(world, judge, firstRow, endRow, bandPairs[start]);
+				}
+
+				return;
+			}
+
+			int middle = (start + end) >>> 1;
+
+			invokeAll(new BandBatch(world, judge, start, middle, bands, rows), new BandBatch(world, judge, middle, end, bands, rows));
+		}
+	}
+
+	/**
+	 * Task that buckets a range of chunks of throws, splitting the range in halves until it is a single chunk
+	 * @author Luiz do Valle
+	 *
+	 */
+	private static class ChunkBatch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private SpatialHashGrid target;
+		private int[] lefts;
+		private int[] tops;
+		private int start;
+		private int end;
+		private int chunks;
+		private int count;
+
+		private ChunkBatch(SpatialHashGrid target, int[] lefts, int[] tops, int start, int end, int chunks, int count) {
+
+			this.target = target;
+			this.lefts = lefts;
+			this.tops = tops;
+			this.start = start;
+			this.end = end;
+			this.chunks = chunks;
+			this.count = count;
+		}
+
+		@Override
+		protected void compute() {
+
+			if(end - start <= 1) {
+
+				if(start < end) {
+
+					int first = (int) ((long) start * count / chunks);
+					int last = (int) ((long) end * count / chunks);
+
+					target.bucket(lefts, tops, first, last);
+				}
+
+				return;
+			}
+
+			int middle = (start + end) >>> 1;
+
+			invokeAll(new ChunkBatch(target, lefts, tops, start, middle, chunks, count), new ChunkBatch(target, lefts, tops, middle, end, chunks, count));
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package world;
+
+/**
+ * Class that moves and wraps the throws one at a time, the plain loops every other MotionKernel must agree with
+ *
+ * Used wherever the vector API is not available, and by the VectorMotionKernel for the throws left over after the
+ * last full vector
+ * @author Luiz do Valle
+ *
+ */
+public class ScalarMotionKernel implements MotionKernel {
+
+	@Override
+	public void advance(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int count, int timeStep) {
+
+		advanceRange(xCoords, yCoords, xSpeeds, ySpeeds, 0, count, timeStep);
+	}
+
+	@Override
+	public void wrap(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int[] wholeWidths, int[] roundedUpWidths,
+			int[] wholeHeights, int count, int width, int height, int timeStep) {
+
+		wrapRange(xCoords, yCoords, xSpeeds, ySpeeds, wholeWidths, roundedUpWidths, wholeHeights, 0, count, width, height,
+				timeStep);
+	}
+
+	@Override
+	public String getName() {
+
+		return "scalar";
+	}
+
+	/**
+	 * Method that moves the throws in the given range of indices (see advance)
+	 * @param xCoords the x coordinates of the throws, updated in place
+	 * @param yCoords the y coordinates of the throws, updated in place
+	 * @param xSpeeds the horizontal speeds of the throws
+	 * @param ySpeeds the vertical speeds of the throws
+	 * @param start the first index of the range
+	 * @param end one past the last index of the range
+	 * @param timeStep the number of ticks of movement covered at once
+	 */
+	static void advanceRange(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int start, int end, int timeStep) {
+
+		for(int i = start; i < end; i++) {
+
+			xCoords[i] += xSpeeds[i] * timeStep;
+			yCoords[i] += ySpeeds[i] * timeStep;
+		}
+	}
+
+	/**
+	 * Method that wraps the throws in the given range of indices (see wrap)
+	 * @param xCoords the x coordinates of the throws, updated in place
+	 * @param yCoords the y coordinates of the throws, updated in place
+	 * @param xSpeeds the horizontal speeds of the throws
+	 * @param ySpeeds the vertical speeds of the throws
+	 * @param wholeWidths the widths of the throws cast to int
+	 * @param roundedUpWidths the widths of the throws rounded up
+	 * @param wholeHeights the heights of the throws cast to int
+	 * @param start the first index of the range
+	 * @param end one past the last index of the range
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 * @param timeStep the number of ticks of movement the throws were last moved by
+	 */
+	static void wrapRange(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int[] wholeWidths,
+			int[] roundedUpWidths, int[] wholeHeights, int start, int end, int width, int height, int timeStep) {
+
+		for(int i = start; i < end; i++) {
+
+			int x = xCoords[i];
+			int y = yCoords[i];
+			int xSpeed = xSpeeds[i];
+			int ySpeed = ySpeeds[i];
+
+			//(int) (x + width) < 0 truncates towards zero, so it is x + width <= -1, which is x + ceil(width) < 0
+			if(x + roundedUpWidths[i] < 0) {
+
+				int entry = width == 0 ? -wholeWidths[i] : width;
+
+				//Leaving is the first tick at or past -ceil(width) - 1, and so is leaving again from the entry
+				xCoords[i] = xSpeed >= 0 ? entry : entry + xSpeed * ticksSinceLastExit(-xSpeed,
+						x - xSpeed * timeStep + roundedUpWidths[i] + 1, entry + roundedUpWidths[i] + 1, timeStep);
+
+			} else if(x > width) {
+
+				int entry = -wholeWidths[i];
+
+				xCoords[i] = xSpeed <= 0 ? entry : entry + xSpeed * ticksSinceLastExit(xSpeed,
+						width + 1 - (x - xSpeed * timeStep), width + 1 - entry, timeStep);
+			}
+
+			if(y < 0) {
+
+				int entry = height == 0 ? 0 : height + wholeHeights[i];
+
+				yCoords[i] = ySpeed >= 0 ? entry : entry + ySpeed * ticksSinceLastExit(-ySpeed,
+						y - ySpeed * timeStep + 1, entry + 1, timeStep);
+
+			} else if(y - wholeHeights[i] > height) {
+
+				int limit = height + wholeHeights[i] + 1;
+
+				yCoords[i] = ySpeed <= 0 ? 0 : ySpeed * ticksSinceLastExit(ySpeed, limit - (y - ySpeed * timeStep), limit,
+						timeStep);
+			}
+		}
+	}
+
+	/**
+	 * Helper method that counts the ticks a throw moved for after it last re-entered the arena during a step, which is
+	 * how far past the entry it is after the step: ticked one at a time, it would have been wrapped on the tick it left
+	 * and moved on from the entry on the ticks after that (leaving again every time it crossed the whole arena)
+	 * @param speed how far the throw moves towards the edge it leaves through every tick, more than 0
+	 * @param distance how far the throw was, before the step, from the first position past that edge
+	 * @param period how far the entry is from the first position past that edge
+	 * @param timeStep the number of ticks the step covered
+	 * @return the number of ticks between the last time the throw was wrapped and the end of the step
+	 */
+	private static int ticksSinceLastExit(int speed, int distance, int period, int timeStep) {
+
+		//A throw that was already past the edge before the step is wrapped on its first tick
+		int firstExit = Math.max(1, ceilDiv(distance, speed));
+
+		return (timeStep - firstExit) % ceilDiv(period, speed);
+	}
+
+	/**
+	 * Helper method that divides two whole numbers rounding towards positive infinity
+	 * @param dividend the number divided
+	 * @param divisor the number it is divided by, more than 0
+	 * @return the smallest whole number that is at least dividend / divisor
+	 */
+	private static int ceilDiv(int dividend, int divisor) {
+
+		return -Math.floorDiv(-dividend, divisor);
+	}
+}
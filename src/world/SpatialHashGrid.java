@@ -0,0 +1,357 @@
+package world;
+
+/**
+ * Uniform grid used as the broad phase of the collision detection
+ * Every throw is bucketed into a single cell according to the corner of its bounding box, and the cells are
+ * at least as big as the largest throw, so two throws can only intersect if they are in the same or in
+ * neighbouring cells
+ *
+ * The grid wraps around its edges the same way the throws wrap around the edges of the arena, so throws
+ * that are partially outside of the arena (which keepThrowsInBounds() allows) are still bucketed next to
+ * their neighbours instead of being clamped into the border cells
+ *
+ * The grid is rebuilt every tick with a counting sort into flat int arrays, which are only reallocated
+ * when the number of throws or cells grows. build() can also be done in its three steps (resize, bucket and sort),
+ * so that the cells of separate ranges of throws can be computed by separate threads
+ * @author Luiz do Valle
+ *
+ */
+public class SpatialHashGrid {
+
+	/**
+	 * The maximum number of distinct cells returned by getNeighbourCells (the cell itself and its 8 neighbours)
+	 */
+	public static final int NEIGHBOURHOOD_SIZE = 9;
+	/**
+	 * The maximum number of cells the grid keeps for each throw in it
+	 */
+	private static final int MAX_CELLS_PER_THROW = 4;
+
+	/**
+	 * The side of each (square) cell
+	 */
+	private int cellSize;
+	/**
+	 * The number of cells in each row of the grid
+	 */
+	private int columns;
+	/**
+	 * The number of cells in each column of the grid
+	 */
+	private int rows;
+	/**
+	 * The number of throws currently in the grid
+	 */
+	private int count;
+	/**
+	 * cellStart[c] is the position in cellEntries of the first throw in cell c, and cellStart[c + 1] is one past the last
+	 */
+	private int[] cellStart;
+	/**
+	 * The indices of the throws, grouped by cell
+	 */
+	private int[] cellEntries;
+	/**
+	 * The column of the cell each throw is in
+	 */
+	private int[] throwColumn;
+	/**
+	 * The row of the cell each throw is in
+	 */
+	private int[] throwRow;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public SpatialHashGrid() {
+
+		cellStart = new int[2];
+		cellEntries = new int[0];
+		throwColumn = new int[0];
+		throwRow = new int[0];
+	}
+
+	/**
+	 * Method that buckets the given throws into the grid, replacing whatever was in it before
+	 * @param count the number of throws
+	 * @param lefts the x coordinate of the corner of each throw's bounding box
+	 * @param tops the y coordinate of the corner of each throw's bounding box
+	 * @param cellSize the side of each cell, which MUST be at least as big as the largest throw
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public void build(int count, int[] lefts, int[] tops, int cellSize, int width, int height) {
+
+		resize(count, cellSize, width, height);
+		bucket(lefts, tops, 0, count);
+		sort();
+	}
+
+	/**
+	 * Method that sizes the grid for the given number of throws and cell size, the first step of build
+	 * @param count the number of throws
+	 * @param cellSize the side of each cell, which MUST be at least as big as the largest throw
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public void resize(int count, int cellSize, int width, int height) {
+
+		this.count = count;
+		this.cellSize = Math.max(1, cellSize);
+		this.columns = Math.max(1, (width + this.cellSize - 1) / this.cellSize);
+		this.rows = Math.max(1, (height + this.cellSize - 1) / this.cellSize);
+
+		//Bigger cells never miss a collision, so a sparse arena uses fewer (and bigger) cells to keep the grid small
+		while((long) columns * rows > MAX_CELLS_PER_THROW * (long) count + NEIGHBOURHOOD_SIZE) {
+
+			this.cellSize *= 2;
+			this.columns = Math.max(1, (width + this.cellSize - 1) / this.cellSize);
+			this.rows = Math.max(1, (height + this.cellSize - 1) / this.cellSize);
+		}
+
+		int cells = columns * rows;
+
+		if(cellStart.length < cells + 1) {
+
+			cellStart = new int[cells + 1];
+		}
+
+		if(cellEntries.length < count) {
+
+			cellEntries = new int[count];
+			throwColumn = new int[count];
+			throwRow = new int[count];
+		}
+	}
+
+	/**
+	 * Method that grows the arrays of the grid so that it can hold the given number of throws without reallocating,
+	 * for grids whose population changes from build to build (e.g. one holding only some of the throws)
+	 * @param capacity the largest number of throws the grid will hold
+	 */
+	public void ensureCapacity(int capacity) {
+
+		//build() never makes more cells than this for the throws it holds
+		int cells = MAX_CELLS_PER_THROW * capacity + NEIGHBOURHOOD_SIZE;
+
+		if(cellStart.length < cells + 1) {
+
+			cellStart = new int[cells + 1];
+		}
+
+		if(cellEntries.length < capacity) {
+
+			cellEntries = new int[capacity];
+			throwColumn = new int[capacity];
+			throwRow = new int[capacity];
+		}
+	}
+
+	/**
+	 * Method that computes the cell of every throw in the given range of indices, the second step of build
+	 * Each throw only writes its own slots, so separate ranges can be bucketed at the same time by separate threads
+	 * @param lefts the x coordinate of the corner of each throw's bounding box
+	 * @param tops the y coordinate of the corner of each throw's bounding box
+	 * @param start the first index of the range
+	 * @param end one past the last index of the range
+	 */
+	public void bucket(int[] lefts, int[] tops, int start, int end) {
+
+		for(int i = start; i < end; i++) {
+
+			throwColumn[i] = Math.floorMod(Math.floorDiv(lefts[i], cellSize), columns);
+			throwRow[i] = Math.floorMod(Math.floorDiv(tops[i], cellSize), rows);
+		}
+	}
+
+	/**
+	 * Method that groups the throws by the cells they were bucketed into, the last step of build
+	 * Must only be called once every throw has been bucketed
+	 */
+	public void sort() {
+
+		int cells = columns * rows;
+
+		for(int cell = 0; cell <= cells; cell++) {
+
+			cellStart[cell] = 0;
+		}
+
+		//First pass counts how many throws are in each cell
+		for(int i = 0; i < count; i++) {
+
+			cellStart[cellOf(throwColumn[i], throwRow[i]) + 1]++;
+		}
+
+		for(int cell = 0; cell < cells; cell++) {
+
+			cellStart[cell + 1] += cellStart[cell];
+		}
+
+		//Second pass places every throw in its slot, using cellStart as the insertion cursor and then restoring it
+		for(int i = 0; i < count; i++) {
+
+			int cell = cellOf(throwColumn[i], throwRow[i]);
+
+			cellEntries[cellStart[cell]] = i;
+			cellStart[cell]++;
+		}
+
+		for(int cell = cells; cell > 0; cell--) {
+
+			cellStart[cell] = cellStart[cell - 1];
+		}
+
+		cellStart[0] = 0;
+	}
+
+	/**
+	 * Method that writes the distinct cells a throw could collide in (its own cell and the ones around it,
+	 * wrapping around the edges) into the given array
+	 * @param throwIndex the index of the throw
+	 * @param cells array of at least NEIGHBOURHOOD_SIZE elements that receives the cells
+	 * @return the number of distinct cells written
+	 */
+	public int getNeighbourCells(int throwIndex, int[] cells) {
+
+		int found = 0;
+
+		for(int rowOffset = -1; rowOffset <= 1; rowOffset++) {
+
+			int row = Math.floorMod(throwRow[throwIndex] + rowOffset, rows);
+
+			for(int columnOffset = -1; columnOffset <= 1; columnOffset++) {
+
+				int column = Math.floorMod(throwColumn[throwIndex] + columnOffset, columns);
+				int cell = cellOf(column, row);
+
+				//Small grids wrap onto themselves, so the same cell can be reached through more than one offset
+				boolean repeated = false;
+
+				for(int k = 0; k < found; k++) {
+
+					if(cells[k] == cell) {
+
+						repeated = true;
+					}
+				}
+
+				if(!repeated) {
+
+					cells[found] = cell;
+					found++;
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Method that returns the position in the entries of the first throw of the given cell
+	 * @param cell the cell
+	 * @return the position of its first entry
+	 */
+	public int getCellStart(int cell) {
+
+		return cellStart[cell];
+	}
+
+	/**
+	 * Method that returns the position in the entries one past the last throw of the given cell
+	 * @param cell the cell
+	 * @return the position one past its last entry
+	 */
+	public int getCellEnd(int cell) {
+
+		return cellStart[cell + 1];
+	}
+
+	/**
+	 * Method that returns the index of the throw at the given position of the entries
+	 * @param position position between getCellStart and getCellEnd of some cell
+	 * @return the index of the throw
+	 */
+	public int getEntryAt(int position) {
+
+		return cellEntries[position];
+	}
+
+	/**
+	 * Method that returns the side of the cells, which build() may have made bigger than requested
+	 * @return the side of each cell
+	 */
+	public int getCellSize() {
+
+		return cellSize;
+	}
+
+	/**
+	 * Method that returns the number of cells in each row of the grid
+	 * @return the number of columns
+	 */
+	public int getColumns() {
+
+		return columns;
+	}
+
+	/**
+	 * Method that returns the number of cells in each column of the grid
+	 * @return the number of rows
+	 */
+	public int getRows() {
+
+		return rows;
+	}
+
+	/**
+	 * Method that returns the column of the cell the given throw is in
+	 * @param throwIndex the index of the throw
+	 * @return the column of its cell
+	 */
+	public int getColumnOf(int throwIndex) {
+
+		return throwColumn[throwIndex];
+	}
+
+	/**
+	 * Method that returns the row of the cell the given throw is in
+	 * @param throwIndex the index of the throw
+	 * @return the row of its cell
+	 */
+	public int getRowOf(int throwIndex) {
+
+		return throwRow[throwIndex];
+	}
+
+	/**
+	 * Method that returns the cell at the given column and row
+	 * @param column the column of the cell, between 0 and getColumns() - 1
+	 * @param row the row of the cell, between 0 and getRows() - 1
+	 * @return the cell, as passed to getCellStart and getCellEnd
+	 */
+	public int getCell(int column, int row) {
+
+		return cellOf(column, row);
+	}
+
+	/**
+	 * Method that returns the number of throws currently in the grid
+	 * @return the number of throws in the grid
+	 */
+	public int getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the index of the cell at the given column and row
+	 * @param column the column of the cell
+	 * @param row the row of the cell
+	 * @return the index of the cell
+	 */
+	private int cellOf(int column, int row) {
+
+		return row * columns + column;
+	}
+}
@@ -0,0 +1,92 @@
+package world;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Class that moves and wraps as many throws at once as fit in a SIMD register, with the vector API
+ * (jdk.incubator.vector)
+ *
+ * Wrapping has no branch per throw: both ways a throw can leave each axis are tested as lane masks, and a vector of
+ * throws that all stayed in the arena is left as it is. The few vectors with a throw that left are wrapped by the
+ * ScalarMotionKernel, since where the throw re-enters after a step of several ticks takes a division (which the vector
+ * API has no whole number lanes for), as are the throws left over after the last full vector
+ *
+ * NOTE: Needs --add-modules jdk.incubator.vector both to compile and to run. It is only ever loaded reflectively by
+ * MotionKernels, which falls back to the ScalarMotionKernel when the module is missing or the hardware has no vectors
+ * @author Luiz do Valle
+ *
+ */
+public class VectorMotionKernel implements MotionKernel {
+
+	/**
+	 * The shape the coordinates are moved and wrapped with
+	 */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	/**
+	 * Default constructor for the class
+	 * @throws UnsupportedOperationException if the hardware has no vectors of more than one int
+	 */
+	public VectorMotionKernel() {
+
+		if(SPECIES.length() < 2) {
+
+			throw new UnsupportedOperationException("No SIMD registers wider than an int");
+		}
+	}
+
+	@Override
+	public void advance(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int count, int timeStep) {
+
+		int bound = SPECIES.loopBound(count);
+		int i = 0;
+
+		for(; i < bound; i += SPECIES.length()) {
+
+			IntVector x = IntVector.fromArray(SPECIES, xCoords, i);
+			IntVector y = IntVector.fromArray(SPECIES, yCoords, i);
+
+			x.add(IntVector.fromArray(SPECIES, xSpeeds, i).mul(timeStep)).intoArray(xCoords, i);
+			y.add(IntVector.fromArray(SPECIES, ySpeeds, i).mul(timeStep)).intoArray(yCoords, i);
+		}
+
+		ScalarMotionKernel.advanceRange(xCoords, yCoords, xSpeeds, ySpeeds, i, count, timeStep);
+	}
+
+	@Override
+	public void wrap(int[] xCoords, int[] yCoords, int[] xSpeeds, int[] ySpeeds, int[] wholeWidths,
+			int[] roundedUpWidths, int[] wholeHeights, int count, int width, int height, int timeStep) {
+
+		int bound = SPECIES.loopBound(count);
+		int i = 0;
+
+		for(; i < bound; i += SPECIES.length()) {
+
+			IntVector x = IntVector.fromArray(SPECIES, xCoords, i);
+			IntVector y = IntVector.fromArray(SPECIES, yCoords, i);
+
+			VectorMask<Integer> leftOut = x.add(IntVector.fromArray(SPECIES, roundedUpWidths, i)).compare(VectorOperators.LT, 0);
+			VectorMask<Integer> rightOut = x.compare(VectorOperators.GT, width);
+			VectorMask<Integer> bottomOut = y.compare(VectorOperators.LT, 0);
+			VectorMask<Integer> topOut = y.sub(IntVector.fromArray(SPECIES, wholeHeights, i)).compare(VectorOperators.GT, height);
+
+			if(leftOut.or(rightOut).or(bottomOut).or(topOut).anyTrue()) {
+
+				ScalarMotionKernel.wrapRange(xCoords, yCoords, xSpeeds, ySpeeds, wholeWidths, roundedUpWidths, wholeHeights, i,
+						i + SPECIES.length(), width, height, timeStep);
+			}
+		}
+
+		ScalarMotionKernel.wrapRange(xCoords, yCoords, xSpeeds, ySpeeds, wholeWidths, roundedUpWidths, wholeHeights, i, count,
+				width, height, timeStep);
+	}
+
+	@Override
+	public String getName() {
+
+		return "vector(" + SPECIES.length() + " lanes)";
+	}
+}
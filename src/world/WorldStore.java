@@ -0,0 +1,698 @@
+package world;
+
+import java.util.Arrays;
+
+import game_throws.GameThrow;
+import judge.ValidPlaysLibrary;
+
+/**
+ * Class that holds the state of every throw in the game as a structure of arrays
+ * Each property (position, speed, extents and type) lives in its own primitive array, so moving, wrapping
+ * and testing the throws for collisions streams over contiguous memory instead of chasing a pointer per throw
+ *
+ * The GameThrow instances are kept alongside as views: they are used to draw the throws and to grow them,
+ * but their positions are only brought up to date when syncView() is called
+ * 
+ * Throws can also be added without a view (e.g. by the ScenarioGenerator, for populations far too large to
+ * create a GameThrow for every throw). Their view is null, syncing skips them and they grow with scaleExtents()
+ *
+ * The arrays returned by the getters are the live arrays of the store and are only meaningful up to getCount()
+ * @author Luiz do Valle
+ *
+ */
+public class WorldStore {
+
+	/**
+	 * The capacity of the arrays of an empty store
+	 */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The number of throws in the store
+	 */
+	private int count;
+	/**
+	 * The x coordinate of the bottom left corner of each throw's bounding box
+	 */
+	private int[] xCoords;
+	/**
+	 * The y coordinate of the bottom left corner of each throw's bounding box
+	 */
+	private int[] yCoords;
+	/**
+	 * The x and y coordinates of each throw before the last step, which the renderer interpolates from
+	 */
+	private int[] previousXCoords;
+	private int[] previousYCoords;
+	/**
+	 * The amount by which each throw moves horizontally every tick
+	 */
+	private int[] xSpeeds;
+	/**
+	 * The amount by which each throw moves vertically every tick
+	 */
+	private int[] ySpeeds;
+	/**
+	 * The width of each throw's bounding box
+	 */
+	private double[] widths;
+	/**
+	 * The height of each throw's bounding box
+	 */
+	private double[] heights;
+	/**
+	 * The width and height of each throw's bounding box cast to int, and its width rounded up, kept next to the
+	 * extents so that wrapping the throws around the edges is whole arithmetic only
+	 */
+	private int[] wholeWidths;
+	private int[] wholeHeights;
+	private int[] roundedUpWidths;
+	/**
+	 * The type id of each throw (see Judge.getTypeOf)
+	 */
+	private byte[] types;
+	/**
+	 * The GameThrow each entry of the arrays corresponds to
+	 */
+	private GameThrow[] views;
+	/**
+	 * The number of ticks of movement the last step covered
+	 */
+	private int lastTimeStep;
+	/**
+	 * The loops that move and wrap the throws
+	 */
+	private MotionKernel motionKernel;
+
+	/**
+	 * Default constructor for the class
+	 */
+	public WorldStore() {
+
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructor that sizes the arrays for the given number of throws up front
+	 * @param capacity the number of throws the store can hold before growing
+	 */
+	public WorldStore(int capacity) {
+
+		capacity = Math.max(1, capacity);
+
+		xCoords = new int[capacity];
+		yCoords = new int[capacity];
+		previousXCoords = new int[capacity];
+		previousYCoords = new int[capacity];
+		xSpeeds = new int[capacity];
+		ySpeeds = new int[capacity];
+		widths = new double[capacity];
+		heights = new double[capacity];
+		wholeWidths = new int[capacity];
+		wholeHeights = new int[capacity];
+		roundedUpWidths = new int[capacity];
+		types = new byte[capacity];
+		views = new GameThrow[capacity];
+		lastTimeStep = 1;
+		motionKernel = MotionKernels.getDefault();
+	}
+
+	/**
+	 * Method that adds the given throw to the end of the store, copying its current state into the arrays
+	 * @param gameThrow the throw to be added
+	 */
+	public void add(GameThrow gameThrow) {
+
+		add(gameThrow, ValidPlaysLibrary.getTypeOf(gameThrow.getCharRepresentation()));
+	}
+
+	/**
+	 * Method that adds the given throw to the end of the store with the given type id, used when the throws are
+	 * judged by a RuleSet other than the standard one
+	 * @param gameThrow the throw to be added
+	 * @param type the type id of the throw
+	 */
+	public void add(GameThrow gameThrow, byte type) {
+
+		ensureCapacity(count + 1);
+
+		xCoords[count] = gameThrow.getLeftXPos();
+		yCoords[count] = gameThrow.getBottomY();
+		previousXCoords[count] = xCoords[count];
+		previousYCoords[count] = yCoords[count];
+		xSpeeds[count] = gameThrow.getXSpeed();
+		ySpeeds[count] = gameThrow.getYSpeed();
+		widths[count] = gameThrow.getWidth();
+		heights[count] = gameThrow.getHeight();
+		roundExtents(count);
+		types[count] = type;
+		views[count] = gameThrow;
+
+		count++;
+	}
+
+	/**
+	 * Method that adds a throw without a view to the end of the store
+	 * @param xCoord the x coordinate of the bottom left corner of the throw's bounding box
+	 * @param yCoord the y coordinate of the bottom left corner of the throw's bounding box
+	 * @param xSpeed the amount by which the throw moves horizontally every tick
+	 * @param ySpeed the amount by which the throw moves vertically every tick
+	 * @param width the width of the throw's bounding box
+	 * @param height the height of the throw's bounding box
+	 * @param type the type id of the throw
+	 */
+	public void add(int xCoord, int yCoord, int xSpeed, int ySpeed, double width, double height, byte type) {
+
+		ensureCapacity(count + 1);
+
+		xCoords[count] = xCoord;
+		yCoords[count] = yCoord;
+		previousXCoords[count] = xCoord;
+		previousYCoords[count] = yCoord;
+		xSpeeds[count] = xSpeed;
+		ySpeeds[count] = ySpeed;
+		widths[count] = width;
+		heights[count] = height;
+		roundExtents(count);
+		types[count] = type;
+		views[count] = null;
+
+		count++;
+	}
+
+	/**
+	 * Method that moves every throw by its speed, remembering where it was before
+	 */
+	public void translateAll() {
+
+		translateAll(1);
+	}
+
+	/**
+	 * Method that moves every throw by its speed times the given number of ticks, remembering where it was before
+	 * @param timeStep the number of ticks of movement covered at once
+	 */
+	public void translateAll(int timeStep) {
+
+		System.arraycopy(xCoords, 0, previousXCoords, 0, count);
+		System.arraycopy(yCoords, 0, previousYCoords, 0, count);
+
+		lastTimeStep = timeStep;
+
+		motionKernel.advance(xCoords, yCoords, xSpeeds, ySpeeds, count, timeStep);
+	}
+
+	/**
+	 * Method that wraps every throw that left the arena around to the opposite edge
+	 * Same rules as GameThrow.resetX and GameThrow.resetY: a throw that leaves through the right (bottom) edge
+	 * re-enters with its right (bottom) side just on the left (top) edge, and vice versa
+	 * After a step of several ticks, a throw that left re-entered on the tick it left and kept moving from there on the
+	 * ticks after it, so it ends up where as many single ticks would have left it (see MotionKernel)
+	 * Must be called after translateAll, which it takes the number of ticks of the step from
+	 * @param width the width of the arena
+	 * @param height the height of the arena
+	 */
+	public void wrapAll(int width, int height) {
+
+		motionKernel.wrap(xCoords, yCoords, xSpeeds, ySpeeds, wholeWidths, roundedUpWidths, wholeHeights, count, width, height,
+				lastTimeStep);
+	}
+
+	/**
+	 * Method that sets the loops that move and wrap the throws (e.g. the ScalarMotionKernel, to compare it with the
+	 * default one)
+	 * @param motionKernel the kernel that moves and wraps the throws
+	 */
+	public void setMotionKernel(MotionKernel motionKernel) {
+
+		if(motionKernel == null) {
+
+			throw new IllegalArgumentException("The motion kernel cannot be null");
+		}
+
+		this.motionKernel = motionKernel;
+	}
+
+	/**
+	 * Method that returns the loops that move and wrap the throws
+	 * @return the kernel that moves and wraps the throws
+	 */
+	public MotionKernel getMotionKernel() {
+
+		return motionKernel;
+	}
+
+	/**
+	 * Method that returns the x coordinate of the throw at the given index the given fraction of the way between
+	 * where it was before the last step and where it is now
+	 * A throw that did not move by exactly its speed times the time step (it wrapped around, or was added after the
+	 * step) is not interpolated, since it would be drawn sweeping across the arena. A throw whose path was continued
+	 * across the edges (see continueWrappedPaths) is interpolated from beyond the edge it re-entered through
+	 * @param index the index of the throw
+	 * @param alpha how far between the previous and the current position, between 0 and 1
+	 * @return the interpolated x coordinate of the bottom left corner of the throw
+	 */
+	public int getInterpolatedX(int index, double alpha) {
+
+		int previous = previousXCoords[index];
+
+		if(!movedBySpeed(index)) {
+
+			return xCoords[index];
+		}
+
+		return previous + (int) Math.round(xSpeeds[index] * lastTimeStep * alpha);
+	}
+
+	/**
+	 * Method that returns the y coordinate of the throw at the given index the given fraction of the way between
+	 * where it was before the last step and where it is now (see getInterpolatedX)
+	 * @param index the index of the throw
+	 * @param alpha how far between the previous and the current position, between 0 and 1
+	 * @return the interpolated y coordinate of the bottom left corner of the throw
+	 */
+	public int getInterpolatedY(int index, double alpha) {
+
+		int previous = previousYCoords[index];
+
+		if(!movedBySpeed(index)) {
+
+			return yCoords[index];
+		}
+
+		return previous + (int) Math.round(ySpeeds[index] * lastTimeStep * alpha);
+	}
+
+	/**
+	 * Helper method that checks whether the throw at the given index moved by exactly its speed during the last step
+	 * @param index the index of the throw
+	 * @return true if it moved by its speed times the time step, false if it wrapped around or was added since
+	 */
+	private boolean movedBySpeed(int index) {
+
+		return xCoords[index] - previousXCoords[index] == xSpeeds[index] * lastTimeStep
+				&& yCoords[index] - previousYCoords[index] == ySpeeds[index] * lastTimeStep;
+	}
+
+	/**
+	 * Method that moves the previous position of every throw that wrapped around the edges during the last step to
+	 * its current position minus its speed times the time step, so the line between them ends with the path the
+	 * throw took after it last re-entered the arena, and starts beyond the edge it re-entered through
+	 * Must be called after wrapAll
+	 * @param wrapped array that receives whether each throw wrapped, at least getCount() long
+	 * @return the number of throws that wrapped
+	 */
+	public int continueWrappedPaths(boolean[] wrapped) {
+
+		int wrappedCount = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			wrapped[i] = !movedBySpeed(i);
+
+			if(wrapped[i]) {
+
+				previousXCoords[i] = xCoords[i] - xSpeeds[i] * lastTimeStep;
+				previousYCoords[i] = yCoords[i] - ySpeeds[i] * lastTimeStep;
+				wrappedCount++;
+			}
+		}
+
+		return wrappedCount;
+	}
+
+	/**
+	 * Method that checks whether the bounding boxes of two throws intersect
+	 * Same test as Rectangle2D.intersects on the rectangles returned by GameThrow.getBounds
+	 * @param index1 the index of the first throw
+	 * @param index2 the index of the second throw
+	 * @return true if the throws intersect, false otherwise
+	 */
+	public boolean overlaps(int index1, int index2) {
+
+		double width1 = widths[index1];
+		double height1 = heights[index1];
+		double width2 = widths[index2];
+		double height2 = heights[index2];
+
+		if(width1 <= 0 || height1 <= 0 || width2 <= 0 || height2 <= 0) {
+
+			return false;
+		}
+
+		int x1 = xCoords[index1];
+		int y1 = yCoords[index1];
+		int x2 = xCoords[index2];
+		int y2 = yCoords[index2];
+
+		return x2 + width2 > x1 && y2 + height2 > y1 && x2 < x1 + width1 && y2 < y1 + height1;
+	}
+
+	/**
+	 * Method that checks whether the bounding boxes of two throws intersected at any moment of the last step, as they
+	 * moved in a straight line from their previous to their current position (swept AABB test)
+	 * Must be called before the throws are wrapped around the edges, since a wrapped throw did not travel the line
+	 * between its previous and its current position, unless continueWrappedPaths made that line its path after it
+	 * re-entered the arena
+	 * @param index1 the index of the first throw
+	 * @param index2 the index of the second throw
+	 * @return true if the throws intersected during the step, false otherwise
+	 */
+	public boolean sweptOverlaps(int index1, int index2) {
+
+		double width1 = widths[index1];
+		double height1 = heights[index1];
+		double width2 = widths[index2];
+		double height2 = heights[index2];
+
+		if(width1 <= 0 || height1 <= 0 || width2 <= 0 || height2 <= 0) {
+
+			return false;
+		}
+
+		//The second throw moves relative to the first, which stays at its previous position
+		double enter = 0;
+		double exit = 1;
+
+		int startX = previousXCoords[index2] - previousXCoords[index1];
+		int velocityX = (xCoords[index2] - previousXCoords[index2]) - (xCoords[index1] - previousXCoords[index1]);
+
+		if(velocityX == 0) {
+
+			if(startX + width2 <= 0 || startX >= width1) {
+
+				return false;
+			}
+
+		} else {
+
+			double first = (-width2 - startX) / velocityX;
+			double second = (width1 - startX) / velocityX;
+
+			enter = Math.max(enter, Math.min(first, second));
+			exit = Math.min(exit, Math.max(first, second));
+		}
+
+		int startY = previousYCoords[index2] - previousYCoords[index1];
+		int velocityY = (yCoords[index2] - previousYCoords[index2]) - (yCoords[index1] - previousYCoords[index1]);
+
+		if(velocityY == 0) {
+
+			if(startY + height2 <= 0 || startY >= height1) {
+
+				return false;
+			}
+
+		} else {
+
+			double first = (-height2 - startY) / velocityY;
+			double second = (height1 - startY) / velocityY;
+
+			enter = Math.max(enter, Math.min(first, second));
+			exit = Math.min(exit, Math.max(first, second));
+		}
+
+		return enter < exit;
+	}
+
+	/**
+	 * Method that returns the smallest whole size that is bigger than every throw's width and height
+	 * @return the smallest cell size of a SpatialHashGrid that holds these throws
+	 */
+	public int getMaxExtent() {
+
+		double maxExtent = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			maxExtent = Math.max(maxExtent, Math.max(widths[i], heights[i]));
+		}
+
+		return (int) maxExtent + 1;
+	}
+
+	/**
+	 * Method that copies the current extents of the view at the given index into the arrays
+	 * Must be called after the view changes size (e.g. GameThrow.increaseSize)
+	 * @param index the index of the throw
+	 */
+	public void refreshExtents(int index) {
+
+		if(views[index] == null) {
+
+			return;
+		}
+
+		widths[index] = views[index].getWidth();
+		heights[index] = views[index].getHeight();
+		roundExtents(index);
+	}
+
+	/**
+	 * Method that multiplies the extents of the throw at the given index by the given scalar, which is how
+	 * throws without a view grow
+	 * @param index the index of the throw
+	 * @param scalar the scalar by which the extents are multiplied
+	 */
+	public void scaleExtents(int index, double scalar) {
+
+		widths[index] *= scalar;
+		heights[index] *= scalar;
+		roundExtents(index);
+	}
+
+	/**
+	 * Method that sets the extents of the throw at the given index, leaving its view (if any) as it is
+	 * Used where the extents are known from elsewhere than the view (e.g. a replay, which holds the recorded ones)
+	 * @param index the index of the throw
+	 * @param width the new width of the throw's bounding box
+	 * @param height the new height of the throw's bounding box
+	 */
+	public void setExtents(int index, double width, double height) {
+
+		widths[index] = width;
+		heights[index] = height;
+		roundExtents(index);
+	}
+
+	/**
+	 * Method that gives the throw at the given index a view to be drawn with, without copying anything from it
+	 * The view is moved to the position of the throw, but its extents are left as they are in the arrays
+	 * @param index the index of the throw
+	 * @param view the view of the throw, or null to remove it
+	 */
+	public void setView(int index, GameThrow view) {
+
+		views[index] = view;
+		syncView(index);
+	}
+
+	/**
+	 * Helper method that updates the whole extents of the throw at the given index after its extents changed
+	 * @param index the index of the throw
+	 */
+	private void roundExtents(int index) {
+
+		wholeWidths[index] = (int) widths[index];
+		wholeHeights[index] = (int) heights[index];
+		roundedUpWidths[index] = (int) Math.ceil(widths[index]);
+	}
+
+	/**
+	 * Method that copies the position in the arrays into the view at the given index, if it has one
+	 * @param index the index of the throw
+	 */
+	public void syncView(int index) {
+
+		if(views[index] == null) {
+
+			return;
+		}
+
+		views[index].moveTo(xCoords[index], yCoords[index]);
+	}
+
+	/**
+	 * Method that copies the positions in the arrays into every view
+	 */
+	public void syncViews() {
+
+		for(int i = 0; i < count; i++) {
+
+			syncView(i);
+		}
+	}
+
+	/**
+	 * Method that removes every throw marked in the given array, keeping the order of the others
+	 * @param removed array where removed[i] is true if the throw at index i must be removed
+	 */
+	public void compact(boolean[] removed) {
+
+		int kept = 0;
+
+		for(int i = 0; i < count; i++) {
+
+			if(!removed[i]) {
+
+				xCoords[kept] = xCoords[i];
+				yCoords[kept] = yCoords[i];
+				previousXCoords[kept] = previousXCoords[i];
+				previousYCoords[kept] = previousYCoords[i];
+				xSpeeds[kept] = xSpeeds[i];
+				ySpeeds[kept] = ySpeeds[i];
+				widths[kept] = widths[i];
+				heights[kept] = heights[i];
+				wholeWidths[kept] = wholeWidths[i];
+				wholeHeights[kept] = wholeHeights[i];
+				roundedUpWidths[kept] = roundedUpWidths[i];
+				types[kept] = types[i];
+				views[kept] = views[i];
+
+				kept++;
+			}
+		}
+
+		//Lets the removed views be garbage collected
+		Arrays.fill(views, kept, count, null);
+
+		count = kept;
+	}
+
+	/**
+	 * Method that returns the x coordinates of the throws before the last step
+	 * @return the previous x coordinates array
+	 */
+	public int[] getPreviousXCoords() {
+
+		return previousXCoords;
+	}
+
+	/**
+	 * Method that returns the y coordinates of the throws before the last step
+	 * @return the previous y coordinates array
+	 */
+	public int[] getPreviousYCoords() {
+
+		return previousYCoords;
+	}
+
+	/**
+	 * Method that returns the number of throws in the store
+	 * @return the number of throws in the store
+	 */
+	public int getCount() {
+
+		return count;
+	}
+
+	/**
+	 * Method that returns the live array of x coordinates
+	 * @return the x coordinate of the bottom left corner of each throw's bounding box
+	 */
+	public int[] getXCoords() {
+
+		return xCoords;
+	}
+
+	/**
+	 * Method that returns the live array of y coordinates
+	 * @return the y coordinate of the bottom left corner of each throw's bounding box
+	 */
+	public int[] getYCoords() {
+
+		return yCoords;
+	}
+
+	/**
+	 * Method that returns the live array of horizontal speeds
+	 * @return the speed in the x direction of each throw
+	 */
+	public int[] getXSpeeds() {
+
+		return xSpeeds;
+	}
+
+	/**
+	 * Method that returns the live array of vertical speeds
+	 * @return the speed in the y direction of each throw
+	 */
+	public int[] getYSpeeds() {
+
+		return ySpeeds;
+	}
+
+	/**
+	 * Method that returns the live array of widths
+	 * @return the width of each throw's bounding box
+	 */
+	public double[] getWidths() {
+
+		return widths;
+	}
+
+	/**
+	 * Method that returns the live array of heights
+	 * @return the height of each throw's bounding box
+	 */
+	public double[] getHeights() {
+
+		return heights;
+	}
+
+	/**
+	 * Method that returns the live array of type ids
+	 * @return the type id of each throw
+	 */
+	public byte[] getTypes() {
+
+		return types;
+	}
+
+	/**
+	 * Method that returns the live array of views
+	 * @return the GameThrow each entry corresponds to
+	 */
+	public GameThrow[] getViews() {
+
+		return views;
+	}
+
+	/**
+	 * Method that returns the GameThrow at the given index
+	 * @param index the index of the throw
+	 * @return the GameThrow at the given index, or null if the throw was added without a view
+	 */
+	public GameThrow getView(int index) {
+
+		return views[index];
+	}
+
+	/**
+	 * Method that grows every array so that it can hold at least the given number of throws
+	 * @param capacity the number of throws the store must be able to hold
+	 */
+	public void ensureCapacity(int capacity) {
+
+		if(capacity <= xCoords.length) {
+
+			return;
+		}
+
+		int newCapacity = Math.max(capacity, xCoords.length * 2);
+
+		xCoords = Arrays.copyOf(xCoords, newCapacity);
+		yCoords = Arrays.copyOf(yCoords, newCapacity);
+		previousXCoords = Arrays.copyOf(previousXCoords, newCapacity);
+		previousYCoords = Arrays.copyOf(previousYCoords, newCapacity);
+		xSpeeds = Arrays.copyOf(xSpeeds, newCapacity);
+		ySpeeds = Arrays.copyOf(ySpeeds, newCapacity);
+		widths = Arrays.copyOf(widths, newCapacity);
+		heights = Arrays.copyOf(heights, newCapacity);
+		wholeWidths = Arrays.copyOf(wholeWidths, newCapacity);
+		wholeHeights = Arrays.copyOf(wholeHeights, newCapacity);
+		roundedUpWidths = Arrays.copyOf(roundedUpWidths, newCapacity);
+		types = Arrays.copyOf(types, newCapacity);
+		views = Arrays.copyOf(views, newCapacity);
+	}
+}